@@ -0,0 +1,126 @@
+package edu.guilford;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Entry point of the benchmarks jar. Runs the JMH benchmarks selected on the
+ * command line (all of them by default) with the gc profiler attached, so
+ * every result carries its allocation rate, and writes the results as JSON.
+ * Options given on the command line override these defaults.
+ * <p>
+ * The games are meant to allocate nothing once they are warmed up, so the
+ * benchmarks of their steady state have an allocation budget in bytes per
+ * operation. The runner exits with status 1 when one of them goes over it,
+ * or when one of them was not measured, which turns the benchmark jar into an
+ * allocation-regression check.
+ *
+ * @author Miguel A. Nunez Palomares
+ * @version 1.0
+ */
+public class BenchmarkRunner {
+
+    /**
+     * The file the JSON results are written to unless -rff is given.
+     */
+    private static final String RESULT_FILE = "jmh-result.json";
+
+    /**
+     * The most bytes per operation each steady-state benchmark may allocate.
+     * The budgets leave room for the profiler's own noise, well below the
+     * size of a single Hand.
+     */
+    private static final Map<String, Double> ALLOCATION_BUDGETS = Map.of(
+            "edu.guilford.BlackjackBenchmark.round", 8.0,
+            "edu.guilford.BlackjackBenchmark.playRound", 8.0,
+            "edu.guilford.LamarckianPokerBenchmark.turn", 8.0,
+            "edu.guilford.LamarckianPokerBenchmark.game", 16.0,
+            "edu.guilford.PokerEvaluatorBenchmark.evaluate", 8.0);
+
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+        CommandLineOptions commandLine = new CommandLineOptions(args);
+        // Options set on the builder take precedence over its parent, so only
+        // fill in the defaults the command line leaves open
+        ChainedOptionsBuilder options = new OptionsBuilder().parent(commandLine);
+        boolean gcProfiled = commandLine.getProfilers().stream()
+                .anyMatch(profiler -> profiler.getKlass().equals(GCProfiler.class.getName())
+                        || profiler.getKlass().equals("gc"));
+        if (!gcProfiled) {
+            options.addProfiler(GCProfiler.class);
+        }
+        if (!commandLine.getResultFormat().hasValue()) {
+            options.resultFormat(ResultFormatType.JSON);
+        }
+        if (!commandLine.getResult().hasValue()) {
+            options.result(RESULT_FILE);
+        }
+        boolean allIncluded = commandLine.getIncludes().isEmpty();
+        if (allIncluded) {
+            options.include("edu\\.guilford\\..*Benchmark");
+        }
+        Collection<RunResult> results = new Runner(options.build()).run();
+        if (!withinAllocationBudgets(results, allIncluded)) {
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Checks the normalized allocation rate of every benchmark that has a
+     * budget, reporting the ones over it. A budgeted benchmark whose result
+     * has no allocation rate fails the check rather than passing unmeasured,
+     * and so does a run of every benchmark that leaves out a budgeted one,
+     * since that means a budget no longer names a benchmark.
+     *
+     * @param results     The results of the run.
+     * @param allIncluded True if the run was not narrowed to some benchmarks,
+     *                    so every budgeted benchmark should have a result.
+     * @return True if every budgeted benchmark was measured within its budget.
+     */
+    private static boolean withinAllocationBudgets(Collection<RunResult> results, boolean allIncluded) {
+        boolean within = true;
+        Set<String> checked = new HashSet<>();
+        for (RunResult result : results) {
+            String benchmark = result.getParams().getBenchmark();
+            Double budget = ALLOCATION_BUDGETS.get(benchmark);
+            if (budget == null) {
+                continue;
+            }
+            checked.add(benchmark);
+            Map<String, Result> secondary = result.getSecondaryResults();
+            // Older JMH versions prefix the profiler's results with a dot
+            Result allocated = secondary.getOrDefault("gc.alloc.rate.norm",
+                    secondary.get("\u00b7gc.alloc.rate.norm"));
+            if (allocated == null) {
+                System.err.printf("Allocation unmeasured: %s has no gc.alloc.rate.norm among %s%n", benchmark,
+                        secondary.keySet());
+                within = false;
+            } else if (allocated.getScore() > budget) {
+                System.err.printf("Allocation regression: %s allocates %.1f bytes/op, budget %.1f%n", benchmark,
+                        allocated.getScore(), budget);
+                within = false;
+            }
+        }
+        if (allIncluded) {
+            for (String benchmark : ALLOCATION_BUDGETS.keySet()) {
+                if (!checked.contains(benchmark)) {
+                    System.err.printf("Allocation unchecked: the budgeted benchmark %s did not run%n", benchmark);
+                    within = false;
+                }
+            }
+        }
+        return within;
+    }
+}
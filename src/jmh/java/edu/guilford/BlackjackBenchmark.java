@@ -0,0 +1,57 @@
+package edu.guilford;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Benchmarks one full round of Blackjack: the deal followed by the player and
+ * dealer turns, as CardGameDriver plays it.
+ *
+ * @author Miguel A. Nunez Palomares
+ * @version 1.0
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class BlackjackBenchmark {
+
+    /**
+     * The number of 52-card decks in the shoe.
+     */
+    @Param({ "1", "6" })
+    public int decks;
+
+    private Blackjack game;
+
+    @Setup
+    public void setUp() {
+        game = new Blackjack(decks, decks == 1 ? Blackjack.DEFAULT_PENETRATION : 0.75, RandomSource.seeded(42));
+    }
+
+    @Benchmark
+    public void round(Blackhole blackhole) {
+        game.deal();
+        blackhole.consume(game.playerTurn());
+        blackhole.consume(game.dealerTurn());
+    }
+
+    @Benchmark
+    public Blackjack.Outcome playRound() {
+        return game.playRound();
+    }
+}
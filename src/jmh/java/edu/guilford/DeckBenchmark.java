@@ -0,0 +1,68 @@
+package edu.guilford;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks the Deck operations every simulation is built on: shuffling,
+ * dealing and building, for single decks and multi-deck shoes.
+ *
+ * @author Miguel A. Nunez Palomares
+ * @version 1.0
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class DeckBenchmark {
+
+    /**
+     * The number of 52-card decks in the benchmarked deck.
+     */
+    @Param({ "1", "6", "8" })
+    public int decks;
+
+    private Deck deck;
+
+    @Setup
+    public void setUp() {
+        deck = new Deck(decks, RandomSource.seeded(42));
+        deck.shuffle();
+    }
+
+    @Benchmark
+    public Deck shuffle() {
+        deck.shuffle();
+        return deck;
+    }
+
+    @Benchmark
+    public Card deal() {
+        if (deck.isEmpty()) {
+            deck.reset();
+        }
+        return deck.deal();
+    }
+
+    @Benchmark
+    public Deck build() {
+        deck.clear();
+        for (int i = 0; i < decks; i++) {
+            deck.build();
+        }
+        return deck;
+    }
+}
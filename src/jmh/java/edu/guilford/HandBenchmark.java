@@ -0,0 +1,53 @@
+package edu.guilford;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks Hand.getTotalValue for hands of several sizes.
+ *
+ * @author Miguel A. Nunez Palomares
+ * @version 1.0
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class HandBenchmark {
+
+    /**
+     * The number of cards in the benchmarked hand.
+     */
+    @Param({ "2", "3", "5", "8" })
+    public int handSize;
+
+    private Hand hand;
+
+    @Setup
+    public void setUp() {
+        Deck deck = new Deck(RandomSource.seeded(42));
+        deck.shuffle();
+        hand = new Hand();
+        for (int i = 0; i < handSize; i++) {
+            hand.addCard(deck.deal());
+        }
+    }
+
+    @Benchmark
+    public int getTotalValue() {
+        return hand.getTotalValue();
+    }
+}
@@ -0,0 +1,55 @@
+package edu.guilford;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks a single LamarckianPoker turn and a whole game played from a new
+ * deck until turn() reports that it is over.
+ *
+ * @author Miguel A. Nunez Palomares
+ * @version 1.0
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class LamarckianPokerBenchmark {
+
+    private LamarckianPoker game;
+
+    @Setup
+    public void setUp() {
+        game = new LamarckianPoker();
+    }
+
+    @Benchmark
+    public boolean turn() {
+        boolean played = game.turn();
+        if (!played) {
+            game.reset(true);
+        }
+        return played;
+    }
+
+    @Benchmark
+    public LamarckianPoker game() {
+        game.reset(true);
+        while (game.turn()) {
+            // play until both hands are full
+        }
+        return game;
+    }
+}
@@ -0,0 +1,67 @@
+package edu.guilford;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks PokerEvaluator.evaluate on random hands of several sizes. The
+ * hands are dealt once into a table that the benchmark cycles through, so
+ * the branches see a realistic mix of categories and the score is
+ * evaluations per microsecond.
+ *
+ * @author Miguel A. Nunez Palomares
+ * @version 1.0
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PokerEvaluatorBenchmark {
+
+    /**
+     * The number of random hands cycled through, a power of two.
+     */
+    private static final int HANDS = 4096;
+
+    /**
+     * The number of cards in each hand.
+     */
+    @Param({ "5", "7" })
+    public int handSize;
+
+    private final long[] masks = new long[HANDS];
+    private int next;
+
+    @Setup
+    public void setUp() {
+        Deck deck = new Deck(RandomSource.seeded(42));
+        for (int i = 0; i < HANDS; i++) {
+            deck.reset();
+            deck.shuffle();
+            long mask = 0;
+            for (int c = 0; c < handSize; c++) {
+                mask |= 1L << deck.deal().getCode();
+            }
+            masks[i] = mask;
+        }
+    }
+
+    @Benchmark
+    public int evaluate() {
+        next = (next + 1) & (HANDS - 1);
+        return PokerEvaluator.evaluate(masks[next]);
+    }
+}
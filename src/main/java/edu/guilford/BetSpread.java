@@ -0,0 +1,104 @@
+package edu.guilford;
+
+/**
+ * A bet ramp for a card counter: how many units to bet at each true count.
+ * The true count is rounded down, and counts below the first step or above
+ * the last one get the first or last bet. For example the spread
+ * {@code 1,2,4,6,8} starting at +1 bets one unit at a true count of +1 or
+ * less, two at +2, four at +3, six at +4 and eight at +5 or more.
+ * <p>
+ * A spread is immutable, so one instance can be shared by every game.
+ *
+ * @author Miguel A. Nunez Palomares
+ * @version 1.0
+ * @see CountingSystem, Blackjack#setBetSpread(BetSpread)
+ */
+public class BetSpread {
+
+    /**
+     * The true count of the first step of a parsed spread.
+     */
+    public static final int DEFAULT_FIRST_COUNT = 1;
+
+    /**
+     * The true count the first bet applies to.
+     */
+    private final int firstCount;
+    /**
+     * The bet of each step, in units.
+     */
+    private final int[] bets;
+
+    /**
+     * Constructs a spread.
+     *
+     * @param firstCount The true count the first bet applies to; lower counts
+     *                   get the same bet.
+     * @param bets       The bet in units at each true count from firstCount
+     *                   on; higher counts get the last bet.
+     * @throws IllegalArgumentException If there are no bets or a bet is not
+     *                                  positive.
+     */
+    public BetSpread(int firstCount, int... bets) {
+        if (bets.length == 0) {
+            throw new IllegalArgumentException("A bet spread needs at least one bet");
+        }
+        for (int bet : bets) {
+            if (bet < 1) {
+                throw new IllegalArgumentException("Invalid bet: " + bet);
+            }
+        }
+        this.firstCount = firstCount;
+        this.bets = bets.clone();
+    }
+
+    /**
+     * Parses a spread written as comma-separated bets, such as "1,2,4,6,8",
+     * whose first step is at a true count of {@value #DEFAULT_FIRST_COUNT}.
+     *
+     * @param spec The bets.
+     * @return The spread.
+     * @throws IllegalArgumentException If a bet is not a positive integer.
+     */
+    public static BetSpread parse(String spec) {
+        String[] parts = spec.split(",");
+        int[] bets = new int[parts.length];
+        for (int i = 0; i < parts.length; i++) {
+            try {
+                bets[i] = Integer.parseInt(parts[i].trim());
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid bet spread: " + spec);
+            }
+        }
+        return new BetSpread(DEFAULT_FIRST_COUNT, bets);
+    }
+
+    /**
+     * Gets the bet for a true count.
+     *
+     * @param trueCount The true count.
+     * @return The bet in units.
+     */
+    public int betFor(double trueCount) {
+        double step = Math.floor(trueCount) - firstCount;
+        if (step <= 0) {
+            return bets[0];
+        }
+        return step >= bets.length - 1 ? bets[bets.length - 1] : bets[(int) step];
+    }
+
+    /**
+     * Returns the bets joined by commas, starting at the first count.
+     *
+     * @return The spread as a string.
+     */
+    @Override
+    public String toString() {
+        StringBuilder result = new StringBuilder();
+        for (int bet : bets) {
+            result.append(result.length() == 0 ? "" : ",").append(bet);
+        }
+        return result.append(" from true count ").append(firstCount).toString();
+    }
+
+}
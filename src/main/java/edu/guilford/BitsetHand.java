@@ -0,0 +1,241 @@
+package edu.guilford;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * A hand for single-deck games that stores its cards as a 64-bit mask over
+ * the card codes, together with counts of the cards of each rank and suit.
+ * Adding a card and looking one up are single bit operations, and the cards
+ * matching a rank or a suit are found with one mask AND. The order in which
+ * the cards were added is kept in a small byte array, so getCard(i), size()
+ * and iteration behave exactly as in Hand.
+ * <p>
+ * Removing a card clears its bit in constant time, but also closes the gap
+ * it leaves in the order, which takes time linear in the size of the hand.
+ * This is deliberate: swapping the last card into the gap would make removal
+ * constant-time, but would change the order the games see the cards in and
+ * so the games themselves. A hand holds at most 52 cards, so the shift moves
+ * at most 51 bytes.
+ * <p>
+ * Since a card is either in the mask or not, a bitset hand cannot hold two
+ * copies of the same card; it is meant for games dealt from one deck.
+ *
+ * @author Miguel A. Nunez Palomares
+ * @version 1.0
+ * @see Hand, Card
+ */
+public class BitsetHand extends Hand {
+
+    /**
+     * The mask of the cards of each suit: 13 consecutive bits.
+     */
+    private static final long[] SUIT_MASKS = new long[4];
+
+    /**
+     * The mask of the cards of each rank: one bit in every suit.
+     */
+    private static final long[] RANK_MASKS = new long[Card.RANK_COUNT];
+
+    static {
+        for (int code = 0; code < Card.CARD_COUNT; code++) {
+            SUIT_MASKS[Card.suitOf(code)] |= 1L << code;
+            RANK_MASKS[Card.rankOf(code)] |= 1L << code;
+        }
+    }
+
+    /**
+     * The cards in the hand, one bit per card code.
+     */
+    private long mask;
+    /**
+     * The codes of the cards in the order they were added.
+     */
+    private final byte[] order = new byte[Card.CARD_COUNT];
+    /**
+     * The number of cards in the hand.
+     */
+    private int size;
+    /**
+     * The number of cards of each rank and of each suit.
+     */
+    private final int[] rankCounts = new int[Card.RANK_COUNT];
+    private final int[] suitCounts = new int[4];
+
+    /**
+     * Constructs an empty hand.
+     */
+    public BitsetHand() {
+        super((ArrayList<Card>) null);
+    }
+
+    /**
+     * Gets the mask of all cards of a rank.
+     *
+     * @param rank The rank ordinal, 0 (Ace) to 12 (King).
+     * @return The mask of the four cards of that rank.
+     */
+    public static long rankMask(int rank) {
+        return RANK_MASKS[rank];
+    }
+
+    /**
+     * Gets the mask of all cards of a suit.
+     *
+     * @param suit The suit ordinal, 0 (Clubs) to 3 (Spades).
+     * @return The mask of the thirteen cards of that suit.
+     */
+    public static long suitMask(int suit) {
+        return SUIT_MASKS[suit];
+    }
+
+    /**
+     * Adds a card to the hand.
+     *
+     * @param card The card to be added.
+     * @throws IllegalArgumentException If the hand already holds the card.
+     */
+    @Override
+    public void addCard(Card card) {
+        int code = card.getCode();
+        long bit = 1L << code;
+        if ((mask & bit) != 0) {
+            throw new IllegalArgumentException("Card already in hand: " + card);
+        }
+        mask |= bit;
+        order[size++] = (byte) code;
+        rankCounts[Card.rankOf(code)]++;
+        suitCounts[Card.suitOf(code)]++;
+        count(card, 1);
+    }
+
+    /**
+     * Removes a card from the hand, if it holds it. The cards after it move
+     * down one place, keeping the order they were added in, so this takes
+     * time linear in the size of the hand.
+     *
+     * @param card The card to be removed.
+     */
+    @Override
+    public void removeCard(Card card) {
+        int code = card.getCode();
+        long bit = 1L << code;
+        if ((mask & bit) == 0) {
+            return;
+        }
+        mask &= ~bit;
+        int i = 0;
+        while (order[i] != code) {
+            i++;
+        }
+        System.arraycopy(order, i + 1, order, i, size - i - 1);
+        size--;
+        rankCounts[Card.rankOf(code)]--;
+        suitCounts[Card.suitOf(code)]--;
+        count(card, -1);
+    }
+
+    /**
+     * Resets the hand by removing all cards.
+     */
+    @Override
+    public void reset() {
+        mask = 0;
+        size = 0;
+        Arrays.fill(rankCounts, 0);
+        Arrays.fill(suitCounts, 0);
+        clearCounts();
+    }
+
+    /**
+     * Checks whether the hand holds a card.
+     *
+     * @param card The card to look for.
+     * @return True if the hand holds the card.
+     */
+    @Override
+    public boolean contains(Card card) {
+        return (mask & (1L << card.getCode())) != 0;
+    }
+
+    /**
+     * Returns the number of cards in the hand.
+     *
+     * @return The size of the hand.
+     */
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Retrieves a card at a specific index in the hand, in the order the
+     * cards were added.
+     *
+     * @param index The index of the card.
+     * @return The card at the specified index.
+     * @throws IndexOutOfBoundsException If the index is invalid.
+     */
+    @Override
+    public Card getCard(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Invalid index: " + index);
+        }
+        return Card.fromCode(order[index]);
+    }
+
+    /**
+     * Returns a copy of the current hand.
+     *
+     * @return A new ArrayList containing the cards in the hand.
+     */
+    @Override
+    public ArrayList<Card> getHand() {
+        ArrayList<Card> copy = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            copy.add(Card.fromCode(order[i]));
+        }
+        return copy;
+    }
+
+    /**
+     * Gets the mask of the cards in the hand.
+     *
+     * @return The mask, with bit c set if the card with code c is held.
+     */
+    public long getMask() {
+        return mask;
+    }
+
+    /**
+     * Gets the mask of the cards in the hand that share a rank or a suit with
+     * the card of the given code.
+     *
+     * @param code The card code to match.
+     * @return The mask of the matching cards.
+     */
+    public long matching(int code) {
+        return mask & (RANK_MASKS[Card.rankOf(code)] | SUIT_MASKS[Card.suitOf(code)]);
+    }
+
+    /**
+     * Gets the number of cards of a rank in the hand.
+     *
+     * @param rank The rank ordinal, 0 (Ace) to 12 (King).
+     * @return The number of cards of that rank.
+     */
+    public int rankCount(int rank) {
+        return rankCounts[rank];
+    }
+
+    /**
+     * Gets the number of cards of a suit in the hand.
+     *
+     * @param suit The suit ordinal, 0 (Clubs) to 3 (Spades).
+     * @return The number of cards of that suit.
+     */
+    public int suitCount(int suit) {
+        return suitCounts[suit];
+    }
+
+}
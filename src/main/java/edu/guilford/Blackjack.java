@@ -3,34 +3,146 @@ package edu.guilford;
 /**
  * The Blackjack class represents a simple game of Blackjack. It manages the
  * game state,
- * including the player's and dealer's hands and the deck of cards.
+ * including the player's and dealer's hands and the shoe of cards.
+ * <p>
+ * The game is played under a set of {@link BlackjackRules}. Under the
+ * classic rules, the default, the player can only hit or stand and a
+ * natural pays even money; other rules add doubling, splitting, late
+ * surrender, insurance and a 3:2 natural. The player's hands are kept in a
+ * {@link PlayerSeat} whose hands are reused from round to round, and every
+ * round's result is measured in units wagered. The dealer always completes
+ * the hand, as the game always has, so the dealer's draws do not depend on
+ * whether the player busted or surrendered.
  * 
  * @author Miguel A. Nunez Palomares
  * @version 1.0
  */
 public class Blackjack {
     /**
-     * The player's hand in the game.
+     * The possible results of a single round of Blackjack.
      */
-    private Hand playerHand;
+    public enum Outcome {
+        PLAYER_WIN, DEALER_WIN, PUSH
+    }
+
+    /**
+     * The default penetration of a single-deck game. The cut card comes out
+     * after 43 cards, which matches the old rule of replacing the deck once
+     * fewer than 10 cards remained after a round.
+     */
+    public static final double DEFAULT_PENETRATION = 43.0 / Card.CARD_COUNT;
+
+    /**
+     * The total on which the dealer stands unless configured otherwise.
+     */
+    public static final int DEFAULT_DEALER_STANDS_ON = 17;
+
+    /**
+     * The exact dealer outcome tables for the default dealer, shared by every
+     * game.
+     */
+    private static final DealerProbabilities DEALER_ODDS = new DealerProbabilities(DEFAULT_DEALER_STANDS_ON);
+
+    /**
+     * The seats of the dealer and the player in recorded events.
+     */
+    public static final int DEALER_SEAT = 0;
+    public static final int PLAYER_SEAT = 1;
+    /**
+     * The room the dealer's hand has before it must grow.
+     */
+    private static final int DEALER_CAPACITY = 12;
+
+    /**
+     * The player's hands and bets, with room for as many hands as any rules
+     * allow.
+     */
+    private final PlayerSeat seat = new PlayerSeat(BlackjackRules.MAX_HANDS);
+    /**
+     * The player's first hand in the game, the only one unless the player
+     * splits.
+     */
+    private final Hand playerHand = seat.getHand(0);
+    /**
+     * The rules the game is played under.
+     */
+    private BlackjackRules rules = BlackjackRules.classic();
+    /**
+     * The true count at or above which the player takes insurance.
+     */
+    private double insuranceCount = Double.POSITIVE_INFINITY;
     /**
      * The dealer's hand in the game.
      */
-    private Hand dealerHand;
+    private final Hand dealerHand = new Hand(DEALER_CAPACITY);
+    /**
+     * The shoe of cards used in the game.
+     */
+    private final Shoe deck;
+    /**
+     * The total on which the dealer stands.
+     */
+    private int dealerStandsOn = DEFAULT_DEALER_STANDS_ON;
+    /**
+     * The exact dealer outcome tables matching dealerStandsOn.
+     */
+    private DealerProbabilities dealerOdds = DEALER_ODDS;
+    /**
+     * The recorder the game reports its events to, or null.
+     */
+    private GameRecorder recorder;
+    /**
+     * The bet spread the player follows, or null to bet one unit every round.
+     */
+    private BetSpread betSpread;
     /**
-     * The deck of cards used in the game.
+     * The player's bet on the current round, in units.
      */
-    private Deck deck;
+    private int bet = 1;
 
     /**
      * Constructs a new Blackjack game and initializes the deck and hands.
      */
     public Blackjack() {
-        reset(true);
+        this(RandomSource.create());
+    }
+
+    /**
+     * Constructs a new Blackjack game whose decks are shuffled with the given
+     * random source, so that a seeded source replays the same sequence of
+     * rounds.
+     * 
+     * @param rand the random source used for shuffling.
+     */
+    public Blackjack(RandomSource rand) {
+        this(1, DEFAULT_PENETRATION, rand);
+    }
+
+    /**
+     * Constructs a new Blackjack game dealt from a multi-deck shoe.
+     * 
+     * @param decks       the number of 52-card decks in the shoe.
+     * @param penetration the fraction of the shoe dealt before the cut card.
+     * @param rand        the random source used for shuffling.
+     */
+    public Blackjack(int decks, double penetration, RandomSource rand) {
+        this(new Shoe(decks, penetration, rand));
     }
 
     /**
-     * Gets the player's hand.
+     * Constructs a new Blackjack game dealt from the given shoe.
+     * 
+     * @param shoe the shoe to deal from.
+     */
+    public Blackjack(Shoe shoe) {
+        this.deck = shoe;
+        reset(false);
+    }
+
+    /**
+     * Gets the player's hand. If the player split, this is the first of the
+     * hands; {@link #getSeat()} has all of them. The same hand is cleared
+     * and reused every round, so copy its cards to keep them past the round.
      * 
      * @return the player's hand.
      */
@@ -39,7 +151,57 @@ public class Blackjack {
     }
 
     /**
-     * Gets the dealer's hand.
+     * Gets the player's seat, holding every hand the player played this
+     * round and the bet on each.
+     * 
+     * @return the player's seat.
+     */
+    public PlayerSeat getSeat() {
+        return seat;
+    }
+
+    /**
+     * Gets the rules the game is played under.
+     * 
+     * @return the rules.
+     */
+    public BlackjackRules getRules() {
+        return rules;
+    }
+
+    /**
+     * Sets the rules the game is played under, from the next round on.
+     * 
+     * @param rules the rules.
+     */
+    public void setRules(BlackjackRules rules) {
+        this.rules = rules;
+    }
+
+    /**
+     * Gets the true count at or above which the player takes insurance.
+     * 
+     * @return the insurance count.
+     */
+    public double getInsuranceCount() {
+        return insuranceCount;
+    }
+
+    /**
+     * Sets the true count at or above which the player takes insurance when
+     * the rules offer it, such as 3 for a Hi-Lo counter. By default the
+     * player never insures, as basic strategy says. The shoe needs a counting
+     * system for the count to be known.
+     * 
+     * @param insuranceCount the insurance count.
+     * @see Shoe#setCountingSystem(CountingSystem)
+     */
+    public void setInsuranceCount(double insuranceCount) {
+        this.insuranceCount = insuranceCount;
+    }
+
+    /**
+     * Gets the dealer's hand. Like the player's, it is reused every round.
      * 
      * @return the dealer's hand.
      */
@@ -56,6 +218,123 @@ public class Blackjack {
         return deck;
     }
 
+    /**
+     * Gets the shoe used in the game, with its reshuffle statistics.
+     * 
+     * @return the shoe.
+     */
+    public Shoe getShoe() {
+        return deck;
+    }
+
+    /**
+     * Gets the strategy the player follows.
+     * 
+     * @return the player's strategy.
+     */
+    public Strategy getPlayerStrategy() {
+        return seat.getStrategy();
+    }
+
+    /**
+     * Sets the strategy the player follows.
+     * 
+     * @param playerStrategy the player's strategy.
+     */
+    public void setPlayerStrategy(Strategy playerStrategy) {
+        seat.setStrategy(playerStrategy);
+    }
+
+    /**
+     * Gets the total on which the dealer stands.
+     * 
+     * @return the dealer's stand threshold.
+     */
+    public int getDealerStandsOn() {
+        return dealerStandsOn;
+    }
+
+    /**
+     * Sets the total on which the dealer stands.
+     * 
+     * @param dealerStandsOn the dealer's stand threshold.
+     */
+    public void setDealerStandsOn(int dealerStandsOn) {
+        this.dealerStandsOn = dealerStandsOn;
+        this.dealerOdds = dealerStandsOn == DEFAULT_DEALER_STANDS_ON ? DEALER_ODDS
+                : new DealerProbabilities(dealerStandsOn);
+    }
+
+    /**
+     * Gets the recorder the game reports its events to.
+     * 
+     * @return the recorder, or null if events are not recorded.
+     */
+    public GameRecorder getRecorder() {
+        return recorder;
+    }
+
+    /**
+     * Sets the recorder the game reports its events to. Each round is
+     * recorded as one game: seat 0 is the dealer and seat 1 the player.
+     * 
+     * @param recorder the recorder, or null to stop recording.
+     */
+    public void setRecorder(GameRecorder recorder) {
+        this.recorder = recorder;
+    }
+
+    /**
+     * Gets the bet spread the player follows.
+     * 
+     * @return the bet spread, or null if the player bets one unit every round.
+     */
+    public BetSpread getBetSpread() {
+        return betSpread;
+    }
+
+    /**
+     * Sets the bet spread the player follows. The bet of each round is taken
+     * from the shoe's true count after any reshuffle, so the shoe needs a
+     * counting system for the spread to have an effect.
+     * 
+     * @param betSpread the bet spread, or null to bet one unit every round.
+     * @see Shoe#setCountingSystem(CountingSystem)
+     */
+    public void setBetSpread(BetSpread betSpread) {
+        this.betSpread = betSpread;
+    }
+
+    /**
+     * Gets the player's bet on the current or last round.
+     * 
+     * @return the bet in units.
+     */
+    public int getBet() {
+        return bet;
+    }
+
+    /**
+     * Gets the player's net result of the last round played, over every
+     * hand and the insurance: for instance 1.5 for a natural paid 3:2, -2
+     * for a lost double, or -0.5 for a surrender.
+     * 
+     * @return the net result in units.
+     */
+    public double getNet() {
+        return seat.getNet();
+    }
+
+    /**
+     * Gets the total the player wagered on the last round played, counting
+     * doubles, splits and insurance.
+     * 
+     * @return the amount wagered in units.
+     */
+    public double getWagered() {
+        return seat.getWagered();
+    }
+
     // public void reset(boolean newDeck) {
     // if (newDeck) {
     // deck = new Deck();
@@ -64,18 +343,18 @@ public class Blackjack {
     // }
 
     /**
-     * Resets the game by clearing the hands and optionally creating a new shuffled
-     * deck.
+     * Resets the game by clearing the hands and optionally reshuffling the
+     * whole shoe in place. The hands are cleared rather than replaced, so
+     * the game allocates nothing from round to round.
      * 
-     * @param newDeck if true, a new deck is created and shuffled.
+     * @param newDeck if true, every card is returned to the shoe and shuffled.
      */
     public void reset(boolean newDeck) {
-        if (newDeck || deck == null) {
-            deck = new Deck();
-            deck.shuffle();
+        if (newDeck) {
+            deck.reshuffle();
         }
-        playerHand = new Hand();
-        dealerHand = new Hand();
+        seat.reset(bet);
+        dealerHand.reset();
     }
 
     // public void deal() {
@@ -88,19 +367,58 @@ public class Blackjack {
     // }
 
     /**
-     * Deals two cards to both the player and dealer from the deck.
-     * If the deck has too few cards, it resets with a new shuffled deck.
+     * Deals two cards to both the player and dealer from the shoe.
+     * If the cut card has been reached, the shoe is reshuffled first, and
+     * then the player's bet is set from the bet spread, if there is one.
      */
     public void deal() {
-        if (deck == null || deck.size() < 4) { // Ensure enough cards exist
-            reset(true);
+        GameMetrics.roundDealt();
+        if (recorder != null) {
+            recorder.record(GameEvent.GAME_START, 0, GameEvent.Game.BLACKJACK.ordinal());
+        }
+        if (deck.isCutCardReached()) {
+            deck.reshuffle();
+            if (recorder != null) {
+                recorder.record(GameEvent.RESHUFFLE, 0, 0);
+            }
+        }
+        deck.startRound();
+        if (betSpread != null) {
+            bet = betSpread.betFor(deck.getTrueCount());
+        }
+        seat.reset(bet);
+        dealerHand.reset();
+        draw(playerHand, GameEvent.DEAL, PLAYER_SEAT);
+        draw(dealerHand, GameEvent.DEAL, DEALER_SEAT);
+        draw(playerHand, GameEvent.DEAL, PLAYER_SEAT);
+        draw(dealerHand, GameEvent.DEAL, DEALER_SEAT);
+    }
+
+    /**
+     * Deals one card from the shoe into a hand and reports it.
+     * 
+     * @param hand  the hand receiving the card.
+     * @param event DEAL or HIT.
+     * @param seat  the hand's seat.
+     */
+    private void draw(Hand hand, GameEvent event, int seat) {
+        Card card = deck.deal();
+        hand.addCard(card);
+        if (recorder != null) {
+            recorder.record(event, seat, card.getCode());
+        }
+    }
+
+    /**
+     * Reports that a hand has finished drawing.
+     * 
+     * @param hand the hand.
+     * @param seat the hand's seat.
+     */
+    private void stand(Hand hand, int seat) {
+        if (recorder != null && !hand.isBust()) {
+            recorder.record(GameEvent.STAND, seat, hand.getTotalValue());
         }
-        playerHand = new Hand();
-        dealerHand = new Hand();
-        playerHand.addCard(deck.deal());
-        dealerHand.addCard(deck.deal());
-        playerHand.addCard(deck.deal());
-        dealerHand.addCard(deck.deal());
     }
 
     // public boolean playerTurn() {
@@ -129,29 +447,123 @@ public class Blackjack {
      */
     private boolean takeTurn(Hand hand, int threshold) {
         while (hand.getTotalValue() < threshold) {
-            hand.addCard(deck.deal());
+            draw(hand, GameEvent.HIT, DEALER_SEAT);
         }
-        return hand.getTotalValue() <= 21;
+        stand(hand, DEALER_SEAT);
+        return !hand.isBust();
     }
 
     /**
-     * Executes the player's turn. The player will continue drawing cards until they
-     * reach a total of 16 or more.
+     * Executes the player's turn. The player draws cards for as long as the
+     * player's strategy says to hit against the dealer's upcard. By default
+     * the player continues until reaching a total of 16 or more. When the
+     * rules allow, the player also splits pairs and doubles as the strategy
+     * says, and every hand made by a split is played in turn.
      * 
-     * @return true if the player does not bust (total value ≤ 21), false otherwise.
+     * @return true if at least one of the player's hands does not bust (total value ≤ 21), false otherwise.
      */
     public boolean playerTurn() {
-        return takeTurn(playerHand, 16);
+        return seat.play(deck, rules, dealerHand.getCard(0).getValue(), recorder, PLAYER_SEAT);
     }
 
     /**
      * Executes the dealer's turn. The dealer will continue drawing cards until they
-     * reach a total of 17 or more.
+     * reach a total of 17, or the configured stand threshold, or more.
      * 
      * @return true if the dealer does not bust (total value ≤ 21), false otherwise.
      */
     public boolean dealerTurn() {
-        return takeTurn(dealerHand, 17);
+        return takeTurn(dealerHand, dealerStandsOn);
+    }
+
+    /**
+     * Plays one complete round: deals, offers insurance, checks for a natural
+     * 21, lets the player surrender, plays out the player's hands and the
+     * dealer's and settles every hand. The shoe is reshuffled at the start of
+     * the next round once the cut card has come out.
+     * <p>
+     * The outcome is the sign of the player's net result on the hands, so a
+     * round in which one split hand wins and another loses is a push; the
+     * amounts, including the insurance, are given by {@link #getNet()}.
+     * 
+     * @return the outcome of the round.
+     */
+    public Outcome playRound() {
+        deal();
+        if (GameMetrics.ENABLED) {
+            countNaturals();
+        }
+        int upValue = dealerHand.getCard(0).getValue();
+        double insurance = 0;
+        if (rules.isInsuranceOffered() && upValue == 11 && deck.getTrueCount() >= insuranceCount) {
+            insurance = bet / 2.0;
+            if (recorder != null) {
+                recorder.record(GameEvent.INSURANCE, PLAYER_SEAT, 0);
+            }
+        }
+        boolean playerNatural = playerHand.getTotalValue() == 21;
+        boolean dealerNatural = dealerHand.getTotalValue() == 21;
+        double handsNet;
+        if (playerNatural && !(dealerNatural && rules.isNaturalsPush())) {
+            handsNet = bet * rules.getNaturalPayout();
+        } else if (dealerNatural) {
+            handsNet = playerNatural ? 0 : -bet;
+        } else if (seat.surrenders(rules, upValue)) {
+            if (recorder != null) {
+                recorder.record(GameEvent.SURRENDER, PLAYER_SEAT, 0);
+            }
+            dealerTurn();
+            handsNet = -bet / 2.0;
+        } else {
+            playerTurn();
+            boolean dealerStands = dealerTurn();
+            if (!dealerStands) {
+                GameMetrics.bust();
+            }
+            handsNet = seat.settle(dealerHand, dealerStands);
+        }
+        Outcome outcome = seat.finish(handsNet, insurance, dealerNatural);
+        if (recorder != null) {
+            recorder.record(GameEvent.OUTCOME, PLAYER_SEAT, outcome.ordinal());
+        }
+        return outcome;
+    }
+
+    /**
+     * Counts the naturals among the hands just dealt.
+     */
+    private void countNaturals() {
+        if (playerHand.getTotalValue() == 21) {
+            GameMetrics.natural();
+        }
+        if (dealerHand.getTotalValue() == 21) {
+            GameMetrics.natural();
+        }
+    }
+
+    /**
+     * Computes the exact distribution of the dealer's final total as the
+     * player sees it after the deal: the upcard is known, and the hole card is
+     * any unseen card that does not give the dealer a natural 21, since a
+     * dealer natural would already have ended the round.
+     * 
+     * @return the distribution of the dealer's final total.
+     */
+    public DealerProbabilities.Distribution dealerDistribution() {
+        int[] unseen = deck.getComposition(new int[DealerProbabilities.VALUE_COUNT]);
+        unseen[DealerProbabilities.indexOf(dealerHand.getCard(1).getValue())]++;
+        return dealerOdds.distribution(dealerHand.getCard(0).getValue(), unseen, true);
+    }
+
+    /**
+     * Computes the exact expected result, in units of one bet, of the player
+     * standing on the current hand, without simulating the dealer. Call it
+     * after the deal and before the dealer's turn.
+     * 
+     * @return the expected result of standing, from -1 to 1.
+     */
+    public double standExpectation() {
+        return dealerDistribution().standExpectation(playerHand.getTotalValue());
     }
 
     // // Override toString
@@ -0,0 +1,308 @@
+package edu.guilford;
+
+/**
+ * The table rules a Blackjack game is played under: what a natural pays,
+ * and whether the player may double, split, surrender and insure.
+ * <p>
+ * The classic rules are the ones this project has always played: a natural
+ * pays even money and wins even against a dealer natural, and the player can
+ * only hit or stand. {@link #standard()} gives the rules of a typical casino
+ * shoe game instead. Rules are plain settings; a rules object shared between
+ * games must not be changed while they play.
+ *
+ * @author Miguel A. Nunez Palomares
+ * @version 1.0
+ * @see Blackjack, PlayerSeat
+ */
+public class BlackjackRules {
+
+    /**
+     * The most hands a player can split into.
+     */
+    public static final int MAX_HANDS = 8;
+
+    /**
+     * What a natural pays, per unit bet.
+     */
+    private double naturalPayout = 1.0;
+    /**
+     * Whether a player natural pushes against a dealer natural rather than
+     * winning.
+     */
+    private boolean naturalsPush;
+    /**
+     * Whether the player may double on the first two cards of a hand.
+     */
+    private boolean doubleAllowed;
+    /**
+     * Whether the player may double on a hand made by splitting.
+     */
+    private boolean doubleAfterSplit;
+    /**
+     * The most hands the player may split into; 1 forbids splitting.
+     */
+    private int maxHands = 1;
+    /**
+     * Whether a pair of Aces made by splitting Aces may be split again.
+     */
+    private boolean resplitAces;
+    /**
+     * Whether a hand made by splitting Aces may draw more than one card.
+     */
+    private boolean hitSplitAces;
+    /**
+     * Whether the player may give up half the bet on the first two cards,
+     * once the dealer has checked for a natural.
+     */
+    private boolean lateSurrender;
+    /**
+     * Whether the player may insure against a dealer natural when the dealer
+     * shows an Ace.
+     */
+    private boolean insuranceOffered;
+
+    /**
+     * Constructs the classic rules.
+     */
+    public BlackjackRules() {
+    }
+
+    /**
+     * Returns the classic rules: even money for a natural, which beats a
+     * dealer natural, and nothing but hitting and standing.
+     *
+     * @return A new set of classic rules.
+     */
+    public static BlackjackRules classic() {
+        return new BlackjackRules();
+    }
+
+    /**
+     * Returns typical casino rules: a natural pays 3:2 and pushes against a
+     * dealer natural, doubling on any two cards and after splits, splitting
+     * up to four hands, split Aces take one card each and cannot be split
+     * again, late surrender and insurance.
+     *
+     * @return A new set of standard rules.
+     */
+    public static BlackjackRules standard() {
+        BlackjackRules rules = new BlackjackRules();
+        rules.naturalPayout = 1.5;
+        rules.naturalsPush = true;
+        rules.doubleAllowed = true;
+        rules.doubleAfterSplit = true;
+        rules.maxHands = 4;
+        rules.lateSurrender = true;
+        rules.insuranceOffered = true;
+        return rules;
+    }
+
+    /**
+     * Gets what a natural pays.
+     *
+     * @return The payout per unit bet.
+     */
+    public double getNaturalPayout() {
+        return naturalPayout;
+    }
+
+    /**
+     * Sets what a natural pays, such as 1.5 for 3:2 or 1.2 for 6:5.
+     *
+     * @param naturalPayout The payout per unit bet.
+     * @throws IllegalArgumentException If the payout is not positive.
+     */
+    public void setNaturalPayout(double naturalPayout) {
+        if (!(naturalPayout > 0)) {
+            throw new IllegalArgumentException("Invalid natural payout: " + naturalPayout);
+        }
+        this.naturalPayout = naturalPayout;
+    }
+
+    /**
+     * Checks whether a player natural pushes against a dealer natural.
+     *
+     * @return True if it pushes, false if it wins.
+     */
+    public boolean isNaturalsPush() {
+        return naturalsPush;
+    }
+
+    /**
+     * Sets whether a player natural pushes against a dealer natural.
+     *
+     * @param naturalsPush True if it pushes, false if it wins.
+     */
+    public void setNaturalsPush(boolean naturalsPush) {
+        this.naturalsPush = naturalsPush;
+    }
+
+    /**
+     * Checks whether the player may double on the first two cards.
+     *
+     * @return True if doubling is allowed.
+     */
+    public boolean isDoubleAllowed() {
+        return doubleAllowed;
+    }
+
+    /**
+     * Sets whether the player may double on the first two cards.
+     *
+     * @param doubleAllowed True if doubling is allowed.
+     */
+    public void setDoubleAllowed(boolean doubleAllowed) {
+        this.doubleAllowed = doubleAllowed;
+    }
+
+    /**
+     * Checks whether the player may double on a hand made by splitting.
+     *
+     * @return True if doubling after a split is allowed.
+     */
+    public boolean isDoubleAfterSplit() {
+        return doubleAfterSplit;
+    }
+
+    /**
+     * Sets whether the player may double on a hand made by splitting.
+     *
+     * @param doubleAfterSplit True if doubling after a split is allowed.
+     */
+    public void setDoubleAfterSplit(boolean doubleAfterSplit) {
+        this.doubleAfterSplit = doubleAfterSplit;
+    }
+
+    /**
+     * Gets the most hands the player may split into.
+     *
+     * @return The hand limit; 1 if splitting is not allowed.
+     */
+    public int getMaxHands() {
+        return maxHands;
+    }
+
+    /**
+     * Sets the most hands the player may split into.
+     *
+     * @param maxHands The hand limit, from 1 (no splitting) to
+     *                 {@value #MAX_HANDS}.
+     * @throws IllegalArgumentException If the limit is out of range.
+     */
+    public void setMaxHands(int maxHands) {
+        if (maxHands < 1 || maxHands > MAX_HANDS) {
+            throw new IllegalArgumentException("Invalid hand limit: " + maxHands);
+        }
+        this.maxHands = maxHands;
+    }
+
+    /**
+     * Checks whether split Aces may be split again.
+     *
+     * @return True if Aces may be resplit.
+     */
+    public boolean isResplitAces() {
+        return resplitAces;
+    }
+
+    /**
+     * Sets whether split Aces may be split again.
+     *
+     * @param resplitAces True if Aces may be resplit.
+     */
+    public void setResplitAces(boolean resplitAces) {
+        this.resplitAces = resplitAces;
+    }
+
+    /**
+     * Checks whether a hand made by splitting Aces may draw more than one
+     * card.
+     *
+     * @return True if split Aces may be played on.
+     */
+    public boolean isHitSplitAces() {
+        return hitSplitAces;
+    }
+
+    /**
+     * Sets whether a hand made by splitting Aces may draw more than one card.
+     *
+     * @param hitSplitAces True if split Aces may be played on.
+     */
+    public void setHitSplitAces(boolean hitSplitAces) {
+        this.hitSplitAces = hitSplitAces;
+    }
+
+    /**
+     * Checks whether the player may surrender half the bet on the first two
+     * cards.
+     *
+     * @return True if late surrender is allowed.
+     */
+    public boolean isLateSurrender() {
+        return lateSurrender;
+    }
+
+    /**
+     * Sets whether the player may surrender half the bet on the first two
+     * cards.
+     *
+     * @param lateSurrender True if late surrender is allowed.
+     */
+    public void setLateSurrender(boolean lateSurrender) {
+        this.lateSurrender = lateSurrender;
+    }
+
+    /**
+     * Checks whether insurance is offered when the dealer shows an Ace.
+     *
+     * @return True if insurance is offered.
+     */
+    public boolean isInsuranceOffered() {
+        return insuranceOffered;
+    }
+
+    /**
+     * Sets whether insurance is offered when the dealer shows an Ace.
+     *
+     * @param insuranceOffered True if insurance is offered.
+     */
+    public void setInsuranceOffered(boolean insuranceOffered) {
+        this.insuranceOffered = insuranceOffered;
+    }
+
+    /**
+     * Returns a one-line summary of the rules.
+     *
+     * @return The rules as a string.
+     */
+    @Override
+    public String toString() {
+        StringBuilder result = new StringBuilder();
+        result.append(naturalPayout == 1.5 ? "3:2" : naturalPayout == 1.0 ? "1:1" : naturalPayout + ":1")
+                .append(" naturals");
+        if (naturalsPush) {
+            result.append(" (push vs dealer natural)");
+        }
+        if (doubleAllowed) {
+            result.append(doubleAfterSplit ? ", double any two incl. after split" : ", double any two");
+        }
+        if (maxHands > 1) {
+            result.append(", split to ").append(maxHands).append(" hands");
+            if (resplitAces) {
+                result.append(", resplit Aces");
+            }
+            if (hitSplitAces) {
+                result.append(", hit split Aces");
+            }
+        }
+        if (lateSurrender) {
+            result.append(", late surrender");
+        }
+        if (insuranceOffered) {
+            result.append(", insurance");
+        }
+        return result.toString();
+    }
+
+}
@@ -0,0 +1,567 @@
+package edu.guilford;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Computes the exact expected result of a Blackjack round dealt from a known
+ * composition, under the classic rules of Blackjack.playRound: a player
+ * natural wins outright, a dealer natural then wins, and otherwise the player
+ * hits or stands, the dealer draws to the stand threshold and the totals are
+ * compared. Doubling, splitting, surrender and insurance are not solved.
+ * <p>
+ * Every starting hand, meaning the player's two cards and the dealer's
+ * upcard, is solved exactly by recursing over the cards the player can draw,
+ * without replacement, and DealerProbabilities computes the dealer's play. The
+ * hole card is unknown to the player but is known not to make a dealer
+ * natural, and every draw probability is conditioned on that. Player states
+ * are memoized in one transposition cache per upcard. The cache key is the
+ * remaining composition, since for a given shoe and upcard it also fixes the
+ * player's hand. The starting hands are solved in parallel on a ForkJoinPool.
+ * <p>
+ * Each starting hand is solved twice: once playing the given Strategy, which
+ * is the same hit-or-stand decision Blackjack.playerTurn makes, and once
+ * playing the composition-dependent optimal hit-or-stand decision.
+ *
+ * @author Miguel A. Nunez Palomares
+ * @version 1.0
+ * @see DealerProbabilities, Blackjack, Strategy
+ */
+public class BlackjackSolver implements AutoCloseable {
+
+    /**
+     * The composition index of the tens.
+     */
+    private static final int TENS = DealerProbabilities.VALUE_COUNT - 1;
+
+    /**
+     * The pool that solves the starting hands.
+     */
+    private final ForkJoinPool pool;
+    /**
+     * Whether this solver created the pool and must shut it down.
+     */
+    private final boolean ownsPool;
+    /**
+     * The composition the rounds are dealt from.
+     */
+    private final int[] composition;
+    /**
+     * The total on which the dealer stands.
+     */
+    private int dealerStandsOn = Blackjack.DEFAULT_DEALER_STANDS_ON;
+
+    /**
+     * Constructs a solver for the given composition with its own pool of the
+     * given number of workers.
+     *
+     * @param composition The cards the rounds are dealt from, indexed as in
+     *                    DealerProbabilities. It is copied.
+     * @param workers     The number of worker threads.
+     * @throws IllegalArgumentException If workers is not positive or the
+     *                                  composition is malformed.
+     */
+    public BlackjackSolver(int[] composition, int workers) {
+        if (workers < 1) {
+            throw new IllegalArgumentException("Invalid worker count: " + workers);
+        }
+        this.composition = checkComposition(composition);
+        this.pool = new ForkJoinPool(workers);
+        this.ownsPool = true;
+    }
+
+    /**
+     * Constructs a solver for the given composition that runs on an existing
+     * pool.
+     *
+     * @param composition The cards the rounds are dealt from, indexed as in
+     *                    DealerProbabilities. It is copied.
+     * @param pool        The pool to run on; it is not shut down by
+     *                    {@link #close()}.
+     * @throws IllegalArgumentException If the composition is malformed.
+     */
+    public BlackjackSolver(int[] composition, ForkJoinPool pool) {
+        this.composition = checkComposition(composition);
+        this.pool = pool;
+        this.ownsPool = false;
+    }
+
+    /**
+     * Gets the composition of a shoe of full decks.
+     *
+     * @param decks The number of 52-card decks.
+     * @return The composition, indexed as in DealerProbabilities.
+     */
+    public static int[] shoeComposition(int decks) {
+        int[] counts = new int[DealerProbabilities.VALUE_COUNT];
+        for (int i = 0; i < TENS; i++) {
+            counts[i] = 4 * decks;
+        }
+        counts[TENS] = 16 * decks;
+        return counts;
+    }
+
+    /**
+     * Gets the total on which the dealer stands.
+     *
+     * @return The dealer's stand threshold.
+     */
+    public int getDealerStandsOn() {
+        return dealerStandsOn;
+    }
+
+    /**
+     * Sets the total on which the dealer stands.
+     *
+     * @param dealerStandsOn The dealer's stand threshold.
+     */
+    public void setDealerStandsOn(int dealerStandsOn) {
+        this.dealerStandsOn = dealerStandsOn;
+    }
+
+    /**
+     * Solves every starting hand, playing both the given strategy and the
+     * optimal one.
+     *
+     * @param strategy The strategy whose expectation to compute.
+     * @return The expectations of every starting hand and of the round.
+     */
+    public Solution solve(Strategy strategy) {
+        long start = System.nanoTime();
+        Solution solution = new Solution(strategy);
+        pool.invoke(new Solve(solution, new DealerProbabilities(dealerStandsOn)));
+        solution.elapsedNanos = System.nanoTime() - start;
+        return solution;
+    }
+
+    /**
+     * Shuts down the pool if this solver created it.
+     */
+    @Override
+    public void close() {
+        if (ownsPool) {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Validates and copies a composition.
+     */
+    private static int[] checkComposition(int[] composition) {
+        DealerProbabilities.pack(composition);
+        int total = 0;
+        for (int count : composition) {
+            total += count;
+        }
+        if (total < 4) {
+            throw new IllegalArgumentException("Too few cards to deal a round: " + total);
+        }
+        return composition.clone();
+    }
+
+    /**
+     * Gets the composition index of the card that would give a dealer showing
+     * the given upcard a natural, or -1 if no card would.
+     */
+    private static int naturalIndex(int upIndex) {
+        return upIndex == 0 ? TENS : (upIndex == TENS ? 0 : -1);
+    }
+
+    /**
+     * Gets the probability that the next card the player draws is at the
+     * given index, given that the hole card, which is among the unseen
+     * cards, is not at the natural index.
+     *
+     * @param counts  The unseen cards, hole card included.
+     * @param total   The number of unseen cards.
+     * @param index   The index of the card drawn.
+     * @param natural The natural index, or -1.
+     * @return The probability of the draw.
+     */
+    private static double drawProbability(int[] counts, int total, int index, int natural) {
+        if (natural < 0) {
+            return (double) counts[index] / total;
+        }
+        int naturals = counts[natural];
+        return (double) counts[index] * (total - 1 - naturals + (index == natural ? 1 : 0))
+                / ((double) (total - 1) * (total - naturals));
+    }
+
+    /**
+     * Solves the starting hands of one upcard.
+     */
+    private class Solve extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final Solution solution;
+        private final DealerProbabilities dealer;
+        private final int upIndex;
+        private final int first;
+        private final ConcurrentHashMap<Long, Double> strategyCache;
+        private final ConcurrentHashMap<Long, Double> optimalCache;
+
+        /**
+         * Creates the root task, which forks one task per starting hand.
+         */
+        Solve(Solution solution, DealerProbabilities dealer) {
+            this(solution, dealer, -1, -1, null, null);
+        }
+
+        private Solve(Solution solution, DealerProbabilities dealer, int upIndex, int first,
+                ConcurrentHashMap<Long, Double> strategyCache, ConcurrentHashMap<Long, Double> optimalCache) {
+            this.solution = solution;
+            this.dealer = dealer;
+            this.upIndex = upIndex;
+            this.first = first;
+            this.strategyCache = strategyCache;
+            this.optimalCache = optimalCache;
+        }
+
+        @Override
+        protected void compute() {
+            if (upIndex < 0) {
+                Solve[] tasks = new Solve[DealerProbabilities.VALUE_COUNT * DealerProbabilities.VALUE_COUNT];
+                int n = 0;
+                for (int up = 0; up < DealerProbabilities.VALUE_COUNT; up++) {
+                    ConcurrentHashMap<Long, Double> strategies = new ConcurrentHashMap<>();
+                    ConcurrentHashMap<Long, Double> optimal = new ConcurrentHashMap<>();
+                    for (int card = 0; card < DealerProbabilities.VALUE_COUNT; card++) {
+                        tasks[n++] = new Solve(solution, dealer, up, card, strategies, optimal);
+                    }
+                }
+                invokeAll(tasks);
+                return;
+            }
+            for (int second = first; second < DealerProbabilities.VALUE_COUNT; second++) {
+                solveHand(first, second);
+            }
+        }
+
+        /**
+         * Solves one starting hand and stores it in the solution.
+         */
+        private void solveHand(int card1, int card2) {
+            int[] counts = composition.clone();
+            int total = 0;
+            for (int count : counts) {
+                total += count;
+            }
+            // Both orders of the player's cards, with the upcard dealt between
+            double probability = dealProbability(counts, total, card1, upIndex, card2);
+            if (card1 != card2) {
+                probability += dealProbability(counts, total, card2, upIndex, card1);
+            }
+            if (probability == 0) {
+                return;
+            }
+            counts[card1]--;
+            counts[card2]--;
+            counts[upIndex]--;
+            total -= 3;
+            int hard = (card1 + 1) + (card2 + 1);
+            boolean ace = card1 == 0 || card2 == 0;
+            double strategyValue;
+            double optimalValue;
+            double standValue;
+            if (ace && hard == 11) {
+                // A player natural wins before the dealer's hand is looked at
+                strategyValue = optimalValue = standValue = 1.0;
+            } else {
+                int natural = naturalIndex(upIndex);
+                double dealerNatural = natural < 0 || total == 0 ? 0.0 : (double) counts[natural] / total;
+                double stand = stand(counts, hard, ace);
+                strategyValue = -dealerNatural + (1 - dealerNatural) * strategy(counts, total, hard, ace);
+                optimalValue = -dealerNatural + (1 - dealerNatural) * optimal(counts, total, hard, ace);
+                standValue = -dealerNatural + (1 - dealerNatural) * stand;
+            }
+            solution.store(card1, card2, upIndex, probability, strategyValue, optimalValue, standValue);
+        }
+
+        /**
+         * Gets the probability of dealing the player's first card, the
+         * upcard and the player's second card in that order.
+         */
+        private double dealProbability(int[] counts, int total, int card1, int up, int card2) {
+            double p = (double) counts[card1] / total;
+            int ups = counts[up] - (up == card1 ? 1 : 0);
+            p *= (double) ups / (total - 1);
+            int seconds = counts[card2] - (card2 == card1 ? 1 : 0) - (card2 == up ? 1 : 0);
+            return seconds <= 0 ? 0.0 : p * seconds / (total - 2);
+        }
+
+        /**
+         * Gets the expected result of standing, given no dealer natural.
+         */
+        private double stand(int[] counts, int hard, boolean ace) {
+            int value = ace && hard + 10 <= 21 ? hard + 10 : hard;
+            return dealer.distribution(upIndex == 0 ? 11 : upIndex + 1, counts, true).standExpectation(value);
+        }
+
+        /**
+         * Gets the expected result of playing the strategy from a player
+         * state, given no dealer natural.
+         */
+        private double strategy(int[] counts, int total, int hard, boolean ace) {
+            if (hard > 21) {
+                return -1.0;
+            }
+            long key = DealerProbabilities.pack(counts);
+            Double cached = strategyCache.get(key);
+            if (cached != null) {
+                return cached;
+            }
+            boolean soft = ace && hard + 10 <= 21;
+            int value = soft ? hard + 10 : hard;
+            double result;
+            if (total > 1 && solution.strategy.hits(value, soft, upIndex == 0 ? 11 : upIndex + 1)) {
+                result = 0.0;
+                int natural = naturalIndex(upIndex);
+                for (int i = 0; i < DealerProbabilities.VALUE_COUNT; i++) {
+                    if (counts[i] == 0) {
+                        continue;
+                    }
+                    double p = drawProbability(counts, total, i, natural);
+                    counts[i]--;
+                    result += p * strategy(counts, total - 1, hard + i + 1, ace || i == 0);
+                    counts[i]++;
+                }
+            } else {
+                result = stand(counts, hard, ace);
+            }
+            strategyCache.put(key, result);
+            return result;
+        }
+
+        /**
+         * Gets the expected result of playing optimally from a player state,
+         * given no dealer natural.
+         */
+        private double optimal(int[] counts, int total, int hard, boolean ace) {
+            if (hard > 21) {
+                return -1.0;
+            }
+            long key = DealerProbabilities.pack(counts);
+            Double cached = optimalCache.get(key);
+            if (cached != null) {
+                return cached;
+            }
+            double result = stand(counts, hard, ace);
+            int value = ace && hard + 10 <= 21 ? hard + 10 : hard;
+            if (total > 1 && value < 21) {
+                double hit = 0.0;
+                int natural = naturalIndex(upIndex);
+                for (int i = 0; i < DealerProbabilities.VALUE_COUNT; i++) {
+                    if (counts[i] == 0) {
+                        continue;
+                    }
+                    double p = drawProbability(counts, total, i, natural);
+                    counts[i]--;
+                    hit += p * optimal(counts, total - 1, hard + i + 1, ace || i == 0);
+                    counts[i]++;
+                }
+                result = Math.max(result, hit);
+            }
+            optimalCache.put(key, result);
+            return result;
+        }
+    }
+
+    /**
+     * The exact expectations of every starting hand and of the whole round,
+     * in units of one bet.
+     */
+    public static final class Solution {
+
+        /**
+         * The number of entries in a table: first card, second card, upcard.
+         */
+        private static final int ENTRIES = DealerProbabilities.VALUE_COUNT * DealerProbabilities.VALUE_COUNT
+                * DealerProbabilities.VALUE_COUNT;
+
+        /**
+         * The strategy that was evaluated.
+         */
+        private final Strategy strategy;
+        /**
+         * The probability of each starting hand, with the two player cards in
+         * either order.
+         */
+        private final double[] probabilities = new double[ENTRIES];
+        /**
+         * The expectation of each starting hand playing the strategy.
+         */
+        private final double[] strategyValues = new double[ENTRIES];
+        /**
+         * The expectation of each starting hand playing optimally.
+         */
+        private final double[] optimalValues = new double[ENTRIES];
+        /**
+         * The expectation of each starting hand standing at once.
+         */
+        private final double[] standValues = new double[ENTRIES];
+        /**
+         * The time the solve took, in nanoseconds.
+         */
+        private long elapsedNanos;
+
+        private Solution(Strategy strategy) {
+            this.strategy = strategy;
+        }
+
+        /**
+         * Gets the table index of a starting hand, by composition indices,
+         * with the player's cards in ascending order.
+         */
+        private static int index(int card1, int card2, int upIndex) {
+            int low = Math.min(card1, card2);
+            int high = Math.max(card1, card2);
+            return (low * DealerProbabilities.VALUE_COUNT + high) * DealerProbabilities.VALUE_COUNT + upIndex;
+        }
+
+        /**
+         * Gets the table index of a starting hand, by card values.
+         */
+        private static int valueIndex(int value1, int value2, int upValue) {
+            return index(DealerProbabilities.indexOf(value1), DealerProbabilities.indexOf(value2),
+                    DealerProbabilities.indexOf(upValue));
+        }
+
+        /**
+         * Stores the results of one starting hand; each hand is stored by a
+         * single task.
+         */
+        private void store(int card1, int card2, int upIndex, double probability, double strategyValue,
+                double optimalValue, double standValue) {
+            int i = index(card1, card2, upIndex);
+            probabilities[i] = probability;
+            strategyValues[i] = strategyValue;
+            optimalValues[i] = optimalValue;
+            standValues[i] = standValue;
+        }
+
+        /**
+         * Gets the probability of being dealt a starting hand.
+         *
+         * @param value1  The value of one player card, 2-11.
+         * @param value2  The value of the other player card, 2-11.
+         * @param upValue The value of the dealer's upcard, 2-11.
+         * @return The probability of the hand, the player's cards in either
+         *         order.
+         */
+        public double getProbability(int value1, int value2, int upValue) {
+            return probabilities[valueIndex(value1, value2, upValue)];
+        }
+
+        /**
+         * Gets the expectation of a starting hand playing the strategy.
+         *
+         * @param value1  The value of one player card, 2-11.
+         * @param value2  The value of the other player card, 2-11.
+         * @param upValue The value of the dealer's upcard, 2-11.
+         * @return The expected result of the hand.
+         */
+        public double getStrategyExpectation(int value1, int value2, int upValue) {
+            return strategyValues[valueIndex(value1, value2, upValue)];
+        }
+
+        /**
+         * Gets the expectation of a starting hand playing optimally.
+         *
+         * @param value1  The value of one player card, 2-11.
+         * @param value2  The value of the other player card, 2-11.
+         * @param upValue The value of the dealer's upcard, 2-11.
+         * @return The expected result of the hand.
+         */
+        public double getOptimalExpectation(int value1, int value2, int upValue) {
+            return optimalValues[valueIndex(value1, value2, upValue)];
+        }
+
+        /**
+         * Gets the expectation of a starting hand standing at once.
+         *
+         * @param value1  The value of one player card, 2-11.
+         * @param value2  The value of the other player card, 2-11.
+         * @param upValue The value of the dealer's upcard, 2-11.
+         * @return The expected result of the hand.
+         */
+        public double getStandExpectation(int value1, int value2, int upValue) {
+            return standValues[valueIndex(value1, value2, upValue)];
+        }
+
+        /**
+         * Gets the expected result of a round playing the strategy.
+         *
+         * @return The expectation per round.
+         */
+        public double getStrategyExpectation() {
+            return weighted(strategyValues);
+        }
+
+        /**
+         * Gets the expected result of a round playing optimally.
+         *
+         * @return The expectation per round.
+         */
+        public double getOptimalExpectation() {
+            return weighted(optimalValues);
+        }
+
+        /**
+         * Gets the time the solve took.
+         *
+         * @return The elapsed time in nanoseconds.
+         */
+        public long getElapsedNanos() {
+            return elapsedNanos;
+        }
+
+        /**
+         * Weighs a table of expectations by the starting hand probabilities.
+         */
+        private double weighted(double[] values) {
+            double expectation = 0.0;
+            for (int i = 0; i < ENTRIES; i++) {
+                expectation += probabilities[i] * values[i];
+            }
+            return expectation;
+        }
+
+        /**
+         * Returns the optimal expectation of every starting hand against every
+         * upcard, followed by the expectations of a round.
+         *
+         * @return A formatted table.
+         */
+        @Override
+        public String toString() {
+            StringBuilder result = new StringBuilder("Hand ");
+            for (int up = 2; up <= 11; up++) {
+                result.append(String.format("%7s", up == 11 ? "A" : Integer.toString(up)));
+            }
+            result.append('\n');
+            for (int card1 = 0; card1 < DealerProbabilities.VALUE_COUNT; card1++) {
+                for (int card2 = card1; card2 < DealerProbabilities.VALUE_COUNT; card2++) {
+                    result.append(String.format("%-5s", label(card1) + "," + label(card2)));
+                    for (int up = 1; up <= DealerProbabilities.VALUE_COUNT; up++) {
+                        result.append(String.format("%+7.3f",
+                                optimalValues[index(card1, card2, up % DealerProbabilities.VALUE_COUNT)]));
+                    }
+                    result.append('\n');
+                }
+            }
+            result.append(String.format("%s: %+.5f per round%n", strategy, getStrategyExpectation()));
+            result.append(String.format("Optimal hit/stand: %+.5f per round%n", getOptimalExpectation()));
+            result.append(String.format("Solved in %.2f s%n", elapsedNanos / 1e9));
+            return result.toString();
+        }
+
+        /**
+         * Labels a composition index: A, 2-9 or T.
+         */
+        private static String label(int index) {
+            return index == 0 ? "A" : index == TENS ? "T" : Integer.toString(index + 1);
+        }
+    }
+
+}
@@ -0,0 +1,415 @@
+package edu.guilford;
+
+/**
+ * A Blackjack table where several players, each in a seat with its own
+ * strategy, play against one dealer from one shoe. The cards are dealt in
+ * casino order: one card to each seat from left to right, the dealer's
+ * upcard, a second card to each seat and the dealer's hole card. The seats
+ * then play in the same order, the dealer plays once for the whole table,
+ * and every seat is settled against the dealer's hand.
+ * <p>
+ * Every seat bets by the same bet spread, since the players share the count,
+ * and is played under the same rules. As in Blackjack, the dealer completes
+ * the hand unless every seat was settled by a natural, even when every hand
+ * busted or surrendered. The seats' hands and the dealer's hand are allocated
+ * once and cleared every round, so a round allocates nothing however many
+ * seats there are. A table with one seat plays exactly the same rounds as a
+ * Blackjack game dealt from the same shoe, and reports the same events to
+ * its recorder, with the seats as recorder seats 1 to 7 and the dealer as 0.
+ *
+ * @author Miguel A. Nunez Palomares
+ * @version 1.0
+ * @see Blackjack, PlayerSeat
+ */
+public class BlackjackTable {
+
+    /**
+     * The most seats a table has.
+     */
+    public static final int MAX_SEATS = 7;
+    /**
+     * The cards a round is expected to need per hand at the table, counting
+     * the dealer's. A round at two or more seats uses fewer cards than this
+     * in about 99 rounds out of 100.
+     */
+    public static final int ROUND_CARDS_PER_HAND = 4;
+    /**
+     * The room the dealer's hand has before it must grow.
+     */
+    private static final int DEALER_CAPACITY = 12;
+
+    /**
+     * The seats, from left to right as the dealer sees them.
+     */
+    private final PlayerSeat[] seats;
+    /**
+     * Whether each seat is still in play once the naturals and surrenders
+     * are settled.
+     */
+    private final boolean[] playing;
+    /**
+     * The dealer's hand.
+     */
+    private final Hand dealerHand = new Hand(DEALER_CAPACITY);
+    /**
+     * The shoe every seat is dealt from.
+     */
+    private final Shoe shoe;
+    /**
+     * The rules the table plays under.
+     */
+    private BlackjackRules rules = BlackjackRules.classic();
+    /**
+     * The total on which the dealer stands.
+     */
+    private int dealerStandsOn = Blackjack.DEFAULT_DEALER_STANDS_ON;
+    /**
+     * The bet spread every seat follows, or null to bet one unit every round.
+     */
+    private BetSpread betSpread;
+    /**
+     * The true count at or above which the players take insurance.
+     */
+    private double insuranceCount = Double.POSITIVE_INFINITY;
+    /**
+     * The recorder the table reports its events to, or null.
+     */
+    private GameRecorder recorder;
+
+    /**
+     * Constructs a table dealt from a multi-deck shoe.
+     *
+     * @param seatCount   The number of seats, from 1 to {@value #MAX_SEATS}.
+     * @param decks       The number of 52-card decks in the shoe.
+     * @param penetration The fraction of the shoe dealt before the cut card.
+     * @param rand        The random source used for shuffling.
+     * @throws IllegalArgumentException If the number of seats is out of range.
+     */
+    public BlackjackTable(int seatCount, int decks, double penetration, RandomSource rand) {
+        this(seatCount, new Shoe(decks, penetration, rand));
+    }
+
+    /**
+     * Constructs a table dealt from the given shoe.
+     *
+     * @param seatCount The number of seats, from 1 to {@value #MAX_SEATS}.
+     * @param shoe      The shoe to deal from.
+     * @throws IllegalArgumentException If the number of seats is out of range.
+     */
+    public BlackjackTable(int seatCount, Shoe shoe) {
+        if (seatCount < 1 || seatCount > MAX_SEATS) {
+            throw new IllegalArgumentException("Invalid number of seats: " + seatCount);
+        }
+        this.shoe = shoe;
+        this.seats = new PlayerSeat[seatCount];
+        this.playing = new boolean[seatCount];
+        for (int i = 0; i < seatCount; i++) {
+            seats[i] = new PlayerSeat(BlackjackRules.MAX_HANDS);
+        }
+    }
+
+    /**
+     * Gets the number of cards a round at a table is expected to need, so
+     * that a shoe can be checked to leave room for one after its cut card.
+     *
+     * @param seatCount The number of seats.
+     * @return The cards a round is expected to need.
+     */
+    public static int roundCards(int seatCount) {
+        return (seatCount + 1) * ROUND_CARDS_PER_HAND;
+    }
+
+    /**
+     * Gets the number of seats at the table.
+     *
+     * @return The seat count.
+     */
+    public int getSeatCount() {
+        return seats.length;
+    }
+
+    /**
+     * Gets a seat, with its strategy, its hands and its last result.
+     *
+     * @param index The seat, from 0 for the first seat dealt to.
+     * @return The seat.
+     * @throws IndexOutOfBoundsException If there is no such seat.
+     */
+    public PlayerSeat getSeat(int index) {
+        return seats[index];
+    }
+
+    /**
+     * Sets the strategy of every seat.
+     *
+     * @param strategy The strategy.
+     */
+    public void setStrategy(Strategy strategy) {
+        for (PlayerSeat seat : seats) {
+            seat.setStrategy(strategy);
+        }
+    }
+
+    /**
+     * Gets the dealer's hand.
+     *
+     * @return The dealer's hand.
+     */
+    public Hand getDealerHand() {
+        return dealerHand;
+    }
+
+    /**
+     * Gets the shoe the table is dealt from.
+     *
+     * @return The shoe.
+     */
+    public Shoe getShoe() {
+        return shoe;
+    }
+
+    /**
+     * Gets the rules the table plays under.
+     *
+     * @return The rules.
+     */
+    public BlackjackRules getRules() {
+        return rules;
+    }
+
+    /**
+     * Sets the rules the table plays under, from the next round on.
+     *
+     * @param rules The rules.
+     */
+    public void setRules(BlackjackRules rules) {
+        this.rules = rules;
+    }
+
+    /**
+     * Gets the total on which the dealer stands.
+     *
+     * @return The dealer's stand threshold.
+     */
+    public int getDealerStandsOn() {
+        return dealerStandsOn;
+    }
+
+    /**
+     * Sets the total on which the dealer stands.
+     *
+     * @param dealerStandsOn The dealer's stand threshold.
+     */
+    public void setDealerStandsOn(int dealerStandsOn) {
+        this.dealerStandsOn = dealerStandsOn;
+    }
+
+    /**
+     * Gets the bet spread every seat follows.
+     *
+     * @return The bet spread, or null if every seat bets one unit.
+     */
+    public BetSpread getBetSpread() {
+        return betSpread;
+    }
+
+    /**
+     * Sets the bet spread every seat follows. The shoe needs a counting
+     * system for the spread to follow the count.
+     *
+     * @param betSpread The bet spread, or null to bet one unit every round.
+     */
+    public void setBetSpread(BetSpread betSpread) {
+        this.betSpread = betSpread;
+    }
+
+    /**
+     * Sets the true count at or above which the players take insurance when
+     * the rules offer it.
+     *
+     * @param insuranceCount The insurance count.
+     * @see Blackjack#setInsuranceCount(double)
+     */
+    public void setInsuranceCount(double insuranceCount) {
+        this.insuranceCount = insuranceCount;
+    }
+
+    /**
+     * Gets the recorder the table reports its events to.
+     *
+     * @return The recorder, or null if events are not recorded.
+     */
+    public GameRecorder getRecorder() {
+        return recorder;
+    }
+
+    /**
+     * Sets the recorder the table reports its events to. Every round is
+     * reported as one game, with the seats as recorder seats 1 to 7.
+     *
+     * @param recorder The recorder, or null to stop recording.
+     */
+    public void setRecorder(GameRecorder recorder) {
+        this.recorder = recorder;
+    }
+
+    /**
+     * Deals a round in casino order, reshuffling first if the cut card has
+     * come out and setting the bets from the bet spread.
+     */
+    public void deal() {
+        if (recorder != null) {
+            recorder.record(GameEvent.GAME_START, 0, GameEvent.Game.BLACKJACK.ordinal());
+        }
+        if (shoe.isCutCardReached()) {
+            shoe.reshuffle();
+            if (recorder != null) {
+                recorder.record(GameEvent.RESHUFFLE, 0, 0);
+            }
+        }
+        shoe.startRound();
+        int bet = betSpread == null ? 1 : betSpread.betFor(shoe.getTrueCount());
+        for (PlayerSeat seat : seats) {
+            GameMetrics.roundDealt();
+            seat.reset(bet);
+        }
+        dealerHand.reset();
+        for (int i = 0; i < seats.length; i++) {
+            draw(seats[i].getHand(0), GameEvent.DEAL, i + 1);
+        }
+        draw(dealerHand, GameEvent.DEAL, Blackjack.DEALER_SEAT);
+        for (int i = 0; i < seats.length; i++) {
+            draw(seats[i].getHand(0), GameEvent.DEAL, i + 1);
+        }
+        draw(dealerHand, GameEvent.DEAL, Blackjack.DEALER_SEAT);
+    }
+
+    /**
+     * Deals one card from the shoe into a hand and reports it.
+     */
+    private void draw(Hand hand, GameEvent event, int recorderSeat) {
+        Card card = shoe.deal();
+        hand.addCard(card);
+        if (recorder != null) {
+            recorder.record(event, recorderSeat, card.getCode());
+        }
+    }
+
+    /**
+     * Plays one complete round at the table: deals, offers insurance, settles
+     * the naturals, lets each seat surrender or play its hands, plays the
+     * dealer's hand once and settles every seat. Each seat's outcome, net
+     * result and amount wagered are then available from its PlayerSeat.
+     */
+    public void playRound() {
+        deal();
+        int upValue = dealerHand.getCard(0).getValue();
+        boolean dealerNatural = dealerHand.getTotalValue() == 21;
+        if (GameMetrics.ENABLED) {
+            countNaturals(dealerNatural);
+        }
+        double insurance = rules.isInsuranceOffered() && upValue == 11 && shoe.getTrueCount() >= insuranceCount
+                ? seats[0].getBet(0) / 2.0
+                : 0;
+        if (insurance > 0 && recorder != null) {
+            for (int i = 0; i < seats.length; i++) {
+                recorder.record(GameEvent.INSURANCE, i + 1, 0);
+            }
+        }
+
+        boolean anyPlaying = false;
+        boolean dealerPlays = false;
+        for (int i = 0; i < seats.length; i++) {
+            PlayerSeat seat = seats[i];
+            int bet = seat.getBet(0);
+            boolean playerNatural = seat.getHand(0).getTotalValue() == 21;
+            playing[i] = false;
+            if (playerNatural && !(dealerNatural && rules.isNaturalsPush())) {
+                seat.finish(bet * rules.getNaturalPayout(), insurance, dealerNatural);
+            } else if (dealerNatural) {
+                seat.finish(playerNatural ? 0 : -bet, insurance, dealerNatural);
+            } else if (seat.surrenders(rules, upValue)) {
+                if (recorder != null) {
+                    recorder.record(GameEvent.SURRENDER, i + 1, 0);
+                }
+                seat.finish(-bet / 2.0, insurance, dealerNatural);
+                dealerPlays = true;
+            } else {
+                seat.play(shoe, rules, upValue, recorder, i + 1);
+                playing[i] = true;
+                anyPlaying = true;
+                dealerPlays = true;
+            }
+        }
+        if (dealerPlays) {
+            boolean dealerStands = dealerTurn();
+            if (anyPlaying && !dealerStands) {
+                GameMetrics.bust();
+            }
+            for (int i = 0; i < seats.length; i++) {
+                if (playing[i]) {
+                    seats[i].finish(seats[i].settle(dealerHand, dealerStands), insurance, false);
+                }
+            }
+        }
+        if (recorder != null) {
+            for (int i = 0; i < seats.length; i++) {
+                recorder.record(GameEvent.OUTCOME, i + 1, seats[i].getOutcome().ordinal());
+            }
+        }
+    }
+
+    /**
+     * Plays the dealer's hand once for the whole table.
+     *
+     * @return True if the dealer does not bust.
+     */
+    private boolean dealerTurn() {
+        while (dealerHand.getTotalValue() < dealerStandsOn) {
+            draw(dealerHand, GameEvent.HIT, Blackjack.DEALER_SEAT);
+        }
+        if (recorder != null && !dealerHand.isBust()) {
+            recorder.record(GameEvent.STAND, Blackjack.DEALER_SEAT, dealerHand.getTotalValue());
+        }
+        return !dealerHand.isBust();
+    }
+
+    /**
+     * Counts the naturals among the hands just dealt.
+     */
+    private void countNaturals(boolean dealerNatural) {
+        for (PlayerSeat seat : seats) {
+            if (seat.getHand(0).getTotalValue() == 21) {
+                GameMetrics.natural();
+            }
+        }
+        if (dealerNatural) {
+            GameMetrics.natural();
+        }
+    }
+
+    /**
+     * Returns every seat's hands and the dealer's hand.
+     *
+     * @return The table as a string.
+     */
+    @Override
+    public String toString() {
+        StringBuilder result = new StringBuilder();
+        for (int i = 0; i < seats.length; i++) {
+            PlayerSeat seat = seats[i];
+            for (int h = 0; h < seat.getHandCount(); h++) {
+                Hand hand = seat.getHand(h);
+                result.append("Seat ").append(i + 1);
+                if (seat.isSplit()) {
+                    result.append(" hand ").append(h + 1);
+                }
+                result.append(": ").append(hand.getTotalValue()).append(" (bet ").append(seat.getBet(h))
+                        .append(")\n").append(hand);
+            }
+        }
+        result.append("Dealer: ").append(dealerHand.getTotalValue()).append('\n').append(dealerHand);
+        return result.toString();
+    }
+
+}
@@ -1,15 +1,20 @@
 package edu.guilford;
 
-import java.util.Random;
-
 /**
  * Represents a playing card with a suit and rank.
  * Provides functionality for comparison, value retrieval, and string
  * representation.
+ * <p>
+ * Every one of the 52 cards also has a compact int code, {@code suit * 13 +
+ * rank}, and a canonical instance that the factory methods {@link #of},
+ * {@link #fromCode} and {@link #random} return. Code that only uses the
+ * factories never allocates a card and may compare cards with {@code ==}.
+ * The static {@link #valueOf}, {@link #rankOf} and {@link #suitOf} lookups let
+ * hot loops work on codes without touching the card objects at all.
  * 
  * @author Miguel A. Nunez Palomares
  * @version 1.0
- * @see java.util.Random
+ * @see RandomSource
  */
 
 public class Card implements Comparable<Card> {
@@ -28,6 +33,45 @@ public class Card implements Comparable<Card> {
         KING
     }
 
+    /**
+     * The number of ranks in a suit.
+     */
+    public static final int RANK_COUNT = 13;
+
+    /**
+     * The number of distinct cards, and of card codes.
+     */
+    public static final int CARD_COUNT = 52;
+
+    /**
+     * Cached copies of the enum values, since values() clones its array.
+     */
+    private static final Suit[] SUITS = Suit.values();
+    private static final Rank[] RANKS = Rank.values();
+
+    /**
+     * Precomputed Blackjack value, rank ordinal and suit ordinal of every card
+     * code.
+     */
+    private static final int[] VALUE_BY_CODE = new int[CARD_COUNT];
+    private static final int[] RANK_BY_CODE = new int[CARD_COUNT];
+    private static final int[] SUIT_BY_CODE = new int[CARD_COUNT];
+
+    /**
+     * The canonical instance of every card, indexed by card code.
+     */
+    private static final Card[] CARDS = new Card[CARD_COUNT];
+
+    static {
+        for (int code = 0; code < CARD_COUNT; code++) {
+            Card card = new Card(SUITS[code / RANK_COUNT], RANKS[code % RANK_COUNT]);
+            CARDS[code] = card;
+            VALUE_BY_CODE[code] = card.value();
+            RANK_BY_CODE[code] = code % RANK_COUNT;
+            SUIT_BY_CODE[code] = code / RANK_COUNT;
+        }
+    }
+
     // instance variables
     // private Suit suit;
     // private Rank rank;
@@ -43,12 +87,20 @@ public class Card implements Comparable<Card> {
     private final Rank rank;
 
     /**
-     * Random number generator for creating random cards.
+     * The compact code of the card, suit * 13 + rank.
      */
-    private static final Random rand = new Random();
+    private final int code;
 
     /**
-     * Constructs a Card with the specified suit and rank.
+     * Random source for creating random cards; shared between threads without
+     * contention.
+     */
+    private static final RandomSource rand = RandomSource.threadLocal();
+
+    /**
+     * Constructs a Card with the specified suit and rank. Prefer
+     * {@link #of(Suit, Rank)}, which returns the canonical instance instead of
+     * allocating a new one.
      * 
      * @param suit The suit of the card.
      * @param rank The rank of the card.
@@ -56,6 +108,7 @@ public class Card implements Comparable<Card> {
     public Card(Suit suit, Rank rank) {
         this.suit = suit;
         this.rank = rank;
+        this.code = suit.ordinal() * RANK_COUNT + rank.ordinal();
     }
 
     // public Card() {
@@ -68,11 +121,83 @@ public class Card implements Comparable<Card> {
     // }
 
     /**
-     * Constructs a Card with a randomly assigned suit and rank.
+     * Constructs a Card with a randomly assigned suit and rank. Prefer
+     * {@link #random(RandomSource)}, which returns the canonical instance instead of
+     * allocating a new one.
      */
     public Card() {
-        this.suit = Suit.values()[rand.nextInt(Suit.values().length)];
-        this.rank = Rank.values()[rand.nextInt(Rank.values().length)];
+        this(SUITS[rand.nextInt(SUITS.length)], RANKS[rand.nextInt(RANKS.length)]);
+    }
+
+    /**
+     * Returns the canonical card of the specified suit and rank.
+     * 
+     * @param suit The suit of the card.
+     * @param rank The rank of the card.
+     * @return The canonical card.
+     */
+    public static Card of(Suit suit, Rank rank) {
+        return CARDS[suit.ordinal() * RANK_COUNT + rank.ordinal()];
+    }
+
+    /**
+     * Returns the canonical card with the specified code.
+     * 
+     * @param code The card code, suit * 13 + rank.
+     * @return The canonical card.
+     * @throws ArrayIndexOutOfBoundsException If the code is not in 0-51.
+     */
+    public static Card fromCode(int code) {
+        return CARDS[code];
+    }
+
+    /**
+     * Returns a uniformly chosen canonical card.
+     * 
+     * @param rand The random source to draw from.
+     * @return The canonical card.
+     */
+    public static Card random(RandomSource rand) {
+        return CARDS[rand.nextInt(CARD_COUNT)];
+    }
+
+    /**
+     * Gets the Blackjack value of the card with the specified code.
+     * 
+     * @param code The card code.
+     * @return The value, 2-10, or 11 for an Ace.
+     */
+    public static int valueOf(int code) {
+        return VALUE_BY_CODE[code];
+    }
+
+    /**
+     * Gets the rank ordinal of the card with the specified code.
+     * 
+     * @param code The card code.
+     * @return The rank ordinal, 0 (Ace) to 12 (King).
+     */
+    public static int rankOf(int code) {
+        return RANK_BY_CODE[code];
+    }
+
+    /**
+     * Gets the suit ordinal of the card with the specified code.
+     * 
+     * @param code The card code.
+     * @return The suit ordinal, 0 (Clubs) to 3 (Spades).
+     */
+    public static int suitOf(int code) {
+        return SUIT_BY_CODE[code];
+    }
+
+    /**
+     * Gets the compact code of the card.
+     * 
+     * @return The card code, suit * 13 + rank.
+     */
+    public int getCode() {
+        return code;
     }
 
     /**
@@ -138,6 +263,29 @@ public class Card implements Comparable<Card> {
         return (rankComparison != 0) ? rankComparison : Integer.compare(this.suit.ordinal(), otherCard.suit.ordinal());
     }
 
+    /**
+     * Checks whether another object is a card of the same suit and rank. The
+     * canonical cards are also equal by identity; this keeps cards built with
+     * the constructors consistent with them.
+     * 
+     * @param other The object to compare to.
+     * @return True if other is a card with the same code.
+     */
+    @Override
+    public boolean equals(Object other) {
+        return this == other || (other instanceof Card && ((Card) other).code == code);
+    }
+
+    /**
+     * Returns a hash code consistent with {@link #equals(Object)}.
+     * 
+     * @return The card code.
+     */
+    @Override
+    public int hashCode() {
+        return code;
+    }
+
     /**
      * Gets the value of the card for use in games like Blackjack.
      * Number cards return their face value, face cards return 10, and Ace returns
@@ -147,6 +295,16 @@ public class Card implements Comparable<Card> {
      * @return The numeric value of the card.
      */
     public int getValue() {
+        return VALUE_BY_CODE[code];
+    }
+
+    /**
+     * Computes the Blackjack value of the card from its rank. Used once per
+     * card to fill the value table.
+     * 
+     * @return The numeric value of the card.
+     */
+    private int value() {
         switch (this.rank) {
             case TWO:
                 return 2;
@@ -1,54 +1,224 @@
 package edu.guilford;
 
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Command-line front end for the simulations. It plays Blackjack rounds,
+ * Lamarckian Poker games or both, or solves Blackjack exactly, with the
+ * options described in {@link DriverOptions#USAGE}. Before a simulation is
+ * measured it is run for a while to let the JIT compiler warm up, and the
+ * measured run is reported with its throughput, time per round or game and
+ * allocation rate next to the results.
+ * <p>
+ * When per-round records are written to standard output, the summary goes to
+ * standard error so that the two do not mix.
+ *
+ * @author Miguel A. Nunez Palomares
+ * @version 1.0
+ * @see DriverOptions, ThroughputMeter
+ */
 public class CardGameDriver {
+
+    /**
+     * The most Blackjack rounds played while aiming for a precision.
+     */
+    private static final long MAX_ROUNDS = 1_000_000_000L;
+    /**
+     * The Blackjack rounds played between checks of a time budget.
+     */
+    private static final long TIMED_BATCH_ROUNDS = 100_000;
+    /**
+     * The Lamarckian games played between checks of a time budget.
+     */
+    private static final long TIMED_BATCH_GAMES = 1_000;
+
     public static void main(String[] args) {
-        final int NGAMES = 10000;
-        int dealerWins = 0;
-        int playerWins = 0;
-        Blackjack game = new Blackjack();
-        game.deal();
-        // System.out.println(game);
-        int iGame = 0;
-        while (iGame < NGAMES) {
-            game.deal();
-            if (game.getPlayerHand().getTotalValue() == 21) {
-                playerWins++;
-            } else if (game.getDealerHand().getTotalValue() == 21) {
-                dealerWins++;
-            } else {
-                boolean playerResult = game.playerTurn();
-                boolean dealerResult = game.dealerTurn();
-                if (!playerResult) {
-                    dealerWins++;
-                } else if (!dealerResult) {
-                    playerWins++;
-                } else if (game.getPlayerHand().getTotalValue() < game.getDealerHand().getTotalValue()) {
-                    dealerWins++;
-                } else if (game.getPlayerHand().getTotalValue() > game.getDealerHand().getTotalValue()) {
-                    playerWins++;
-                }
+        DriverOptions options;
+        try {
+            options = DriverOptions.parse(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println(DriverOptions.USAGE);
+            System.exit(2);
+            return;
+        }
+        if (options.isHelp()) {
+            System.out.println(DriverOptions.USAGE);
+            return;
+        }
+        PrintStream report = options.getFormat() != null && options.getOutput() == null ? System.err : System.out;
+        try {
+            switch (options.getGame()) {
+                case BLACKJACK:
+                    runBlackjack(options, report);
+                    break;
+                case LAMARCKIAN:
+                    runLamarckian(options, report);
+                    break;
+                case SOLVER:
+                    runSolver(options, report);
+                    break;
+                default:
+                    runBlackjack(options, report);
+                    report.println();
+                    runLamarckian(options, report);
+                    break;
+            }
+        } catch (IOException | IllegalArgumentException | IllegalStateException e) {
+            // An IllegalStateException is a game that cannot go on, such as
+            // a round that needs more cards than its shoe holds
+            System.err.println("Error: " + messageOf(e));
+            System.exit(1);
+        }
+        if (GameMetrics.ENABLED) {
+            report.println("\nMetrics\n" + GameMetrics.get());
+        }
+    }
+
+    /**
+     * Gets the message of an exception. A pool rethrows an exception from a
+     * worker thread as a copy wrapping the original, so the original's
+     * message is used.
+     */
+    private static String messageOf(Exception e) {
+        Throwable cause = e;
+        while (cause.getCause() != null && cause.getCause().getClass() == cause.getClass()) {
+            cause = cause.getCause();
+        }
+        return cause.getMessage();
+    }
+
+    /**
+     * Plays Blackjack rounds in parallel and reports the tallies and the
+     * throughput, writing a record of every round if a format was chosen.
+     */
+    private static void runBlackjack(DriverOptions options, PrintStream report) throws IOException {
+        try (ParallelBlackjackSimulator simulator = new ParallelBlackjackSimulator(options.getThreads(),
+                options.getSeed())) {
+            simulator.setShoe(options.getDecks(), options.getPenetration());
+            simulator.setStrategy(options.getStrategy());
+            simulator.setDealerStandsOn(options.getDealerStandsOn());
+            simulator.setCounting(options.getCountingSystem(), options.getBetSpread());
+            simulator.setRules(options.getRules());
+            simulator.setSeats(options.getSeats());
+            simulator.setInsuranceCount(options.getInsuranceCount());
+            if (options.getWarmupNanos() > 0) {
+                simulator.runFor(options.getWarmupNanos(), TIMED_BATCH_ROUNDS);
             }
-            if (game.getDeck().size() < 10) {
-                game.reset(true);
+            resetMetrics();
+
+            ThroughputMeter meter = new ThroughputMeter();
+            SimulationStats stats;
+            ResultSink sink = openSink(options);
+            try (sink) {
+                simulator.setResultSink(sink);
+                meter.start();
+                if (options.getTimeNanos() > 0) {
+                    stats = simulator.runFor(options.getTimeNanos(), TIMED_BATCH_ROUNDS);
+                } else if (options.getPrecision() > 0) {
+                    stats = simulator.runUntil(options.getPrecision(), SimulationStats.Z_95, options.getGames(),
+                            MAX_ROUNDS);
+                } else {
+                    stats = simulator.run(options.getGames());
+                }
             }
+            // Closing the sink waits for the last records, so it is measured too
+            meter.stop(stats.getRounds());
 
-            iGame++;
+            if (options.getRules().getMaxHands() > 1) {
+                report.println("Rules: " + options.getRules());
+            }
+            if (options.getCountingSystem() != null) {
+                report.println("Counting " + options.getCountingSystem() + ", betting " + options.getBetSpread());
+            }
+            report.println(stats);
+            report.println("Blackjack: " + meter.toString("round"));
+            if (sink != null) {
+                report.println("Records: " + sink.getWritten() + " written, " + sink.getDropped() + " dropped");
+            }
         }
-        System.out.println("Dealer wins: " + dealerWins);
-        System.out.println("Player wins: " + playerWins);
-        System.out.println("Pushes: " + (NGAMES - dealerWins - playerWins));
+    }
 
-        LamarckianPoker lmpGame = new LamarckianPoker();
+    /**
+     * Plays one Lamarckian Poker game to show how it goes, then a tournament
+     * of games in parallel, and reports the statistics and the throughput.
+     */
+    private static void runLamarckian(DriverOptions options, PrintStream report) {
+        LamarckianPoker lmpGame = new LamarckianPoker(RandomSource.seeded(options.getSeed()));
+        lmpGame.setCycleVisits(options.getCycleVisits());
         lmpGame.deal();
-        System.out.println("\nInitial Lamarckian hands\n" + lmpGame);
+        report.println("Initial Lamarckian hands\n" + lmpGame);
+
+        lmpGame.play(options.getMaxTurns());
+
+        report.println("Final Lamarckian hands\n" + lmpGame);
+        if (lmpGame.isCycleDetected()) {
+            report.println("Stopped at turn " + lmpGame.getTurnNumber() + ": a state was visited "
+                    + lmpGame.getCycleVisits() + " times");
+        }
+        int lmpWinner = lmpGame.determineGameWinner();
+        report.println("Player 1 holds " + PokerEvaluator.categoryOf(lmpGame.getHandStrength(1))
+                + ", Player 2 holds " + PokerEvaluator.categoryOf(lmpGame.getHandStrength(2)) + ": "
+                + (lmpWinner == 0 ? "tie" : "Player " + lmpWinner + " wins") + "\n");
+
+        try (LamarckianTournament tournament = new LamarckianTournament(options.getThreads(), options.getSeed())) {
+            tournament.setCycleVisits(options.getCycleVisits());
+            if (options.getWarmupNanos() > 0) {
+                tournament.runFor(options.getWarmupNanos(), options.getMaxTurns(), TIMED_BATCH_GAMES);
+            }
+            resetMetrics();
+
+            ThroughputMeter meter = new ThroughputMeter();
+            meter.start();
+            TournamentStats stats = options.getTimeNanos() > 0
+                    ? tournament.runFor(options.getTimeNanos(), options.getMaxTurns(), TIMED_BATCH_GAMES)
+                    : tournament.run(options.getGames(), options.getMaxTurns());
+            meter.stop(stats.getGames());
+
+            report.println("Lamarckian tournament\n" + stats);
+            report.println("Lamarckian Poker: " + meter.toString("game"));
+        }
+    }
 
-        boolean gameDone = false;
-        while (!gameDone) {
-        //    System.out.println(lmpGame);
-            gameDone = !lmpGame.turn();
+    /**
+     * Solves Blackjack exactly for a full shoe and prints the expectation of
+     * every starting hand.
+     */
+    private static void runSolver(DriverOptions options, PrintStream report) throws IOException {
+        int[] composition = BlackjackSolver.shoeComposition(options.getDecks());
+        try (BlackjackSolver solver = new BlackjackSolver(composition, options.getThreads())) {
+            solver.setDealerStandsOn(options.getDealerStandsOn());
+            report.print(solver.solve(options.getStrategy()));
         }
-  
-        System.out.println("Final Lamarckian hands\n" + lmpGame);   
+    }
 
+    /**
+     * Opens the sink the per-round records go to.
+     *
+     * @return The sink, or null if no format was chosen.
+     */
+    private static ResultSink openSink(DriverOptions options) throws IOException {
+        if (options.getFormat() == null) {
+            return null;
+        }
+        if (options.getOutput() != null) {
+            return new ResultSink(options.getOutput(), options.getFormat(), ResultSink.OverflowPolicy.BLOCK);
+        }
+        return new ResultSink(new OutputStreamWriter(System.out, StandardCharsets.UTF_8), options.getFormat(),
+                ResultSink.DEFAULT_CAPACITY, ResultSink.OverflowPolicy.BLOCK);
     }
-}
\ No newline at end of file
+
+    /**
+     * Clears the metrics gathered during a warm-up, so that they describe the
+     * measured run.
+     */
+    private static void resetMetrics() {
+        if (GameMetrics.ENABLED) {
+            GameMetrics.get().reset();
+        }
+    }
+
+}
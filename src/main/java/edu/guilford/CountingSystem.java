@@ -0,0 +1,94 @@
+package edu.guilford;
+
+/**
+ * Blackjack card-counting systems. Each system gives every rank a tag, and a
+ * counter adds up the tags of the cards seen since the last shuffle: the
+ * running count. Dividing it by the number of decks left to deal gives the
+ * true count, which rises as the remaining cards get richer in tens and
+ * Aces and the player's edge improves.
+ * <p>
+ * Hi-Lo and Omega II are balanced: the tags of a full deck add up to zero,
+ * so the running count starts at zero. KO is unbalanced, with the sevens
+ * counted as low cards and each deck adding up to +4, so its running count
+ * starts at -4 x decks and ends a full pass at zero, and its true count adds
+ * the +4 back so that it averages zero like the others.
+ *
+ * @author Miguel A. Nunez Palomares
+ * @version 1.0
+ * @see Shoe, BetSpread
+ */
+public enum CountingSystem {
+
+    // Tags from Ace to King
+    HI_LO(-1, 1, 1, 1, 1, 1, 0, 0, 0, -1, -1, -1, -1),
+    KO(-1, 1, 1, 1, 1, 1, 1, 0, 0, -1, -1, -1, -1),
+    OMEGA_II(0, 1, 1, 2, 2, 2, 1, 0, -1, -2, -2, -2, -2);
+
+    /**
+     * The tag of each card code.
+     */
+    private final int[] tagsByCode = new int[Card.CARD_COUNT];
+    /**
+     * The sum of the tags of one 52-card deck.
+     */
+    private final int deckSum;
+
+    CountingSystem(int... rankTags) {
+        int sum = 0;
+        for (int code = 0; code < Card.CARD_COUNT; code++) {
+            tagsByCode[code] = rankTags[Card.rankOf(code)];
+            sum += tagsByCode[code];
+        }
+        this.deckSum = sum;
+    }
+
+    /**
+     * Gets the tag of a card.
+     *
+     * @param code The card's code.
+     * @return The card's tag.
+     */
+    public int tagOf(int code) {
+        return tagsByCode[code];
+    }
+
+    /**
+     * Checks whether the tags of a full deck add up to zero.
+     *
+     * @return True for a balanced system.
+     */
+    public boolean isBalanced() {
+        return deckSum == 0;
+    }
+
+    /**
+     * Gets the running count of a freshly shuffled shoe, chosen so that the
+     * count of a full pass through the shoe ends at zero.
+     *
+     * @param decks The number of 52-card decks in the shoe.
+     * @return The initial running count.
+     */
+    public int initialCount(int decks) {
+        return -deckSum * decks;
+    }
+
+    /**
+     * Converts a running count into a true count.
+     *
+     * @param runningCount   The running count.
+     * @param decksRemaining The number of decks left to deal, greater than
+     *                       zero.
+     * @return The true count.
+     */
+    public double trueCount(int runningCount, double decksRemaining) {
+        return runningCount / decksRemaining + deckSum;
+    }
+
+    /**
+     * Gets the tag table by card code, shared and not to be modified.
+     */
+    int[] tagsByCode() {
+        return tagsByCode;
+    }
+
+}
@@ -0,0 +1,335 @@
+package edu.guilford;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Computes the exact distribution of the dealer's final total in Blackjack.
+ * The dealer starts from an upcard and draws without replacement from a
+ * known composition of remaining cards until reaching the stand threshold,
+ * exactly as Blackjack.dealerTurn does. Distributions are memoized per
+ * upcard in caches keyed by the composition, and instances are safe to share
+ * between threads.
+ * <p>
+ * A composition is an array of ten counts indexed by card value: index 0
+ * holds the Aces, indices 1 to 8 the twos to nines, and index 9 all
+ * ten-valued cards.
+ *
+ * @author Miguel A. Nunez Palomares
+ * @version 1.0
+ * @see Blackjack
+ */
+public class DealerProbabilities {
+
+    /**
+     * The number of entries in a composition.
+     */
+    public static final int VALUE_COUNT = 10;
+
+    /**
+     * The index of the bust probability in a distribution.
+     */
+    public static final int BUST = 22;
+
+    /**
+     * The largest count a composition may hold for one value. Compositions
+     * are packed into a long key with 6 bits per value and 8 for the tens,
+     * which covers shoes of up to 15 decks.
+     */
+    private static final int MAX_COUNT = 63;
+    private static final int MAX_TEN_COUNT = 255;
+
+    /**
+     * The number of cached distributions above which a cache is cleared.
+     */
+    private static final int DEFAULT_CACHE_LIMIT = 1 << 20;
+
+    /**
+     * The total on which the dealer stands.
+     */
+    private final int standOn;
+    /**
+     * The number of cached distributions above which a cache is cleared.
+     */
+    private final int cacheLimit;
+    /**
+     * The memoized distributions, one cache per upcard and per whether the
+     * dealer is known not to hold a natural.
+     */
+    private final ConcurrentHashMap<Long, Distribution>[] caches;
+
+    /**
+     * Constructs a calculator for a dealer standing on 17, as in Blackjack.
+     */
+    public DealerProbabilities() {
+        this(17);
+    }
+
+    /**
+     * Constructs a calculator for a dealer standing on the given total.
+     *
+     * @param standOn The total on which the dealer stands.
+     */
+    public DealerProbabilities(int standOn) {
+        this(standOn, DEFAULT_CACHE_LIMIT);
+    }
+
+    /**
+     * Constructs a calculator for a dealer standing on the given total whose
+     * caches are cleared once they exceed the given size.
+     *
+     * @param standOn    The total on which the dealer stands.
+     * @param cacheLimit The number of distributions each cache may hold.
+     */
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    public DealerProbabilities(int standOn, int cacheLimit) {
+        this.standOn = standOn;
+        this.cacheLimit = cacheLimit;
+        this.caches = new ConcurrentHashMap[VALUE_COUNT * 2];
+        for (int i = 0; i < caches.length; i++) {
+            caches[i] = new ConcurrentHashMap<>();
+        }
+    }
+
+    /**
+     * Gets the composition index of a card value.
+     *
+     * @param value The Blackjack value of a card, 2-11.
+     * @return The index of the value in a composition.
+     */
+    public static int indexOf(int value) {
+        return value == 11 ? 0 : value - 1;
+    }
+
+    /**
+     * Gets the value of the cards at an index of a composition, counting an
+     * Ace as 1.
+     *
+     * @param index The composition index.
+     * @return The hard value of the cards at that index.
+     */
+    private static int hardValueAt(int index) {
+        return index + 1;
+    }
+
+    /**
+     * Gets the distribution of the dealer's final total.
+     *
+     * @param upcardValue The Blackjack value of the dealer's upcard, 2-11.
+     * @param remaining   The composition of the cards the dealer draws from,
+     *                    the hole card included. It is not modified.
+     * @param noNatural   Whether the dealer is known not to hold a natural 21,
+     *                    so hole cards that would make one are excluded.
+     * @return The distribution, computed or taken from the cache.
+     * @throws IllegalArgumentException If the composition is malformed or
+     *                                  too large to cache.
+     */
+    public Distribution distribution(int upcardValue, int[] remaining, boolean noNatural) {
+        int upIndex = indexOf(upcardValue);
+        ConcurrentHashMap<Long, Distribution> cache = caches[upIndex * 2 + (noNatural ? 1 : 0)];
+        long key = pack(remaining);
+        Distribution cached = cache.get(key);
+        if (cached != null) {
+            return cached;
+        }
+        int[] counts = remaining.clone();
+        int total = 0;
+        for (int count : counts) {
+            total += count;
+        }
+        double[] probabilities = new double[BUST + 1];
+        int excluded = -1;
+        if (noNatural) {
+            excluded = upIndex == 0 ? 9 : (upIndex == 9 ? 0 : -1);
+            if (excluded >= 0 && counts[excluded] == total) {
+                excluded = -1; // only natural-making cards left; nothing to condition on
+            }
+        }
+        drawHole(counts, total, upIndex, excluded, probabilities);
+        Distribution distribution = new Distribution(probabilities);
+        if (cache.size() >= cacheLimit) {
+            cache.clear();
+        }
+        cache.put(key, distribution);
+        return distribution;
+    }
+
+    /**
+     * Clears every cache.
+     */
+    public void clearCache() {
+        for (ConcurrentHashMap<Long, Distribution> cache : caches) {
+            cache.clear();
+        }
+    }
+
+    /**
+     * Draws the hole card, leaving out the excluded value, and continues the
+     * dealer's hand from each possible hole card.
+     */
+    private void drawHole(int[] counts, int total, int upIndex, int excluded, double[] probabilities) {
+        int hard = hardValueAt(upIndex);
+        boolean ace = upIndex == 0;
+        if (total == 0) {
+            record(hard, ace, 1.0, probabilities);
+            return;
+        }
+        int eligible = total - (excluded >= 0 ? counts[excluded] : 0);
+        for (int i = 0; i < VALUE_COUNT; i++) {
+            int count = counts[i];
+            if (count == 0 || i == excluded) {
+                continue;
+            }
+            counts[i]--;
+            draw(counts, total - 1, hard + hardValueAt(i), ace || i == 0, (double) count / eligible,
+                    probabilities);
+            counts[i]++;
+        }
+    }
+
+    /**
+     * Continues the dealer's hand, drawing until it stands or busts.
+     *
+     * @param counts        The composition still available; restored on return.
+     * @param total         The number of cards in the composition.
+     * @param hard          The hard total of the dealer's hand.
+     * @param ace           Whether the hand holds an Ace.
+     * @param probability   The probability of reaching this hand.
+     * @param probabilities The distribution being accumulated.
+     */
+    private void draw(int[] counts, int total, int hard, boolean ace, double probability,
+            double[] probabilities) {
+        int value = ace && hard + 10 <= 21 ? hard + 10 : hard;
+        if (hard > 21 || value >= standOn || total == 0) {
+            // An exhausted composition leaves the dealer standing short
+            record(hard, ace, probability, probabilities);
+            return;
+        }
+        for (int i = 0; i < VALUE_COUNT; i++) {
+            int count = counts[i];
+            if (count == 0) {
+                continue;
+            }
+            counts[i]--;
+            draw(counts, total - 1, hard + hardValueAt(i), ace || i == 0, probability * count / total,
+                    probabilities);
+            counts[i]++;
+        }
+    }
+
+    /**
+     * Adds the probability of a final dealer hand to the distribution.
+     */
+    private static void record(int hard, boolean ace, double probability, double[] probabilities) {
+        if (hard > 21) {
+            probabilities[BUST] += probability;
+        } else {
+            probabilities[ace && hard + 10 <= 21 ? hard + 10 : hard] += probability;
+        }
+    }
+
+    /**
+     * Packs a composition into a cache key.
+     *
+     * @param counts The composition.
+     * @return The key, unique to the composition.
+     * @throws IllegalArgumentException If the composition is malformed or
+     *                                  too large to pack.
+     */
+    static long pack(int[] counts) {
+        if (counts.length != VALUE_COUNT) {
+            throw new IllegalArgumentException("Invalid composition length: " + counts.length);
+        }
+        long key = 0;
+        for (int i = 0; i < VALUE_COUNT - 1; i++) {
+            if (counts[i] < 0 || counts[i] > MAX_COUNT) {
+                throw new IllegalArgumentException("Invalid count " + counts[i] + " at index " + i);
+            }
+            key = (key << 6) | counts[i];
+        }
+        int tens = counts[VALUE_COUNT - 1];
+        if (tens < 0 || tens > MAX_TEN_COUNT) {
+            throw new IllegalArgumentException("Invalid count of tens: " + tens);
+        }
+        return (key << 8) | tens;
+    }
+
+    /**
+     * The probability of each final total of the dealer's hand. Totals of 17
+     * to 21 and bust are the normal results; a total below 17 only appears
+     * if the composition ran out while the dealer was drawing.
+     */
+    public static final class Distribution {
+
+        /**
+         * The probability of each final total, indexed by total, with the
+         * bust probability at index {@link DealerProbabilities#BUST}.
+         */
+        private final double[] probabilities;
+
+        private Distribution(double[] probabilities) {
+            this.probabilities = probabilities;
+        }
+
+        /**
+         * Gets the probability that the dealer finishes on the given total.
+         *
+         * @param total The final total, 0-21.
+         * @return The probability of that total.
+         */
+        public double probability(int total) {
+            return probabilities[total];
+        }
+
+        /**
+         * Gets the probability that the dealer busts.
+         *
+         * @return The bust probability.
+         */
+        public double bustProbability() {
+            return probabilities[BUST];
+        }
+
+        /**
+         * Computes the expected result, in units of one bet, of standing on
+         * the given total against this distribution: +1 for a win, -1 for a
+         * loss and 0 for a push.
+         *
+         * @param playerTotal The player's total.
+         * @return The expected result of standing.
+         */
+        public double standExpectation(int playerTotal) {
+            if (playerTotal > 21) {
+                return -1.0;
+            }
+            double expectation = probabilities[BUST];
+            for (int total = 0; total <= 21; total++) {
+                if (total < playerTotal) {
+                    expectation += probabilities[total];
+                } else if (total > playerTotal) {
+                    expectation -= probabilities[total];
+                }
+            }
+            return expectation;
+        }
+
+        /**
+         * Returns the non-zero probabilities of the distribution.
+         *
+         * @return A formatted string listing each total and its probability.
+         */
+        @Override
+        public String toString() {
+            StringBuilder result = new StringBuilder();
+            for (int total = 0; total <= 21; total++) {
+                if (probabilities[total] > 0) {
+                    result.append(total).append(": ").append(String.format("%.6f", probabilities[total]))
+                            .append("\n");
+                }
+            }
+            result.append("Bust: ").append(String.format("%.6f", probabilities[BUST])).append("\n");
+            return result.toString();
+        }
+
+    }
+
+}
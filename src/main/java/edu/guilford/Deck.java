@@ -1,76 +1,269 @@
 package edu.guilford;
 
 import java.util.ArrayList;
-import java.util.Random;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 
 /**
  * Represents a deck of playing cards. Provides functionality to build, shuffle, 
  * deal, and manage a standard deck of 52 playing cards.
+ * <p>
+ * The cards are stored as card codes in a plain int array. Dealing moves a
+ * cursor instead of removing an element, and the dealt cards stay in the
+ * array in front of the cursor, so {@link #reset()} can put them all back
+ * without allocating. Shuffling is an in-place Fisher-Yates shuffle.
  * 
  * @author Miguel A. Nunez Palomares
  * @version 1.0
- * @see Card, java.util.ArrayList, java.util.Random.
+ * @see Card, java.util.ArrayList, RandomSource.
  */
 
 public class Deck {
 
     /**
-     * The list of cards in the deck.
+     * The codes of the cards in the deck. The cards still in the deck are
+     * those from {@code top} up to {@code end}; the ones before {@code top}
+     * have been dealt.
      */
-    private ArrayList<Card> deck = new ArrayList<Card>();
+    private int[] cards;
 
     /**
-     * Random number generator for shuffling the deck.
+     * The index of the next card to deal.
      */
-    private Random rand = new Random();
+    private int top;
+
+    /**
+     * One past the index of the last card in the deck.
+     */
+    private int end;
+
+    /**
+     * Random source for shuffling the deck.
+     */
+    private RandomSource rand;
 
      
     /**
      * Constructs a new deck of cards and initializes it with all 52 cards.
      */
     public Deck() {
-        build();
+        this(RandomSource.create());
+    }
+
+    /**
+     * Constructs a new deck of cards that shuffles with the given random
+     * source, and initializes it with all 52 cards.
+     * 
+     * @param rand The random source used for shuffling.
+     */
+    public Deck(RandomSource rand) {
+        this(1, rand);
+    }
+
+    /**
+     * Constructs a deck made of several standard 52-card decks, as used to fill
+     * a multi-deck shoe.
+     * 
+     * @param decks The number of 52-card decks to combine.
+     * @param rand  The random source used for shuffling.
+     * @throws IllegalArgumentException If decks is negative.
+     */
+    public Deck(int decks, RandomSource rand) {
+        if (decks < 0) {
+            throw new IllegalArgumentException("Invalid number of decks: " + decks);
+        }
+        this.rand = rand;
+        this.cards = new int[Math.max(decks, 1) * Card.CARD_COUNT];
+        for (int i = 0; i < decks; i++) {
+            addStandardDeck();
+        }
     }
 
      /**
-     * Retrieves the current list of cards in the deck.
+     * Retrieves the cards remaining in the deck, top card first, as a
+     * read-only list. The list is a snapshot that cannot be changed, so code
+     * that tries to add cards to the deck through it fails with an
+     * UnsupportedOperationException instead of losing them; use
+     * {@link #add(Card)} and {@link #addAll(Deck)} to put cards into the deck.
      * 
-     * @return An ArrayList containing the cards in the deck.
+     * @return An unmodifiable list of the cards in the deck.
      */
-    public ArrayList<Card> getDeck() {
-        return deck;
+    public List<Card> getDeck() {
+        ArrayList<Card> copy = new ArrayList<Card>(size());
+        for (int i = top; i < end; i++) {
+            copy.add(Card.fromCode(cards[i]));
+        }
+        return Collections.unmodifiableList(copy);
     }
 
     /**
      * Clears the deck, removing all cards.
      */
     public void clear() {
-        deck.clear();
+        GameMetrics.cardsDealt(top);
+        top = 0;
+        end = 0;
     }
 
 
      /**
      * Builds a standard deck of 52 playing cards, adding each suit and rank.
+     * The canonical cards are used, so building allocates no Card objects.
      */
     public void build() {
-        for (Card.Suit suit : Card.Suit.values()) {
-            for (Card.Rank rank : Card.Rank.values()) {
-                deck.add(new Card(suit, rank));
-            }
+        addStandardDeck();
+    }
+
+    /**
+     * Adds the 52 cards of a standard deck to the bottom of the deck. The
+     * constructor uses it rather than {@link #build()}, which a subclass may
+     * not allow.
+     */
+    private void addStandardDeck() {
+        ensureRoom(Card.CARD_COUNT);
+        // Card codes run suit by suit, the same order as the Suit and Rank enums
+        for (int code = 0; code < Card.CARD_COUNT; code++) {
+            cards[end++] = code;
+        }
+    }
+
+    /**
+     * Adds a card to the bottom of the deck.
+     * 
+     * @param card The card to add.
+     */
+    public void add(Card card) {
+        ensureRoom(1);
+        cards[end++] = card.getCode();
+    }
+
+    /**
+     * Adds the cards remaining in another deck to the bottom of this one, in
+     * order. The other deck is left unchanged.
+     * 
+     * @param other The deck whose cards are added.
+     */
+    public void addAll(Deck other) {
+        int count = other.size();
+        ensureRoom(count);
+        System.arraycopy(other.cards, other.top, cards, end, count);
+        end += count;
+    }
+
+    /**
+     * Returns every dealt or picked card to the deck, so the deck again holds
+     * all the cards it held after it was last built or added to. No memory is
+     * allocated; call {@link #shuffle()} afterwards to randomize the order.
+     */
+    public void reset() {
+        GameMetrics.cardsDealt(top);
+        top = 0;
+    }
+
+    /**
+     * Returns the first cards dealt since the last reset to the deck, ahead
+     * of the cards still in it, and leaves the cards dealt after them out.
+     * The dealt cards are rotated in place, so nothing is allocated; call
+     * {@link #shuffle()} afterwards to randomize the order.
+     * 
+     * @param count The number of cards to return, counted from the first one
+     *              dealt.
+     * @throws IllegalArgumentException If fewer cards have been dealt.
+     */
+    void returnDealt(int count) {
+        if (count < 0 || count > top) {
+            throw new IllegalArgumentException("Invalid number of cards to return: " + count);
+        }
+        GameMetrics.cardsDealt(count);
+        // Reversing both parts and then the whole puts the cards that stay
+        // out in front of the cursor and the returned ones just behind it
+        reverse(0, count);
+        reverse(count, top);
+        reverse(0, top);
+        top -= count;
+    }
+
+    /**
+     * Reverses the order of a range of the card array.
+     */
+    private void reverse(int from, int to) {
+        for (int i = from, j = to - 1; i < j; i++, j--) {
+            int swap = cards[i];
+            cards[i] = cards[j];
+            cards[j] = swap;
+        }
+    }
+
+    /**
+     * Makes room at the bottom of the deck for more cards. Adding cards ends
+     * the current pass through the deck: the dealt cards in front of the
+     * cursor are dropped, so {@link #reset()} will not bring them back. The
+     * array only grows when the cards still in the deck do not fit.
+     * 
+     * @param count The number of cards about to be added.
+     */
+    private void ensureRoom(int count) {
+        if (top > 0) {
+            GameMetrics.cardsDealt(top);
+            System.arraycopy(cards, top, cards, 0, end - top);
+            end -= top;
+            top = 0;
         }
+        if (end + count > cards.length) {
+            cards = Arrays.copyOf(cards, Math.max(cards.length * 2, end + count));
+        }
+    }
+
+    /**
+     * Counts the cards remaining in the deck by Blackjack value, as a
+     * composition for {@link DealerProbabilities}: index 0 holds the Aces,
+     * indices 1 to 8 the twos to nines and index 9 the ten-valued cards.
+     * 
+     * @param counts An array of at least ten counts to fill.
+     * @return The filled array.
+     */
+    public int[] getComposition(int[] counts) {
+        Arrays.fill(counts, 0, DealerProbabilities.VALUE_COUNT, 0);
+        for (int i = top; i < end; i++) {
+            counts[DealerProbabilities.indexOf(Card.valueOf(cards[i]))]++;
+        }
+        return counts;
+    }
+
+    /**
+     * Adds the cards remaining in the deck to a count per card code, for
+     * checking that no card has been lost or duplicated.
+     * 
+     * @param counts An array of at least 52 counts to add to.
+     */
+    void countCodes(int[] counts) {
+        for (int i = top; i < end; i++) {
+            counts[cards[i]]++;
+        }
+    }
+
+    /**
+     * Gets the number of cards the deck has room for before it must grow.
+     * 
+     * @return The capacity of the deck.
+     */
+    int capacity() {
+        return cards.length;
     }
 
      /**
-     * Shuffles the deck by randomly rearranging the cards.
+     * Shuffles the deck by randomly rearranging the cards, using an in-place
+     * Fisher-Yates shuffle of the cards that have not been dealt.
      */
     public void shuffle() {
-        ArrayList<Card> tempDeck = new ArrayList<Card>();
-        while (deck.size() > 0) {
-            int loc = rand.nextInt(deck.size());
-            tempDeck.add(deck.get(loc));
-            deck.remove(loc);
+        GameMetrics.shuffled();
+        for (int i = end - 1; i > top; i--) {
+            int j = top + rand.nextInt(i - top + 1);
+            int swap = cards[i];
+            cards[i] = cards[j];
+            cards[j] = swap;
         }
-        deck = tempDeck;
     }
 
     // public Card pick(int i) {
@@ -91,10 +284,15 @@ public class Deck {
      * @throws IndexOutOfBoundsException If the index is invalid.
      */
     public Card pick(int i) {
-        if (i < 0 || i >= deck.size()) {
+        if (i < 0 || i >= size()) {
             throw new IndexOutOfBoundsException("Invalid index: " + i);
         }
-        return deck.remove(i);
+        // Slide the cards above the pick down one place and park the picked
+        // card just behind the cursor, with the other dealt cards
+        int code = cards[top + i];
+        System.arraycopy(cards, top, cards, top + 1, i);
+        cards[top++] = code;
+        return Card.fromCode(code);
     }
 
 
@@ -105,10 +303,10 @@ public class Deck {
      * @throws IllegalStateException If the deck is empty.
      */
     public Card deal() {
-        if (deck.isEmpty()) {
+        if (top == end) {
             throw new IllegalStateException("Cannot deal from an empty deck.");
         }
-        return deck.remove(0);
+        return Card.fromCode(cards[top++]);
     }
 
      /**
@@ -117,7 +315,7 @@ public class Deck {
      * @return The number of cards left in the deck.
      */
     public int size() {
-        return deck.size();
+        return end - top;
     }
 
     // public String toString() {
@@ -135,8 +333,8 @@ public class Deck {
      */
     public String toString() {
         StringBuilder deckString = new StringBuilder();
-        for (Card card : deck) {
-            deckString.append(card.toString()).append("\n");
+        for (int i = top; i < end; i++) {
+            deckString.append(Card.fromCode(cards[i]).toString()).append("\n");
         }
         return deckString.toString();
 
@@ -148,7 +346,7 @@ public class Deck {
      * @return True if the deck is empty, false otherwise.
      */
     public boolean isEmpty() {
-        return deck.isEmpty();
+        return top == end;
     }
 
 }
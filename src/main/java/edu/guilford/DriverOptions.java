@@ -0,0 +1,455 @@
+package edu.guilford;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * The command-line options of {@link CardGameDriver}. Options are given as
+ * {@code --name value}; for compatibility with earlier versions a bare first
+ * number is taken as the seed and a bare second one as the precision.
+ *
+ * @author Miguel A. Nunez Palomares
+ * @version 1.0
+ * @see CardGameDriver
+ */
+public class DriverOptions {
+
+    /**
+     * The games the driver can run.
+     */
+    public enum GameChoice {
+        BLACKJACK, LAMARCKIAN, SOLVER, ALL
+    }
+
+    /**
+     * The Blackjack rules that can be chosen.
+     */
+    public enum RulesChoice {
+        CLASSIC, STANDARD
+    }
+
+    /**
+     * The help text.
+     */
+    public static final String USAGE = String.join("\n",
+            "Usage: java edu.guilford.CardGameDriver [options] [seed [precision]]",
+            "  --game G          blackjack, lamarckian, solver or all (default all)",
+            "  --games N         Blackjack rounds and Lamarckian games to play (default 10000)",
+            "  --time S          play for S seconds instead of a fixed number of games",
+            "  --threads N       worker threads (default: available processors)",
+            "  --seed N          master seed (default: from the clock)",
+            "  --warmup S        seconds of warm-up before measuring each game (default 1, 0 for none)",
+            "  --decks N         decks in the Blackjack shoe (default 1)",
+            "  --penetration F   fraction of the shoe dealt before the cut card",
+            "  --stand-on N      total the dealer stands on (default 17)",
+            "  --seats N         players at each Blackjack table, sharing one shoe (default 1, at most 7)",
+            "  --rules R         classic (hit or stand, natural pays 1:1) or standard casino rules",
+            "  --insure-at T     take insurance at a true count of T or more (needs --count)",
+            "  --strategy S      default, basic, a stand-on total, or a strategy file",
+            "  --count C         count cards with hi-lo, ko or omega-ii and bet by the true count",
+            "  --spread B,B,...  bets from true count +1 up (default 1,2,4,6,8 when counting)",
+            "  --max-turns N     turn limit of a Lamarckian game (default 1000)",
+            "  --cycle-visits K  stop a Lamarckian game at its K-th visit to a state (default 4, 0 never)",
+            "  --precision H     play Blackjack until the 95% half-width is below H",
+            "  --format F        text, csv or json; csv and json also write one record per hand",
+            "  --output FILE     where csv or json records go (default: standard output)",
+            "  --help            print this text");
+
+    /**
+     * The bet spread used when cards are counted and no spread is given.
+     */
+    public static final String DEFAULT_SPREAD = "1,2,4,6,8";
+
+    private GameChoice game = GameChoice.ALL;
+    private long games = 10_000;
+    private long timeNanos;
+    private int threads = Runtime.getRuntime().availableProcessors();
+    private long seed = System.nanoTime();
+    private long warmupNanos = 1_000_000_000L;
+    private int decks = 1;
+    private double penetration = Blackjack.DEFAULT_PENETRATION;
+    private int dealerStandsOn = Blackjack.DEFAULT_DEALER_STANDS_ON;
+    private String strategyName = "default";
+    private CountingSystem countingSystem;
+    private BetSpread betSpread;
+    private int seats = 1;
+    private RulesChoice rules = RulesChoice.CLASSIC;
+    private double insuranceCount = Double.POSITIVE_INFINITY;
+    private int maxTurns = 1000;
+    private int cycleVisits = LamarckianPoker.DEFAULT_CYCLE_VISITS;
+    private double precision;
+    private ResultSink.Format format;
+    private Path output;
+    private boolean help;
+
+    /**
+     * Parses the command-line arguments.
+     *
+     * @param args The arguments.
+     * @return The options.
+     * @throws IllegalArgumentException If an option is unknown, is missing
+     *                                  its value or has an invalid one.
+     */
+    public static DriverOptions parse(String[] args) {
+        DriverOptions options = new DriverOptions();
+        int positional = 0;
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            if (!arg.startsWith("--")) {
+                if (positional == 0) {
+                    options.seed = parseLong("seed", arg);
+                } else if (positional == 1) {
+                    options.precision = parsePositive("precision", arg);
+                } else {
+                    throw new IllegalArgumentException("Unexpected argument: " + arg);
+                }
+                positional++;
+                continue;
+            }
+            if (arg.equals("--help")) {
+                options.help = true;
+                continue;
+            }
+            if (i + 1 == args.length) {
+                throw new IllegalArgumentException("Missing value for " + arg);
+            }
+            String value = args[++i];
+            switch (arg) {
+                case "--game":
+                    options.game = parseEnum(GameChoice.class, arg, value);
+                    break;
+                case "--games":
+                    options.games = parseLong(arg, value);
+                    if (options.games < 1) {
+                        throw new IllegalArgumentException("Invalid game count: " + value);
+                    }
+                    break;
+                case "--time":
+                    options.timeNanos = (long) (parsePositive(arg, value) * 1e9);
+                    break;
+                case "--threads":
+                    options.threads = (int) parseLong(arg, value);
+                    if (options.threads < 1) {
+                        throw new IllegalArgumentException("Invalid thread count: " + value);
+                    }
+                    break;
+                case "--seed":
+                    options.seed = parseLong(arg, value);
+                    break;
+                case "--warmup":
+                    double seconds = parseDouble(arg, value);
+                    if (!(seconds >= 0)) {
+                        throw new IllegalArgumentException("Invalid value for " + arg + ": " + value);
+                    }
+                    options.warmupNanos = (long) (seconds * 1e9);
+                    break;
+                case "--decks":
+                    options.decks = (int) parseLong(arg, value);
+                    break;
+                case "--penetration":
+                    options.penetration = parsePositive(arg, value);
+                    break;
+                case "--stand-on":
+                    options.dealerStandsOn = (int) parseLong(arg, value);
+                    break;
+                case "--strategy":
+                    options.strategyName = value;
+                    break;
+                case "--count":
+                    options.countingSystem = parseEnum(CountingSystem.class, arg, value);
+                    break;
+                case "--spread":
+                    options.betSpread = BetSpread.parse(value);
+                    break;
+                case "--seats":
+                    options.seats = (int) parseLong(arg, value);
+                    if (options.seats < 1 || options.seats > BlackjackTable.MAX_SEATS) {
+                        throw new IllegalArgumentException("Invalid number of seats: " + value);
+                    }
+                    break;
+                case "--rules":
+                    options.rules = parseEnum(RulesChoice.class, arg, value);
+                    break;
+                case "--insure-at":
+                    options.insuranceCount = parseDouble(arg, value);
+                    break;
+                case "--max-turns":
+                    options.maxTurns = (int) parseLong(arg, value);
+                    if (options.maxTurns < 1) {
+                        throw new IllegalArgumentException("Invalid turn limit: " + value);
+                    }
+                    break;
+                case "--cycle-visits":
+                    options.cycleVisits = (int) parseLong(arg, value);
+                    if (options.cycleVisits < 0 || options.cycleVisits == 1) {
+                        throw new IllegalArgumentException("Invalid cycle limit: " + value);
+                    }
+                    break;
+                case "--precision":
+                    options.precision = parsePositive(arg, value);
+                    break;
+                case "--format":
+                    options.format = value.equalsIgnoreCase("text") ? null
+                            : parseEnum(ResultSink.Format.class, arg, value);
+                    break;
+                case "--output":
+                    options.output = Paths.get(value);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option: " + arg);
+            }
+        }
+        if (options.decks < 1) {
+            throw new IllegalArgumentException("Invalid number of decks: " + options.decks);
+        }
+        if (options.penetration > 1) {
+            throw new IllegalArgumentException("Invalid penetration: " + options.penetration);
+        }
+        int cardsAfterCut = Shoe.cardsAfterCut(options.decks, options.penetration);
+        if (options.seats > 1 && cardsAfterCut < BlackjackTable.roundCards(options.seats)) {
+            throw new IllegalArgumentException("A round at " + options.seats + " seats needs about "
+                    + BlackjackTable.roundCards(options.seats) + " cards, but only " + cardsAfterCut
+                    + " are left after the cut card; add decks or lower the penetration");
+        }
+        if (options.countingSystem != null && options.betSpread == null) {
+            options.betSpread = BetSpread.parse(DEFAULT_SPREAD);
+        }
+        return options;
+    }
+
+    /**
+     * Gets which game to run.
+     *
+     * @return The game choice.
+     */
+    public GameChoice getGame() {
+        return game;
+    }
+
+    /**
+     * Gets the number of Blackjack rounds and Lamarckian games to play.
+     *
+     * @return The game count.
+     */
+    public long getGames() {
+        return games;
+    }
+
+    /**
+     * Gets the time budget.
+     *
+     * @return The time budget in nanoseconds, or 0 to play a fixed number of
+     *         games.
+     */
+    public long getTimeNanos() {
+        return timeNanos;
+    }
+
+    /**
+     * Gets the number of worker threads.
+     *
+     * @return The thread count.
+     */
+    public int getThreads() {
+        return threads;
+    }
+
+    /**
+     * Gets the master seed.
+     *
+     * @return The seed.
+     */
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * Gets how long each game is warmed up before it is measured.
+     *
+     * @return The warm-up time in nanoseconds.
+     */
+    public long getWarmupNanos() {
+        return warmupNanos;
+    }
+
+    /**
+     * Gets the number of decks in the Blackjack shoe.
+     *
+     * @return The number of decks.
+     */
+    public int getDecks() {
+        return decks;
+    }
+
+    /**
+     * Gets the penetration of the Blackjack shoe.
+     *
+     * @return The penetration.
+     */
+    public double getPenetration() {
+        return penetration;
+    }
+
+    /**
+     * Gets the total the dealer stands on.
+     *
+     * @return The dealer's stand threshold.
+     */
+    public int getDealerStandsOn() {
+        return dealerStandsOn;
+    }
+
+    /**
+     * Builds the player's strategy: "default", "basic", a total to stand on,
+     * or the path of a strategy file.
+     *
+     * @return The strategy.
+     * @throws IOException If the strategy file cannot be read.
+     */
+    public Strategy getStrategy() throws IOException {
+        if (strategyName.equals("default")) {
+            return StrategyTable.defaultStrategy();
+        }
+        if (strategyName.equals("basic")) {
+            return StrategyTable.basic();
+        }
+        if (strategyName.chars().allMatch(Character::isDigit)) {
+            return StrategyTable.threshold(Integer.parseInt(strategyName));
+        }
+        return StrategyTable.load(Paths.get(strategyName));
+    }
+
+    /**
+     * Gets the counting system the Blackjack player counts cards with.
+     *
+     * @return The counting system, or null if cards are not counted.
+     */
+    public CountingSystem getCountingSystem() {
+        return countingSystem;
+    }
+
+    /**
+     * Gets the number of seats at each Blackjack table.
+     *
+     * @return The seat count.
+     */
+    public int getSeats() {
+        return seats;
+    }
+
+    /**
+     * Gets the rules Blackjack is played under.
+     *
+     * @return A new set of rules.
+     */
+    public BlackjackRules getRules() {
+        return rules == RulesChoice.STANDARD ? BlackjackRules.standard() : BlackjackRules.classic();
+    }
+
+    /**
+     * Gets the true count at or above which the Blackjack player insures.
+     *
+     * @return The insurance count; infinite if the player never insures.
+     */
+    public double getInsuranceCount() {
+        return insuranceCount;
+    }
+
+    /**
+     * Gets the bet spread the Blackjack player follows.
+     *
+     * @return The bet spread, or null to bet one unit every round.
+     */
+    public BetSpread getBetSpread() {
+        return betSpread;
+    }
+
+    /**
+     * Gets the turn limit of a Lamarckian game.
+     *
+     * @return The turn limit.
+     */
+    public int getMaxTurns() {
+        return maxTurns;
+    }
+
+    /**
+     * Gets the number of visits to one state that stops a Lamarckian game.
+     *
+     * @return The cycle limit, or 0 if games are never stopped.
+     */
+    public int getCycleVisits() {
+        return cycleVisits;
+    }
+
+    /**
+     * Gets the target half-width of the Blackjack confidence interval.
+     *
+     * @return The precision, or 0 to play a fixed number of rounds.
+     */
+    public double getPrecision() {
+        return precision;
+    }
+
+    /**
+     * Gets the format of the per-round records.
+     *
+     * @return The format, or null if only the summary is printed.
+     */
+    public ResultSink.Format getFormat() {
+        return format;
+    }
+
+    /**
+     * Gets the file the per-round records go to.
+     *
+     * @return The file, or null for standard output.
+     */
+    public Path getOutput() {
+        return output;
+    }
+
+    /**
+     * Checks whether the help text was asked for.
+     *
+     * @return True if --help was given.
+     */
+    public boolean isHelp() {
+        return help;
+    }
+
+    private static long parseLong(String option, String value) {
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid value for " + option + ": " + value);
+        }
+    }
+
+    private static double parseDouble(String option, String value) {
+        try {
+            return Double.parseDouble(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid value for " + option + ": " + value);
+        }
+    }
+
+    private static double parsePositive(String option, String value) {
+        double number = parseDouble(option, value);
+        if (!(number > 0)) {
+            throw new IllegalArgumentException("Invalid value for " + option + ": " + value);
+        }
+        return number;
+    }
+
+    private static <E extends Enum<E>> E parseEnum(Class<E> type, String option, String value) {
+        for (E constant : type.getEnumConstants()) {
+            if (constant.name().equalsIgnoreCase(value.replace('-', '_'))) {
+                return constant;
+            }
+        }
+        throw new IllegalArgumentException("Invalid value for " + option + ": " + value);
+    }
+
+}
@@ -0,0 +1,156 @@
+package edu.guilford;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads an event log written by EventLogWriter. The game index at the end of
+ * the file is loaded when the log is opened, so any game can be replayed by
+ * its number without reading the games before it. The events are memory
+ * mapped rather than read, in one mapping when they fit and game by game
+ * otherwise.
+ *
+ * @author Miguel A. Nunez Palomares
+ * @version 1.0
+ * @see EventLogWriter, ReplayedGame
+ */
+public class EventLogReader implements AutoCloseable {
+
+    /**
+     * The file being read.
+     */
+    private final FileChannel channel;
+    /**
+     * The file position of the start of each game.
+     */
+    private final long[] gameOffsets;
+    /**
+     * The file position just past the last event.
+     */
+    private final long eventsEnd;
+    /**
+     * All the events of the file, or null if they are too large to map at
+     * once.
+     */
+    private final MappedByteBuffer events;
+
+    /**
+     * Opens a log and loads its game index.
+     *
+     * @param file The log to read.
+     * @throws IOException              If the file cannot be read.
+     * @throws IllegalArgumentException If the file is not a complete event log.
+     */
+    public EventLogReader(Path file) throws IOException {
+        channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            long size = channel.size();
+            if (size < EventLogWriter.HEADER_BYTES + EventLogWriter.TRAILER_BYTES
+                    || readAt(0, Integer.BYTES).getInt() != EventLogWriter.MAGIC) {
+                throw new IllegalArgumentException("Not an event log: " + file);
+            }
+            ByteBuffer trailer = readAt(size - EventLogWriter.TRAILER_BYTES, EventLogWriter.TRAILER_BYTES);
+            eventsEnd = trailer.getLong();
+            int games = trailer.getInt();
+            if (trailer.getInt() != EventLogWriter.MAGIC
+                    || eventsEnd + (long) games * Long.BYTES + EventLogWriter.TRAILER_BYTES != size) {
+                throw new IllegalArgumentException("Event log was not closed properly: " + file);
+            }
+            gameOffsets = new long[games];
+            readAt(eventsEnd, games * Long.BYTES).asLongBuffer().get(gameOffsets);
+            events = eventsEnd <= Integer.MAX_VALUE
+                    ? channel.map(FileChannel.MapMode.READ_ONLY, 0, eventsEnd)
+                    : null;
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Gets the number of games in the log.
+     *
+     * @return The game count.
+     */
+    public int getGameCount() {
+        return gameOffsets.length;
+    }
+
+    /**
+     * Gets the number of events recorded for a game.
+     *
+     * @param game The game number, from 0.
+     * @return The event count.
+     * @throws IndexOutOfBoundsException If there is no such game.
+     */
+    public int getEventCount(int game) {
+        return (int) ((end(game) - start(game)) / GameEvent.BYTES);
+    }
+
+    /**
+     * Replays a game from its events, rebuilding every hand without playing
+     * the game again.
+     *
+     * @param game The game number, from 0.
+     * @return The replayed game.
+     * @throws IOException               If the events cannot be read.
+     * @throws IndexOutOfBoundsException If there is no such game.
+     */
+    public ReplayedGame replay(int game) throws IOException {
+        long start = start(game);
+        long end = end(game);
+        ByteBuffer gameEvents;
+        if (events != null) {
+            gameEvents = events.slice((int) start, (int) (end - start));
+        } else {
+            gameEvents = channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+        }
+        return new ReplayedGame(game, gameEvents);
+    }
+
+    /**
+     * Closes the log.
+     *
+     * @throws IOException If the file cannot be closed.
+     */
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * Gets the file position of the first event of a game.
+     */
+    private long start(int game) {
+        if (game < 0 || game >= gameOffsets.length) {
+            throw new IndexOutOfBoundsException("Invalid game: " + game);
+        }
+        return gameOffsets[game];
+    }
+
+    /**
+     * Gets the file position just past the last event of a game.
+     */
+    private long end(int game) {
+        start(game);
+        return game + 1 < gameOffsets.length ? gameOffsets[game + 1] : eventsEnd;
+    }
+
+    /**
+     * Reads a few bytes at a position.
+     */
+    private ByteBuffer readAt(long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Unexpected end of event log");
+            }
+        }
+        return buffer.flip();
+    }
+
+}
@@ -0,0 +1,228 @@
+package edu.guilford;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Writes game events to a binary log file through a memory-mapped window.
+ * Recording an event is two stores into a small heap buffer, which is copied
+ * into the mapped window in bulk whenever it fills up, and the operating
+ * system writes the pages back in the background. When the window fills up
+ * the next one is mapped right after it.
+ * <p>
+ * The file starts with a four-byte magic number, followed by the two-byte
+ * events of every game in order. On {@link #close()} the offset of each game
+ * is written after the events, followed by a trailer holding the position of
+ * that index, the number of games and the magic number again, so that
+ * EventLogReader can seek straight to any game.
+ * <p>
+ * A writer is not thread-safe; give each thread its own log.
+ *
+ * @author Miguel A. Nunez Palomares
+ * @version 1.0
+ * @see EventLogReader, GameEvent
+ */
+public class EventLogWriter implements GameRecorder, AutoCloseable {
+
+    /**
+     * The magic number at the start and the end of a log: "CGEL".
+     */
+    static final int MAGIC = 0x4347454C;
+
+    /**
+     * The size of the header: the magic number.
+     */
+    static final int HEADER_BYTES = Integer.BYTES;
+
+    /**
+     * The size of the trailer: index position, game count and magic number.
+     */
+    static final int TRAILER_BYTES = Long.BYTES + Integer.BYTES + Integer.BYTES;
+
+    /**
+     * The default size of a mapped window.
+     */
+    public static final int DEFAULT_WINDOW_BYTES = 1 << 24;
+
+    /**
+     * The size of the heap buffer events are collected in.
+     */
+    private static final int BUFFER_BYTES = 1 << 13;
+
+    /**
+     * The file being written.
+     */
+    private final FileChannel channel;
+    /**
+     * The size of each mapped window.
+     */
+    private final int windowBytes;
+    /**
+     * The window currently written to, or null once closed.
+     */
+    private MappedByteBuffer window;
+    /**
+     * The file position of the start of the window.
+     */
+    private long windowStart;
+    /**
+     * The events not yet copied into the window.
+     */
+    private final byte[] buffer = new byte[BUFFER_BYTES];
+    /**
+     * The number of bytes in the buffer.
+     */
+    private int buffered;
+    /**
+     * The file position of the start of each game.
+     */
+    private long[] gameOffsets = new long[1024];
+    /**
+     * The number of games started.
+     */
+    private int gameCount;
+
+    /**
+     * Creates a log file, replacing any existing one, with the default window
+     * size.
+     *
+     * @param file The file to write.
+     * @throws IOException If the file cannot be created.
+     */
+    public EventLogWriter(Path file) throws IOException {
+        this(file, DEFAULT_WINDOW_BYTES);
+    }
+
+    /**
+     * Creates a log file, replacing any existing one.
+     *
+     * @param file        The file to write.
+     * @param windowBytes The size of each mapped window.
+     * @throws IOException              If the file cannot be created.
+     * @throws IllegalArgumentException If the window cannot hold the header.
+     */
+    public EventLogWriter(Path file, int windowBytes) throws IOException {
+        if (windowBytes < HEADER_BYTES) {
+            throw new IllegalArgumentException("Invalid window size: " + windowBytes);
+        }
+        this.windowBytes = windowBytes;
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        this.window = channel.map(FileChannel.MapMode.READ_WRITE, 0, windowBytes);
+        window.putInt(MAGIC);
+    }
+
+    /**
+     * Appends an event. A GAME_START event also adds the game to the index.
+     *
+     * @param event   The kind of event.
+     * @param seat    The seat the event concerns, 0 to 7.
+     * @param operand The event's operand, 0 to 255.
+     * @throws IllegalStateException If the writer has been closed.
+     * @throws UncheckedIOException  If the next window cannot be mapped.
+     */
+    @Override
+    public void record(GameEvent event, int seat, int operand) {
+        if (window == null) {
+            throw new IllegalStateException("Event log is closed");
+        }
+        if (buffered == BUFFER_BYTES) {
+            flush();
+        }
+        if (event == GameEvent.GAME_START) {
+            if (gameCount == gameOffsets.length) {
+                gameOffsets = Arrays.copyOf(gameOffsets, gameCount * 2);
+            }
+            gameOffsets[gameCount++] = getPosition();
+        }
+        buffer[buffered] = event.encode(seat);
+        buffer[buffered + 1] = (byte) operand;
+        buffered += GameEvent.BYTES;
+    }
+
+    /**
+     * Gets the number of games started so far.
+     *
+     * @return The game count.
+     */
+    public int getGameCount() {
+        return gameCount;
+    }
+
+    /**
+     * Gets the number of bytes of events and header written so far.
+     *
+     * @return The write position.
+     */
+    public long getPosition() {
+        return window == null ? windowStart : windowStart + window.position() + buffered;
+    }
+
+    /**
+     * Writes the game index and trailer, trims the file to its contents and
+     * closes it. Closing an already closed writer does nothing.
+     *
+     * @throws IOException If the index cannot be written.
+     */
+    @Override
+    public void close() throws IOException {
+        if (window == null) {
+            return;
+        }
+        flush();
+        long indexStart = getPosition();
+        window.force();
+        window = null;
+        windowStart = indexStart;
+        try {
+            ByteBuffer index = ByteBuffer.allocate(gameCount * Long.BYTES + TRAILER_BYTES);
+            for (int i = 0; i < gameCount; i++) {
+                index.putLong(gameOffsets[i]);
+            }
+            index.putLong(indexStart).putInt(gameCount).putInt(MAGIC).flip();
+            long position = indexStart;
+            while (index.hasRemaining()) {
+                position += channel.write(index, position);
+            }
+            channel.truncate(position);
+        } finally {
+            channel.close();
+        }
+    }
+
+    /**
+     * Copies the buffered events into the window, mapping the windows that
+     * follow as they fill up.
+     *
+     * @throws IllegalStateException If the writer has been closed.
+     * @throws UncheckedIOException  If the next window cannot be mapped.
+     */
+    private void flush() {
+        if (window == null) {
+            throw new IllegalStateException("Event log is closed");
+        }
+        int copied = 0;
+        while (copied < buffered) {
+            if (!window.hasRemaining()) {
+                long position = windowStart + window.position();
+                try {
+                    window = channel.map(FileChannel.MapMode.READ_WRITE, position, windowBytes);
+                } catch (IOException e) {
+                    throw new UncheckedIOException("Cannot extend the event log", e);
+                }
+                windowStart = position;
+            }
+            int length = Math.min(buffered - copied, window.remaining());
+            window.put(buffer, copied, length);
+            copied += length;
+        }
+        buffered = 0;
+    }
+
+}
@@ -0,0 +1,165 @@
+package edu.guilford;
+
+/**
+ * The kinds of event a game reports to its GameRecorder. In an event log
+ * every event takes two bytes: the first holds the event ordinal in its high
+ * five bits and a seat in its low three bits, and the second holds an
+ * operand, usually a card code.
+ * <p>
+ * Seats are numbered as the games number them: in Blackjack seat 0 is the
+ * dealer and seat 1 the player, or seats 1 to 7 the players at a
+ * BlackjackTable, and in Lamarckian Poker seat 0 is the pool and seats 1 and
+ * 2 the players.
+ *
+ * @author Miguel A. Nunez Palomares
+ * @version 1.0
+ * @see GameRecorder, EventLogWriter, EventLogReader
+ */
+public enum GameEvent {
+    /**
+     * A new game or round begins; the operand is the Game ordinal.
+     */
+    GAME_START,
+    /**
+     * The shoe or deck was reshuffled.
+     */
+    RESHUFFLE,
+    /**
+     * A card was dealt from the deck to a seat.
+     */
+    DEAL,
+    /**
+     * A Blackjack hand drew a card.
+     */
+    HIT,
+    /**
+     * A Blackjack hand stood; the operand is its total.
+     */
+    STAND,
+    /**
+     * A Blackjack round ended; the operand is the Blackjack.Outcome ordinal.
+     */
+    OUTCOME,
+    /**
+     * A Lamarckian Poker player won the turn. Every turn records exactly one.
+     */
+    TURN_WIN,
+    /**
+     * A Lamarckian Poker player took a card from the pool.
+     */
+    TAKE,
+    /**
+     * A Lamarckian Poker player played a card into the pool.
+     */
+    PLAY,
+    /**
+     * The pool was moved to the discard pile, at the end of a turn or when
+     * the pool was filled again before the turn was played.
+     */
+    CLEAR_POOL,
+    /**
+     * The deck was reloaded from the discard pile.
+     */
+    RELOAD,
+    /**
+     * A Lamarckian Poker game ended; the operand is the winning seat, or 0
+     * for a tie.
+     */
+    GAME_END,
+    /**
+     * A Blackjack hand doubled its bet; the operand is the hand's index in
+     * the seat. The one card it draws follows as a HIT.
+     */
+    DOUBLE,
+    /**
+     * A Blackjack pair was split; the operand is the index of the new hand.
+     */
+    SPLIT,
+    /**
+     * The Blackjack player surrendered half the bet.
+     */
+    SURRENDER,
+    /**
+     * The Blackjack player insured against a dealer natural.
+     */
+    INSURANCE,
+    /**
+     * A Lamarckian Poker game was stopped because it kept returning to the
+     * same state; the operand is the number of visits to that state. The
+     * GAME_END follows.
+     */
+    CYCLE,
+    /**
+     * A Lamarckian Poker game was stopped at the turn limit before either
+     * hand was full; the operand is the limit, or 255 for a limit above it.
+     * The GAME_END follows.
+     */
+    CAPPED;
+
+    /**
+     * The games an event log can hold.
+     */
+    public enum Game {
+        BLACKJACK, LAMARCKIAN_POKER
+    }
+
+    /**
+     * The number of bytes one event takes in a log.
+     */
+    public static final int BYTES = 2;
+
+    /**
+     * The number of seats an event can name: the dealer and the seven
+     * players of a full BlackjackTable.
+     */
+    public static final int SEATS = 8;
+
+    /**
+     * The number of low bits of the event byte that hold the seat.
+     */
+    private static final int SEAT_BITS = 3;
+
+    /**
+     * Cached copy of the events, since values() clones its array.
+     */
+    private static final GameEvent[] EVENTS = values();
+
+    /**
+     * Encodes the first byte of an event.
+     *
+     * @param seat The seat, 0 to 7.
+     * @return The event byte.
+     * @throws IllegalArgumentException If the seat is out of range.
+     */
+    public byte encode(int seat) {
+        if (seat < 0 || seat >= SEATS) {
+            throw new IllegalArgumentException("Invalid seat: " + seat);
+        }
+        return (byte) (ordinal() << SEAT_BITS | seat);
+    }
+
+    /**
+     * Decodes the event from the first byte of an event.
+     *
+     * @param code The event byte.
+     * @return The event.
+     * @throws IllegalArgumentException If the byte is not a valid event.
+     */
+    public static GameEvent decode(byte code) {
+        int ordinal = (code & 0xFF) >>> SEAT_BITS;
+        if (ordinal >= EVENTS.length) {
+            throw new IllegalArgumentException("Invalid event byte: " + (code & 0xFF));
+        }
+        return EVENTS[ordinal];
+    }
+
+    /**
+     * Decodes the seat from the first byte of an event.
+     *
+     * @param code The event byte.
+     * @return The seat, 0 to 7.
+     */
+    public static int seatOf(byte code) {
+        return code & (SEATS - 1);
+    }
+}
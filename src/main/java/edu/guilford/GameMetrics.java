@@ -0,0 +1,308 @@
+package edu.guilford;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Process-wide counters of what the games are doing, published over JMX so
+ * that a long simulation can be watched from JConsole or any other JMX
+ * client while it runs.
+ * <p>
+ * The counters are LongAdders, so games on different threads update separate
+ * cells instead of fighting over one cache line. Metrics are off unless the
+ * program is started with {@code -Dcardgame.metrics=true}. The switch is read
+ * once into a static final field, so when it is off the JIT compiler removes
+ * the hooks from the games entirely and benchmarks measure the bare code.
+ * When it is on, the MBean is registered under {@value #OBJECT_NAME} as soon
+ * as the first game touches a counter.
+ * <p>
+ * The round and turn rates are measured by a single sampler thread, started
+ * with the registration, that reads the counters once a second. Reading an
+ * attribute only returns the last rate sampled, so any number of JMX clients
+ * see the same rates however often they poll.
+ *
+ * @author Miguel A. Nunez Palomares
+ * @version 1.0
+ * @see GameMetricsMBean
+ */
+public final class GameMetrics implements GameMetricsMBean {
+
+    /**
+     * The system property that turns metrics on.
+     */
+    public static final String PROPERTY = "cardgame.metrics";
+
+    /**
+     * Whether the counters are updated, fixed when the class is loaded.
+     */
+    public static final boolean ENABLED = Boolean.getBoolean(PROPERTY);
+
+    /**
+     * The name the MBean is registered under.
+     */
+    public static final String OBJECT_NAME = "edu.guilford:type=GameMetrics";
+
+    /**
+     * How often the sampler measures the rates, in milliseconds.
+     */
+    private static final long SAMPLE_MILLIS = 1000;
+
+    /**
+     * The counters.
+     */
+    private static final LongAdder ROUNDS = new LongAdder();
+    private static final LongAdder BUSTS = new LongAdder();
+    private static final LongAdder NATURALS = new LongAdder();
+    private static final LongAdder RESHUFFLES = new LongAdder();
+    private static final LongAdder SHUFFLES = new LongAdder();
+    private static final LongAdder CARDS_DEALT = new LongAdder();
+    private static final LongAdder TURNS = new LongAdder();
+    private static final LongAdder RELOADS = new LongAdder();
+
+    /**
+     * The only instance, which is the registered MBean.
+     */
+    private static final GameMetrics INSTANCE = new GameMetrics();
+
+    static {
+        if (ENABLED) {
+            register();
+        }
+    }
+
+    /**
+     * The round and turn counts and the time at the sampler's previous
+     * sample.
+     */
+    private long lastRounds;
+    private long lastTurns;
+    private long lastNanos = System.nanoTime();
+    /**
+     * The rates over the sampler's last interval.
+     */
+    private volatile double roundsPerSecond;
+    private volatile double turnsPerSecond;
+    /**
+     * The thread that samples the rates, or null until the MBean is
+     * registered.
+     */
+    private Thread sampler;
+
+    private GameMetrics() {
+    }
+
+    /**
+     * Gets the metrics of this process.
+     *
+     * @return The metrics.
+     */
+    public static GameMetrics get() {
+        return INSTANCE;
+    }
+
+    /**
+     * Registers the metrics with the platform MBean server and starts the
+     * sampler that measures the rates. Registering them again does nothing.
+     *
+     * @throws IllegalStateException If the MBean cannot be registered.
+     */
+    public static void register() {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            server.registerMBean(INSTANCE, new ObjectName(OBJECT_NAME));
+        } catch (InstanceAlreadyExistsException e) {
+            // Already registered
+        } catch (JMException e) {
+            throw new IllegalStateException("Cannot register " + OBJECT_NAME, e);
+        }
+        INSTANCE.startSampler();
+    }
+
+    /**
+     * Starts the sampler thread unless it is running. It is a daemon, so it
+     * does not keep the program alive.
+     */
+    private synchronized void startSampler() {
+        if (sampler != null) {
+            return;
+        }
+        sampler = new Thread(() -> {
+            try {
+                while (true) {
+                    Thread.sleep(SAMPLE_MILLIS);
+                    sample();
+                }
+            } catch (InterruptedException e) {
+                // Stop sampling
+            }
+        }, "game-metrics-sampler");
+        sampler.setDaemon(true);
+        sampler.start();
+    }
+
+    /**
+     * Measures the rates since the previous sample.
+     */
+    private synchronized void sample() {
+        long rounds = ROUNDS.sum();
+        long turns = TURNS.sum();
+        long now = System.nanoTime();
+        roundsPerSecond = perSecond(rounds - lastRounds, now - lastNanos);
+        turnsPerSecond = perSecond(turns - lastTurns, now - lastNanos);
+        lastRounds = rounds;
+        lastTurns = turns;
+        lastNanos = now;
+    }
+
+    // The hooks the games call. Each one tests ENABLED itself, so that a
+    // disabled hook is folded away wherever it is inlined.
+
+    static void roundDealt() {
+        if (ENABLED) {
+            ROUNDS.increment();
+        }
+    }
+
+    static void bust() {
+        if (ENABLED) {
+            BUSTS.increment();
+        }
+    }
+
+    static void natural() {
+        if (ENABLED) {
+            NATURALS.increment();
+        }
+    }
+
+    static void reshuffled() {
+        if (ENABLED) {
+            RESHUFFLES.increment();
+        }
+    }
+
+    static void shuffled() {
+        if (ENABLED) {
+            SHUFFLES.increment();
+        }
+    }
+
+    static void cardsDealt(int count) {
+        if (ENABLED) {
+            CARDS_DEALT.add(count);
+        }
+    }
+
+    static void turnPlayed() {
+        if (ENABLED) {
+            TURNS.increment();
+        }
+    }
+
+    static void deckReloaded() {
+        if (ENABLED) {
+            RELOADS.increment();
+        }
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return ENABLED;
+    }
+
+    @Override
+    public long getRoundsDealt() {
+        return ROUNDS.sum();
+    }
+
+    @Override
+    public long getBusts() {
+        return BUSTS.sum();
+    }
+
+    @Override
+    public long getNaturals() {
+        return NATURALS.sum();
+    }
+
+    @Override
+    public long getReshuffles() {
+        return RESHUFFLES.sum();
+    }
+
+    @Override
+    public long getShuffles() {
+        return SHUFFLES.sum();
+    }
+
+    @Override
+    public long getCardsDealt() {
+        return CARDS_DEALT.sum();
+    }
+
+    @Override
+    public long getTurns() {
+        return TURNS.sum();
+    }
+
+    @Override
+    public long getDeckReloads() {
+        return RELOADS.sum();
+    }
+
+    @Override
+    public double getRoundsPerSecond() {
+        return roundsPerSecond;
+    }
+
+    @Override
+    public double getTurnsPerSecond() {
+        return turnsPerSecond;
+    }
+
+    /**
+     * Sets every counter back to zero. Updates made while resetting may be
+     * lost, since a LongAdder cannot be reset atomically.
+     */
+    @Override
+    public synchronized void reset() {
+        for (LongAdder counter : new LongAdder[] { ROUNDS, BUSTS, NATURALS, RESHUFFLES, SHUFFLES, CARDS_DEALT,
+                TURNS, RELOADS }) {
+            counter.reset();
+        }
+        lastRounds = 0;
+        lastTurns = 0;
+        lastNanos = System.nanoTime();
+        roundsPerSecond = 0;
+        turnsPerSecond = 0;
+    }
+
+    /**
+     * Converts a count over an interval into a rate.
+     */
+    private static double perSecond(long count, long nanos) {
+        return nanos <= 0 ? 0 : count * 1e9 / nanos;
+    }
+
+    /**
+     * Returns the counters, one per line.
+     *
+     * @return The counters as a string.
+     */
+    @Override
+    public String toString() {
+        return "Rounds dealt: " + getRoundsDealt()
+                + "\nBusts: " + getBusts()
+                + "\nNaturals: " + getNaturals()
+                + "\nReshuffles: " + getReshuffles()
+                + "\nShuffles: " + getShuffles()
+                + "\nCards dealt: " + getCardsDealt()
+                + "\nTurns: " + getTurns()
+                + "\nDeck reloads: " + getDeckReloads();
+    }
+
+}
@@ -0,0 +1,104 @@
+package edu.guilford;
+
+/**
+ * The management interface of {@link GameMetrics}, through which JMX clients
+ * such as JConsole read the counters of a running simulation.
+ *
+ * @author Miguel A. Nunez Palomares
+ * @version 1.0
+ * @see GameMetrics
+ */
+public interface GameMetricsMBean {
+
+    /**
+     * Checks whether the counters are being updated.
+     *
+     * @return True if metrics were enabled when the program started.
+     */
+    boolean isEnabled();
+
+    /**
+     * Gets the number of Blackjack rounds dealt.
+     *
+     * @return The round count.
+     */
+    long getRoundsDealt();
+
+    /**
+     * Gets the number of Blackjack hands, player's or dealer's, that went
+     * over 21.
+     *
+     * @return The bust count.
+     */
+    long getBusts();
+
+    /**
+     * Gets the number of Blackjack hands, player's or dealer's, dealt as a
+     * natural 21.
+     *
+     * @return The natural count.
+     */
+    long getNaturals();
+
+    /**
+     * Gets the number of times a Blackjack shoe was reshuffled.
+     *
+     * @return The reshuffle count.
+     */
+    long getReshuffles();
+
+    /**
+     * Gets the number of times any deck was shuffled.
+     *
+     * @return The shuffle count.
+     */
+    long getShuffles();
+
+    /**
+     * Gets the number of cards dealt or picked from any deck. A deck reports
+     * the cards of a pass when it is reset, cleared or refilled, so the cards
+     * dealt since then are not counted yet.
+     *
+     * @return The dealt card count.
+     */
+    long getCardsDealt();
+
+    /**
+     * Gets the number of Lamarckian Poker turns played.
+     *
+     * @return The turn count.
+     */
+    long getTurns();
+
+    /**
+     * Gets the number of times a Lamarckian Poker deck was reloaded from its
+     * discard pile.
+     *
+     * @return The reload count.
+     */
+    long getDeckReloads();
+
+    /**
+     * Gets the number of Blackjack rounds dealt per second over the last
+     * second the sampler measured, or 0 before its first sample since the
+     * counters were created or reset. Reading it changes nothing.
+     *
+     * @return The round rate.
+     */
+    double getRoundsPerSecond();
+
+    /**
+     * Gets the number of Lamarckian Poker turns played per second over the
+     * last second the sampler measured, or 0 before its first sample since
+     * the counters were created or reset. Reading it changes nothing.
+     *
+     * @return The turn rate.
+     */
+    double getTurnsPerSecond();
+
+    /**
+     * Sets every counter back to zero and restarts the rates.
+     */
+    void reset();
+
+}
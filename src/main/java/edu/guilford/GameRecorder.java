@@ -0,0 +1,24 @@
+package edu.guilford;
+
+/**
+ * Receives the events of a game as it is played. Blackjack and
+ * LamarckianPoker report to a recorder only when one has been set, so games
+ * played without one pay for a single null check per event.
+ *
+ * @author Miguel A. Nunez Palomares
+ * @version 1.0
+ * @see GameEvent, EventLogWriter
+ */
+@FunctionalInterface
+public interface GameRecorder {
+
+    /**
+     * Records one event.
+     *
+     * @param event   The kind of event.
+     * @param seat    The seat the event concerns, 0 to 7.
+     * @param operand The event's operand, 0 to 255; usually a card code.
+     */
+    void record(GameEvent event, int seat, int operand);
+
+}
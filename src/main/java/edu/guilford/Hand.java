@@ -6,6 +6,10 @@ import java.util.ArrayList;
  * Represents a player's hand in a card game. This class provides methods
  * for adding and removing cards, calculating the hand's total value,
  * and resetting the hand.
+ * <p>
+ * The hand keeps a running hard total (every Ace counted as 1) and a count
+ * of its Aces, updated as cards come and go, so the total value and the
+ * soft and bust checks are constant-time reads.
  * 
  * @author Miguel A. Nunez Palomares
  * @version 1.0
@@ -18,6 +22,16 @@ public class Hand {
      */
     private ArrayList<Card> hand;
 
+    /**
+     * The total of the hand with every Ace counted as 1.
+     */
+    private int hardTotal;
+
+    /**
+     * The number of Aces in the hand.
+     */
+    private int aces;
+
     /**
      * Constructs an empty hand.
      */
@@ -25,6 +39,28 @@ public class Hand {
         hand = new ArrayList<Card>();
     }
 
+    /**
+     * Constructs an empty hand with room for the given number of cards, so
+     * that it never has to grow while holding fewer.
+     * 
+     * @param capacity The number of cards to make room for.
+     */
+    public Hand(int capacity) {
+        hand = new ArrayList<Card>(capacity);
+    }
+
+    /**
+     * Constructs an empty hand that keeps its cards in the given list. A
+     * subclass that stores its cards itself passes null, and must then
+     * override every method that reads the list: addCard, removeCard, reset,
+     * contains, size, getCard and getHand.
+     * 
+     * @param cards The empty list to keep the cards in, or null for none.
+     */
+    protected Hand(ArrayList<Card> cards) {
+        hand = cards;
+    }
+
     /**
      * Adds a card to the hand.
      * 
@@ -32,6 +68,7 @@ public class Hand {
      */
     public void addCard(Card card) {
         hand.add(card);
+        count(card, 1);
     }
 
     /**
@@ -40,7 +77,9 @@ public class Hand {
      * @param card The card to be removed.
      */
     public void removeCard(Card card) {
-        hand.remove(card);
+        if (hand.remove(card)) {
+            count(card, -1);
+        }
     }
 
     /**
@@ -48,6 +87,42 @@ public class Hand {
      */
     public void reset() {
         hand.clear();
+        clearCounts();
+    }
+
+    /**
+     * Checks whether the hand holds a card.
+     * 
+     * @param card The card to look for.
+     * @return True if the hand holds the card.
+     */
+    public boolean contains(Card card) {
+        return hand.contains(card);
+    }
+
+    /**
+     * Adds a card to, or takes it out of, the running totals. Subclasses that
+     * store their cards differently call this whenever a card comes or goes.
+     * 
+     * @param card The card being added or removed.
+     * @param sign 1 if the card is added, -1 if it is removed.
+     */
+    protected final void count(Card card, int sign) {
+        int value = card.getValue();
+        if (value == 11) {
+            aces += sign;
+            hardTotal += sign;
+        } else {
+            hardTotal += sign * value;
+        }
+    }
+
+    /**
+     * Clears the running totals, for a hand that has just been emptied.
+     */
+    protected final void clearCounts() {
+        hardTotal = 0;
+        aces = 0;
     }
 
     /**
@@ -122,25 +197,33 @@ public class Hand {
 
     /**
      * Calculates the total value of the hand based on card values.
-     * Aces are adjusted dynamically to fit the best possible hand value.
+     * Aces are adjusted dynamically to fit the best possible hand value:
+     * at most one Ace can count as 11, and it does whenever that does not
+     * take the hand over 21.
      * 
      * @return The total value of the hand.
      */
     public int getTotalValue() {
-        int value = 0;
-        int aces = 0;
-        for (Card card : hand) {
-            if (card.getRank() == Card.Rank.ACE) {
-                aces++;
-            } else {
-                value += card.getValue();
-            }
-        }
-        // Adjust for Aces
-        for (int i = 0; i < aces; i++) {
-            value += (value + 11 <= 21) ? 11 : 1;
-        }
-        return value;
+        return isSoft() ? hardTotal + 10 : hardTotal;
+    }
+
+    /**
+     * Checks whether the hand is soft, meaning one of its Aces is counted as
+     * 11 in the total value.
+     * 
+     * @return True if the hand is soft.
+     */
+    public boolean isSoft() {
+        return aces > 0 && hardTotal + 10 <= 21;
+    }
+
+    /**
+     * Checks whether the hand is bust, meaning its total value exceeds 21.
+     * 
+     * @return True if the hand is bust.
+     */
+    public boolean isBust() {
+        return hardTotal > 21;
     }
 
     // // Override toString method
@@ -159,8 +242,8 @@ public class Hand {
      */
     public String toString() {
         StringBuilder handString = new StringBuilder();
-        for (Card card : hand) {
-            handString.append(card.toString()).append("\n");
+        for (int i = 0; i < size(); i++) {
+            handString.append(getCard(i).toString()).append("\n");
         }
         return handString.toString();
     }
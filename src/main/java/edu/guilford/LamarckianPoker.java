@@ -1,7 +1,6 @@
 package edu.guilford;
 
-import java.util.ArrayList;
-import java.util.Random;
+import java.util.Arrays;
 
 /**
  * Represents a game of Lamarckian Poker, managing player hands, a pool of
@@ -11,10 +10,63 @@ import java.util.Random;
  * 
  * @author Alex
  * @version 1.0
- * @see Hand, Deck, Card, java.util.Random, java.util.ArrayList
+ * @see Hand, Deck, Card, RandomSource, java.util.ArrayList
  */
 
 public class LamarckianPoker {
+    /**
+     * The system property that turns on auditing.
+     */
+    public static final String AUDIT_PROPERTY = "cardgame.audit";
+    /**
+     * Whether every game checks after each turn that its 52 cards are all
+     * accounted for, fixed when the class is loaded. Off by default, so that
+     * the check costs nothing in production.
+     */
+    public static final boolean AUDIT = Boolean.getBoolean(AUDIT_PROPERTY);
+
+    /**
+     * The number of visits to one state after which a game is stopped as a
+     * cycle, unless changed with {@link #setCycleVisits(int)}.
+     */
+    public static final int DEFAULT_CYCLE_VISITS = 4;
+    /**
+     * The number of states the history has room for before it must grow.
+     */
+    private static final int HISTORY_CAPACITY = 1024;
+
+    /**
+     * The places a card can be, for the state hash. The pool and the players
+     * use their event seats.
+     */
+    private static final int POOL = 0;
+    private static final int DECK = 3;
+    private static final int DISCARD = 4;
+    private static final int LOCATIONS = 5;
+    /**
+     * The Zobrist key of each card in each place, drawn once from a fixed
+     * seed so that hashes are the same on every run.
+     */
+    private static final long[][] ZOBRIST_KEYS = new long[LOCATIONS][Card.CARD_COUNT];
+    /**
+     * The state hash of a game whose cards are all in the deck.
+     */
+    private static final long FULL_DECK_HASH;
+
+    static {
+        RandomSource keys = RandomSource.seeded(0x5EED_CA4DL);
+        long hash = 0;
+        for (int location = 0; location < LOCATIONS; location++) {
+            for (int code = 0; code < Card.CARD_COUNT; code++) {
+                ZOBRIST_KEYS[location][code] = keys.nextLong();
+            }
+        }
+        for (int code = 0; code < Card.CARD_COUNT; code++) {
+            hash ^= ZOBRIST_KEYS[DECK][code];
+        }
+        FULL_DECK_HASH = hash;
+    }
+
     /**
      * The initial size of each player's hand.
      */
@@ -31,39 +83,107 @@ public class LamarckianPoker {
     /**
      * The player's hand in the game.
      */
-    private Hand player1Hand;
+    private final BitsetHand player1Hand = new BitsetHand();
     /**
      * The opponent's hand in the game.
      */
-    private Hand player2Hand;
+    private final BitsetHand player2Hand = new BitsetHand();
     /**
      * The pool of cards in the game.
      */
-    private Hand pool;
+    private final BitsetHand pool;
     /**
      * The discard pile of cards.
      */
-    private Deck discard;
+    private final Deck discard;
     /**
      * The deck of cards used in the game.
      */
-    private Deck deck;
+    private final Deck deck;
 
     // private Random rand = new Random();
     /**
-     * Random number generator for creating random cards.
+     * Random source for shuffling and for choosing the cards played.
      */
-    private static final Random rand = new Random();
+    private final RandomSource rand;
     // private int iTurn;
     /**
      * The current turn number.
      */
     private int turnNumber;
+    /**
+     * The number of turns won by each player.
+     */
+    private int player1TurnWins;
+    private int player2TurnWins;
+    /**
+     * The number of times the deck has been reloaded from the discard pile.
+     */
+    private int deckReloads;
+    /**
+     * The card each player chose in the current turn.
+     */
+    private Card player1Card;
+    private Card player2Card;
+    /**
+     * The recorder the game reports its events to, or null.
+     */
+    private GameRecorder recorder;
+    /**
+     * How many times each card code was found by the last audit, allocated
+     * by the first one.
+     */
+    private int[] auditCounts;
+    /**
+     * The Zobrist hash of where every card is, updated with every move.
+     */
+    private long stateHash;
+    /**
+     * The change to the state hash that moving the discard pile into the
+     * deck would make, kept up to date as cards are discarded so that a
+     * reload updates the hash in one step.
+     */
+    private long reloadDelta;
+    /**
+     * The states seen since the game started, at the end of each turn.
+     */
+    private final StateHistory history = new StateHistory(HISTORY_CAPACITY);
+    /**
+     * The number of visits to one state that stops the game, or 0 to never
+     * stop it.
+     */
+    private int cycleVisits = DEFAULT_CYCLE_VISITS;
+    /**
+     * Whether the game was stopped because its state repeated.
+     */
+    private boolean cycleDetected;
+    /**
+     * Whether the game was stopped at the turn limit of {@link #play(int)}.
+     */
+    private boolean capped;
+    /**
+     * Whether the game is over and its GAME_END has been recorded.
+     */
+    private boolean finished;
 
     /**
      * Constructs a new game of Lamarckian Poker and initializes the deck.
      */
     public LamarckianPoker() {
+        this(RandomSource.create());
+    }
+
+    /**
+     * Constructs a new game of Lamarckian Poker that draws all its randomness
+     * from the given source, so that a seeded source replays the same game.
+     * 
+     * @param rand The random source for the game
+     */
+    public LamarckianPoker(RandomSource rand) {
+        this.rand = rand;
+        this.pool = new BitsetHand();
+        this.deck = new Deck(rand);
+        this.discard = new Deck(0, rand);
         reset(true);
     }
 
@@ -95,20 +215,166 @@ public class LamarckianPoker {
     }
 
     /**
-     * Resets the game state, optionally creating a new deck.
+     * Gets the number of turns played so far.
+     * 
+     * @return The turn number
+     */
+    public int getTurnNumber() {
+        return turnNumber;
+    }
+
+    /**
+     * Gets the number of turns won by a player.
+     * 
+     * @param player The player, 1 or 2
+     * @return The number of turns the player has won
+     */
+    public int getTurnWins(int player) {
+        return player == 1 ? player1TurnWins : player2TurnWins;
+    }
+
+    /**
+     * Gets the number of times the deck has been reloaded from the discard
+     * pile.
+     * 
+     * @return The number of deck reloads
+     */
+    public int getDeckReloads() {
+        return deckReloads;
+    }
+
+    /**
+     * Gets the poker strength of a player's hand, scored by its best five
+     * cards.
+     *
+     * @param player The player, 1 or 2
+     * @return The hand strength; see PokerEvaluator
+     */
+    public int getHandStrength(int player) {
+        return PokerEvaluator.evaluate(player == 1 ? player1Hand.getMask() : player2Hand.getMask());
+    }
+
+    /**
+     * Declares the winner of the game by comparing the players' best poker
+     * hands.
+     *
+     * @return The winning player, 1 or 2, or 0 if the hands tie
+     */
+    public int determineGameWinner() {
+        int comparison = Integer.compare(getHandStrength(1), getHandStrength(2));
+        return comparison > 0 ? 1 : comparison < 0 ? 2 : 0;
+    }
+
+    /**
+     * Gets the Zobrist hash of the game's state: which cards are in each
+     * player's hand, the pool, the deck and the discard pile. The order of
+     * the deck is left out, since every reload shuffles it. The hash is
+     * updated in constant time as each card moves, so it is always current,
+     * and equal states have equal hashes, which makes it a transposition key
+     * for searching the game.
+     * 
+     * @return The state hash
+     */
+    public long getStateHash() {
+        return stateHash;
+    }
+
+    /**
+     * Gets the number of visits to one state that stops the game.
+     * 
+     * @return The cycle limit, or 0 if games are never stopped
+     */
+    public int getCycleVisits() {
+        return cycleVisits;
+    }
+
+    /**
+     * Sets the number of visits to one state, counted at the end of each
+     * turn, that stops the game as a cycle. Since every reload reshuffles the
+     * deck, a state that comes back is not a certain loop; but a game that
+     * keeps coming back to the same state is making no progress. A limit of
+     * 2 stops a game at its first repeat, which about one game in 700
+     * reaches before finishing, and no game in a million reaches the default.
+     * 
+     * @param cycleVisits The cycle limit, at least 2, or 0 to never stop
+     * @throws IllegalArgumentException If the limit is 1 or negative
+     */
+    public void setCycleVisits(int cycleVisits) {
+        if (cycleVisits < 0 || cycleVisits == 1) {
+            throw new IllegalArgumentException("Invalid cycle limit: " + cycleVisits);
+        }
+        this.cycleVisits = cycleVisits;
+    }
+
+    /**
+     * Checks whether the game was stopped because its state repeated,
+     * rather than finished with both hands full.
+     * 
+     * @return True if the game ended in a cycle
+     */
+    public boolean isCycleDetected() {
+        return cycleDetected;
+    }
+
+    /**
+     * Checks whether the game was stopped at the turn limit of
+     * {@link #play(int)} before either hand was full.
      * 
-     * @param newDeck Whether to create a new shuffled deck
+     * @return True if the game was capped
+     */
+    public boolean isCapped() {
+        return capped;
+    }
+
+    /**
+     * Gets the recorder the game reports its events to.
+     * 
+     * @return The recorder, or null if events are not recorded
+     */
+    public GameRecorder getRecorder() {
+        return recorder;
+    }
+
+    /**
+     * Sets the recorder the game reports its events to. A recorded game starts
+     * at the next deal: seat 0 is the pool and seats 1 and 2 the players.
+     * 
+     * @param recorder The recorder, or null to stop recording
+     */
+    public void setRecorder(GameRecorder recorder) {
+        this.recorder = recorder;
+    }
+
+    /**
+     * Resets the game state, optionally starting over with a full shuffled
+     * deck. The deck, the discard pile and the hands are refilled or cleared
+     * in place, so a game can be reset and replayed without allocating; reset
+     * with a freshly seeded random source, it plays the same game as a new
+     * one built on that source.
+     * 
+     * @param newDeck Whether to start over with a full shuffled deck
      */
     public void reset(boolean newDeck) {
         if (newDeck) {
-            deck = new Deck();
-            discard = new Deck();
+            deck.clear();
+            deck.build();
             discard.clear();
+            player1Hand.reset();
+            player2Hand.reset();
+            pool.reset();
             deck.shuffle();
+            stateHash = FULL_DECK_HASH;
+            reloadDelta = 0;
         }
         // iTurn = 0;
         turnNumber = 0;
+        player1TurnWins = 0;
+        player2TurnWins = 0;
+        deckReloads = 0;
         deal(); // Ensures players get cards at reset
+        if (AUDIT) {
+            audit();
+        }
     }
 
     // public void deal() {
@@ -121,16 +387,74 @@ public class LamarckianPoker {
     // }
 
     /**
-     * Deals initial hands to players.
+     * Deals initial hands to players. Any cards still held in the hands or
+     * the pool go to the discard pile first, so that none are lost. The
+     * state history starts over from the hands dealt.
      */
     public void deal() {
-        player1Hand = new Hand();
-        player2Hand = new Hand();
+        record(GameEvent.GAME_START, 0, GameEvent.Game.LAMARCKIAN_POKER.ordinal());
+        discardAll(player1Hand, 1);
+        discardAll(player2Hand, 2);
+        discardAll(pool, POOL);
         for (int i = 0; i < HAND_INITIAL_SIZE; i++) {
             if (!deck.isEmpty())
-                player1Hand.addCard(deck.deal());
+                dealTo(player1Hand, 1);
             if (!deck.isEmpty())
-                player2Hand.addCard(deck.deal());
+                dealTo(player2Hand, 2);
+        }
+        cycleDetected = false;
+        capped = false;
+        finished = false;
+        history.clear();
+        history.visit(stateHash);
+    }
+
+    /**
+     * Moves every card of a hand to the discard pile.
+     * 
+     * @param hand     The hand to empty
+     * @param location The hand's seat: 0 for the pool, or the player
+     */
+    private void discardAll(Hand hand, int location) {
+        for (int i = 0; i < hand.size(); i++) {
+            Card card = hand.getCard(i);
+            discard.add(card);
+            moved(card.getCode(), location, DISCARD);
+            reloadDelta ^= ZOBRIST_KEYS[DISCARD][card.getCode()] ^ ZOBRIST_KEYS[DECK][card.getCode()];
+        }
+        hand.reset();
+    }
+
+    /**
+     * Updates the state hash for a card that has moved.
+     * 
+     * @param code The card's code
+     * @param from The place the card left
+     * @param to   The place the card went
+     */
+    private void moved(int code, int from, int to) {
+        stateHash ^= ZOBRIST_KEYS[from][code] ^ ZOBRIST_KEYS[to][code];
+    }
+
+    /**
+     * Deals one card from the deck into a hand and reports it.
+     * 
+     * @param hand The hand receiving the card
+     * @param seat The hand's seat: 0 for the pool, or the player
+     */
+    private void dealTo(Hand hand, int seat) {
+        Card card = deck.deal();
+        hand.addCard(card);
+        moved(card.getCode(), DECK, seat);
+        record(GameEvent.DEAL, seat, card.getCode());
+    }
+
+    /**
+     * Reports an event to the recorder, if there is one.
+     */
+    private void record(GameEvent event, int seat, int operand) {
+        if (recorder != null) {
+            recorder.record(event, seat, operand);
         }
     }
 
@@ -143,13 +467,19 @@ public class LamarckianPoker {
     // }
 
     /**
-     * Creates a pool of cards from the deck.
+     * Fills the pool with cards from the deck, reusing the pool's hand. A turn
+     * always starts with an empty pool; if the pool still holds cards, as when
+     * this is called twice, they go to the discard pile first, like at the end
+     * of a turn, so that none are lost.
      */
     public void makePool() {
-        pool = new Hand();
+        if (pool.size() > 0) {
+            discardAll(pool, POOL);
+            record(GameEvent.CLEAR_POOL, 0, 0);
+        }
         for (int i = 0; i < POOL_SIZE; i++) {
             if (!deck.isEmpty())
-                pool.addCard(deck.deal());
+                dealTo(pool, 0);
         }
     }
 
@@ -238,25 +568,90 @@ public class LamarckianPoker {
 
     /**
      * Executes a turn in the game, determining a winner and redistributing cards.
+     * Once the hands have grown to their working size a turn allocates
+     * nothing: the pool is reused, the winner is a seat number and pool cards
+     * are matched on their card codes. After the turn the state's hash is
+     * counted in the game's history, and the game ends as a cycle once a
+     * state has been visited {@link #getCycleVisits()} times. The game's end
+     * is recorded once, by the call that finds it over; later calls only
+     * return false.
      * 
      * @return True if the turn was successfully played, false if the game should
      *         end
      */
     public boolean turn() {
-        if (player1Hand.size() < HAND_MAX_SIZE || player2Hand.size() < HAND_MAX_SIZE) {
+        if (!finished && (player1Hand.size() < HAND_MAX_SIZE || player2Hand.size() < HAND_MAX_SIZE)) {
             makePool();
             ensureHandsHaveCards(); // Ensures hands are not empty before determining winner
-            WinnerInfo winnerInfo = determineWinner();
-            transferPoolCards(winnerInfo.winner, winnerInfo.winnerCard);
-            pool.addCard(winnerInfo.winnerCard);
-            winnerInfo.winner.removeCard(winnerInfo.winnerCard);
-            transferPoolCards(winnerInfo.loser, winnerInfo.loserCard);
-            pool.addCard(winnerInfo.loserCard);
-            winnerInfo.loser.removeCard(winnerInfo.loserCard);
+            int winner = determineWinner();
+            playCard(winner);
+            playCard(3 - winner);
             handleDiscardAndDeckReload();
             turnNumber++;
+            GameMetrics.turnPlayed();
+            if (AUDIT) {
+                audit();
+            }
+            if (cycleVisits > 0 && history.visit(stateHash) >= cycleVisits) {
+                cycleDetected = true;
+                record(GameEvent.CYCLE, 0, Math.min(cycleVisits, 0xFF));
+                finish();
+                return false;
+            }
             return true;
         }
+        finish();
+        return false;
+    }
+
+    /**
+     * Ends the game, recording its winner unless it has already ended.
+     */
+    private void finish() {
+        if (!finished) {
+            finished = true;
+            record(GameEvent.GAME_END, 0, determineGameWinner());
+        }
+    }
+
+    /**
+     * Plays a player's chosen card: the player takes every pool card that
+     * matches it in rank or suit, and the card itself goes into the pool.
+     * 
+     * @param player The player, 1 or 2
+     */
+    private void playCard(int player) {
+        Hand hand = player == 1 ? player1Hand : player2Hand;
+        Card played = player == 1 ? player1Card : player2Card;
+        transferPoolCards(hand, player, played.getCode());
+        pool.addCard(played);
+        hand.removeCard(played);
+        moved(played.getCode(), player, POOL);
+        record(GameEvent.PLAY, player, played.getCode());
+    }
+
+    /**
+     * Plays turns until the game is over or the turn limit is reached, so
+     * that a game that never fills both hands cannot run forever. A game
+     * stopped by a cycle counts as finished; see {@link #isCycleDetected()}.
+     * A game stopped at the limit is over too: it is recorded as CAPPED, then
+     * ends with the winner of the hands as they stand, and
+     * {@link #isCapped()} is true.
+     * 
+     * @param maxTurns The turn number at which to stop
+     * @return True if the game finished, false if it was stopped at the limit
+     */
+    public boolean play(int maxTurns) {
+        while (turnNumber < maxTurns) {
+            if (!turn()) {
+                return true;
+            }
+        }
+        if (!finished) {
+            capped = true;
+            record(GameEvent.CAPPED, 0, Math.min(maxTurns, 0xFF));
+            finish();
+        }
         return false;
     }
 
@@ -265,58 +660,80 @@ public class LamarckianPoker {
      * discard pile if needed.
      */
     private void ensureHandsHaveCards() {
-        if (player1Hand.size() == 0) {
-            if (!deck.isEmpty())
-                player1Hand.addCard(deck.deal());
-            else if (!discard.isEmpty())
-                reloadDeckFromDiscard();
+        ensureHandHasCard(player1Hand, 1);
+        ensureHandHasCard(player2Hand, 2);
+    }
+
+    /**
+     * Gives an empty hand one card: from the deck, reloading it from the
+     * discard pile if needed, or else from the pool when the other player is
+     * holding every other card.
+     * 
+     * @param hand   The hand to check
+     * @param player The hand's player, 1 or 2
+     */
+    private void ensureHandHasCard(Hand hand, int player) {
+        if (hand.size() > 0) {
+            return;
         }
-        if (player2Hand.size() == 0) {
-            if (!deck.isEmpty())
-                player2Hand.addCard(deck.deal());
-            else if (!discard.isEmpty())
-                reloadDeckFromDiscard();
+        if (deck.isEmpty() && !discard.isEmpty()) {
+            reloadDeckFromDiscard();
+        }
+        if (!deck.isEmpty()) {
+            dealTo(hand, player);
+        } else if (pool.size() > 0) {
+            Card poolCard = pool.getCard(pool.size() - 1);
+            pool.removeCard(poolCard);
+            hand.addCard(poolCard);
+            moved(poolCard.getCode(), POOL, player);
+            record(GameEvent.TAKE, player, poolCard.getCode());
         }
     }
 
     /**
-     * Determines the winner of a round based on the highest ranked card.
+     * Determines the winner of a round based on the highest ranked card, with
+     * ties broken by suit. The card each player chose is left in
+     * player1Card and player2Card.
      * 
-     * @return A WinnerInfo object containing the winner and loser hands and cards
+     * @return The winning player, 1 or 2
      */
-    private WinnerInfo determineWinner() {
+    private int determineWinner() {
         ensureHandsHaveCards(); // Ensures hands are not empty before determining winner
 
-        Card player1Card = player1Hand.getCard(rand.nextInt(player1Hand.size()));
-        Card player2Card = player2Hand.getCard(rand.nextInt(player2Hand.size()));
-
-        if (player1Card.getRank().ordinal() > player2Card.getRank().ordinal()) {
-            return new WinnerInfo(player1Hand, player2Hand, player1Card, player2Card);
-        } else if (player1Card.getRank().ordinal() < player2Card.getRank().ordinal()) {
-            return new WinnerInfo(player2Hand, player1Hand, player2Card, player1Card);
-        } else {
-            return (player1Card.getSuit().ordinal() > player2Card.getSuit().ordinal())
-                    ? new WinnerInfo(player1Hand, player2Hand, player1Card, player2Card)
-                    : new WinnerInfo(player2Hand, player1Hand, player2Card, player1Card);
+        player1Card = player1Hand.getCard(rand.nextInt(player1Hand.size()));
+        player2Card = player2Hand.getCard(rand.nextInt(player2Hand.size()));
+        int code1 = player1Card.getCode();
+        int code2 = player2Card.getCode();
+
+        int rankComparison = Integer.compare(Card.rankOf(code1), Card.rankOf(code2));
+        if (rankComparison > 0 || (rankComparison == 0 && Card.suitOf(code1) > Card.suitOf(code2))) {
+            player1TurnWins++;
+            record(GameEvent.TURN_WIN, 1, 0);
+            return 1;
         }
+        player2TurnWins++;
+        record(GameEvent.TURN_WIN, 2, 0);
+        return 2;
     }
 
     /**
-     * Transfers matching pool cards to the winner's hand.
+     * Transfers matching pool cards to the winner's hand. The matching cards
+     * are found with a single mask operation and moved in card-code order.
      * 
      * @param recipient    The winning hand
-     * @param matchingCard The card used to determine matching cards
-     */
-    private void transferPoolCards(Hand recipient, Card matchingCard) {
-        ArrayList<Card> toRemove = new ArrayList<>();
-        for (Card poolCard : pool.getHand()) {
-            if (poolCard.getRank().ordinal() == matchingCard.getRank().ordinal() ||
-                    poolCard.getSuit().ordinal() == matchingCard.getSuit().ordinal()) {
-                recipient.addCard(poolCard);
-                toRemove.add(poolCard);
-            }
+     * @param player       The recipient's player, 1 or 2
+     * @param matchingCode The code of the card used to determine matching cards
+     */
+    private void transferPoolCards(Hand recipient, int player, int matchingCode) {
+        long matches = pool.matching(matchingCode);
+        while (matches != 0) {
+            Card poolCard = Card.fromCode(Long.numberOfTrailingZeros(matches));
+            matches &= matches - 1;
+            recipient.addCard(poolCard);
+            pool.removeCard(poolCard);
+            moved(poolCard.getCode(), POOL, player);
+            record(GameEvent.TAKE, player, poolCard.getCode());
         }
-        pool.getHand().removeAll(toRemove);
     }
 
     /**
@@ -324,8 +741,8 @@ public class LamarckianPoker {
      * necessary.
      */
     private void handleDiscardAndDeckReload() {
-        discard.getDeck().addAll(pool.getHand());
-        pool.getHand().clear();
+        discardAll(pool, POOL);
+        record(GameEvent.CLEAR_POOL, 0, 0);
 
         if (deck.size() < POOL_SIZE) {
             reloadDeckFromDiscard();
@@ -336,36 +753,95 @@ public class LamarckianPoker {
      * Reloads the deck from the discard pile and shuffles it.
      */
     private void reloadDeckFromDiscard() {
-        deck.getDeck().addAll(discard.getDeck());
+        deckReloads++;
+        GameMetrics.deckReloaded();
+        record(GameEvent.RELOAD, 0, 0);
+        deck.addAll(discard);
         discard.clear();
         deck.shuffle();
+        stateHash ^= reloadDelta;
+        reloadDelta = 0;
     }
 
     /**
-     * Returns a string representation of the game state, including player hands and
-     * the pool.
+     * Checks that the game's cards are conserved: every one of the 52 cards
+     * is in exactly one place, whether the deck, the discard pile, the pool
+     * or a player's hand, and neither the deck nor the discard pile has grown
+     * past one deck's worth of room. Conservation is what keeps a game of
+     * any length within bounded memory, since no pile can outgrow the 52
+     * cards. Games check it after every turn when {@link #AUDIT} is on, and
+     * it can be called at any time between turns.
+     * 
+     * @throws IllegalStateException If a card is missing or duplicated, or a
+     *                               pile has grown.
      */
-    @Override
-    public String toString() {
-        return "\nPlayer 1: \n" + player1Hand + "\nPlayer 2: \n" + player2Hand + "\nPool: " + pool + "\n";
+    public void audit() {
+        if (auditCounts == null) {
+            auditCounts = new int[Card.CARD_COUNT];
+        }
+        int[] counts = auditCounts;
+        Arrays.fill(counts, 0);
+        deck.countCodes(counts);
+        long deckMask = 0;
+        for (int code = 0; code < Card.CARD_COUNT; code++) {
+            if (counts[code] > 0) {
+                deckMask |= 1L << code;
+            }
+        }
+        discard.countCodes(counts);
+        // A card counted beyond its deck copy is in the discard pile
+        long expectedHash = 0;
+        for (int code = 0; code < Card.CARD_COUNT; code++) {
+            int inDeck = (int) (deckMask >>> code & 1);
+            if (inDeck != 0) {
+                expectedHash ^= ZOBRIST_KEYS[DECK][code];
+            }
+            if (counts[code] > inDeck) {
+                expectedHash ^= ZOBRIST_KEYS[DISCARD][code];
+            }
+        }
+        expectedHash ^= countCodes(pool, POOL, counts) ^ countCodes(player1Hand, 1, counts)
+                ^ countCodes(player2Hand, 2, counts);
+        for (int code = 0; code < Card.CARD_COUNT; code++) {
+            if (counts[code] != 1) {
+                throw new IllegalStateException("Turn " + turnNumber + ": " + Card.fromCode(code) + " found "
+                        + counts[code] + " times");
+            }
+        }
+        if (expectedHash != stateHash) {
+            throw new IllegalStateException("Turn " + turnNumber + ": state hash " + Long.toHexString(stateHash)
+                    + " should be " + Long.toHexString(expectedHash));
+        }
+        if (deck.capacity() > Card.CARD_COUNT || discard.capacity() > Card.CARD_COUNT) {
+            throw new IllegalStateException("Turn " + turnNumber + ": deck or discard pile grew to "
+                    + Math.max(deck.capacity(), discard.capacity()) + " cards");
+        }
     }
 
     /**
-     * Represents the winner and loser of a round, along with the winning and losing
-     * cards.
+     * Adds the cards of a hand to a count per card code.
+     * 
+     * @return The hash of the hand's cards in their place
      */
-    private static class WinnerInfo {
-        Hand winner;
-        Hand loser;
-        Card winnerCard;
-        Card loserCard;
-
-        WinnerInfo(Hand winner, Hand loser, Card winnerCard, Card loserCard) {
-            this.winner = winner;
-            this.loser = loser;
-            this.winnerCard = winnerCard;
-            this.loserCard = loserCard;
+    private static long countCodes(BitsetHand hand, int location, int[] counts) {
+        long hash = 0;
+        long mask = hand.getMask();
+        while (mask != 0) {
+            int code = Long.numberOfTrailingZeros(mask);
+            counts[code]++;
+            hash ^= ZOBRIST_KEYS[location][code];
+            mask &= mask - 1;
         }
+        return hash;
+    }
+
+    /**
+     * Returns a string representation of the game state, including player hands and
+     * the pool.
+     */
+    @Override
+    public String toString() {
+        return "\nPlayer 1: \n" + player1Hand + "\nPlayer 2: \n" + player2Hand + "\nPool: " + pool + "\n";
     }
 
 }
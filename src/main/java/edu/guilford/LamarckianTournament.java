@@ -0,0 +1,223 @@
+package edu.guilford;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Plays a batch of independent Lamarckian Poker games in parallel on a
+ * ForkJoinPool and collects their statistics. Every game is played on its own
+ * LamarckianPoker instance whose random number generator is seeded from the
+ * master seed and the game's index, so a batch is exactly repeatable
+ * whatever the number of workers. Each game is capped at a number of turns
+ * so that a game that never ends cannot stall a worker.
+ *
+ * @author Miguel A. Nunez Palomares
+ * @version 1.0
+ * @see LamarckianPoker, TournamentStats
+ */
+public class LamarckianTournament implements AutoCloseable {
+
+    /**
+     * The number of tasks handed to each worker, so that a slow worker can be
+     * helped out by the others.
+     */
+    private static final int CHUNKS_PER_WORKER = 4;
+
+    /**
+     * The pool that plays the games.
+     */
+    private final ForkJoinPool pool;
+    /**
+     * Whether this runner created the pool and must shut it down.
+     */
+    private final boolean ownsPool;
+    /**
+     * The number of workers the games are divided between.
+     */
+    private final int workers;
+    /**
+     * The master seed every game seed is derived from.
+     */
+    private final long seed;
+    /**
+     * The number of visits to one state that stops a game as a cycle.
+     */
+    private int cycleVisits = LamarckianPoker.DEFAULT_CYCLE_VISITS;
+
+    /**
+     * Constructs a runner with its own pool of the given number of workers.
+     *
+     * @param workers The number of worker threads.
+     * @param seed    The master seed.
+     * @throws IllegalArgumentException If workers is not positive.
+     */
+    public LamarckianTournament(int workers, long seed) {
+        if (workers < 1) {
+            throw new IllegalArgumentException("Invalid worker count: " + workers);
+        }
+        this.pool = new ForkJoinPool(workers);
+        this.ownsPool = true;
+        this.workers = workers;
+        this.seed = seed;
+    }
+
+    /**
+     * Constructs a runner that plays on an existing pool.
+     *
+     * @param pool The pool to run on; it is not shut down by {@link #close()}.
+     * @param seed The master seed.
+     */
+    public LamarckianTournament(ForkJoinPool pool, long seed) {
+        this.pool = pool;
+        this.ownsPool = false;
+        this.workers = pool.getParallelism();
+        this.seed = seed;
+    }
+
+    /**
+     * Sets the number of visits to one state that stops a game as a cycle,
+     * for the games played from now on.
+     *
+     * @param cycleVisits The cycle limit, at least 2, or 0 to never stop.
+     * @throws IllegalArgumentException If the limit is 1 or negative.
+     * @see LamarckianPoker#setCycleVisits(int)
+     */
+    public void setCycleVisits(int cycleVisits) {
+        if (cycleVisits < 0 || cycleVisits == 1) {
+            throw new IllegalArgumentException("Invalid cycle limit: " + cycleVisits);
+        }
+        this.cycleVisits = cycleVisits;
+    }
+
+    /**
+     * Plays the given number of games, each limited to the given number of
+     * turns, and returns their merged statistics with the throughput.
+     *
+     * @param games    The number of games to play.
+     * @param maxTurns The turn limit of each game.
+     * @return The statistics of all games.
+     * @throws IllegalArgumentException If games is negative or maxTurns is not
+     *                                  positive.
+     */
+    public TournamentStats run(long games, int maxTurns) {
+        if (games < 0) {
+            throw new IllegalArgumentException("Invalid game count: " + games);
+        }
+        if (maxTurns < 1) {
+            throw new IllegalArgumentException("Invalid turn limit: " + maxTurns);
+        }
+        long start = System.nanoTime();
+        TournamentStats stats = runRange(0, games, maxTurns);
+        stats.setElapsedNanos(System.nanoTime() - start);
+        return stats;
+    }
+
+    /**
+     * Plays batches of games until the time budget is spent. The budget is
+     * checked between batches, so the last batch may overrun it; each batch
+     * continues with the game indices after the previous one.
+     *
+     * @param nanos      The time budget in nanoseconds.
+     * @param maxTurns   The turn limit of each game.
+     * @param batchGames The number of games played between checks.
+     * @return The statistics of all games played.
+     * @throws IllegalArgumentException If maxTurns or batchGames is not
+     *                                  positive.
+     */
+    public TournamentStats runFor(long nanos, int maxTurns, long batchGames) {
+        if (maxTurns < 1) {
+            throw new IllegalArgumentException("Invalid turn limit: " + maxTurns);
+        }
+        if (batchGames < 1) {
+            throw new IllegalArgumentException("Invalid batch size: " + batchGames);
+        }
+        long start = System.nanoTime();
+        TournamentStats stats = new TournamentStats(maxTurns);
+        for (long from = 0; System.nanoTime() - start < nanos; from += batchGames) {
+            stats.merge(runRange(from, from + batchGames, maxTurns));
+        }
+        stats.setElapsedNanos(System.nanoTime() - start);
+        return stats;
+    }
+
+    /**
+     * Plays a range of games on the pool.
+     *
+     * @param from     The index of the first game.
+     * @param to       One past the index of the last game.
+     * @param maxTurns The turn limit of each game.
+     * @return The statistics of the games.
+     */
+    private TournamentStats runRange(long from, long to, int maxTurns) {
+        long grain = Math.max(1, (to - from) / ((long) workers * CHUNKS_PER_WORKER));
+        return pool.invoke(new GameTask(from, to, grain, maxTurns));
+    }
+
+    /**
+     * Shuts down the pool if this runner created it.
+     */
+    @Override
+    public void close() {
+        if (ownsPool) {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Plays a range of games one after the other.
+     *
+     * @param from     The index of the first game.
+     * @param to       One past the index of the last game.
+     * @param maxTurns The turn limit of each game.
+     * @return The statistics of the games.
+     */
+    private TournamentStats playGames(long from, long to, int maxTurns) {
+        TournamentStats stats = new TournamentStats(maxTurns);
+        // One game and one generator are reseeded for every game in the range
+        XoshiroRandomSource rand = new XoshiroRandomSource(RandomSource.streamSeed(seed, from));
+        LamarckianPoker poker = new LamarckianPoker(rand);
+        poker.setCycleVisits(cycleVisits);
+        for (long game = from; game < to; game++) {
+            if (game > from) {
+                rand.setSeed(RandomSource.streamSeed(seed, game));
+                poker.reset(true);
+            }
+            boolean finished = poker.play(maxTurns);
+            stats.record(poker, finished);
+        }
+        return stats;
+    }
+
+    /**
+     * Splits a range of game indices in half until it is small enough, then
+     * plays it and merges the statistics on the way back up.
+     */
+    private class GameTask extends RecursiveTask<TournamentStats> {
+        private static final long serialVersionUID = 1L;
+
+        private final long from;
+        private final long to;
+        private final long grain;
+        private final int maxTurns;
+
+        GameTask(long from, long to, long grain, int maxTurns) {
+            this.from = from;
+            this.to = to;
+            this.grain = grain;
+            this.maxTurns = maxTurns;
+        }
+
+        @Override
+        protected TournamentStats compute() {
+            if (to - from <= grain) {
+                return playGames(from, to, maxTurns);
+            }
+            long mid = (from + to) >>> 1;
+            GameTask left = new GameTask(from, mid, grain, maxTurns);
+            left.fork();
+            TournamentStats right = new GameTask(mid, to, grain, maxTurns).compute();
+            return left.join().merge(right);
+        }
+    }
+
+}
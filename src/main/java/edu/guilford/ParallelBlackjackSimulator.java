@@ -0,0 +1,434 @@
+package edu.guilford;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Plays a large number of Blackjack rounds in parallel on a ForkJoinPool.
+ * The requested rounds are cut into a fixed number of chunks, and every chunk
+ * is played on its own Blackjack game with its own random number generator.
+ * The seed of each chunk is derived only from the master seed and the chunk
+ * index, so for a given seed and worker count the merged tallies are the same
+ * on every run no matter how the pool schedules the chunks.
+ * <p>
+ * With more than one seat, every chunk is played at a BlackjackTable instead,
+ * and each seat's result counts as one round.
+ *
+ * @author Miguel A. Nunez Palomares
+ * @version 1.0
+ * @see Blackjack, BlackjackTable, SimulationStats, java.util.concurrent.ForkJoinPool
+ */
+public class ParallelBlackjackSimulator implements AutoCloseable {
+
+    /**
+     * The number of chunks handed to each worker, so that a slow worker can be
+     * helped out by the others.
+     */
+    private static final int CHUNKS_PER_WORKER = 4;
+
+    /**
+     * The pool that plays the chunks.
+     */
+    private final ForkJoinPool pool;
+    /**
+     * Whether this simulator created the pool and must shut it down.
+     */
+    private final boolean ownsPool;
+    /**
+     * The number of workers the rounds are divided between.
+     */
+    private final int workers;
+    /**
+     * The master seed every chunk seed is derived from.
+     */
+    private final long seed;
+    /**
+     * The number of decks in each worker's shoe.
+     */
+    private int decks = 1;
+    /**
+     * The penetration of each worker's shoe.
+     */
+    private double penetration = Blackjack.DEFAULT_PENETRATION;
+    /**
+     * The strategy every worker's player follows. Strategies are immutable
+     * lookup tables, so one instance is shared by all workers.
+     */
+    private Strategy strategy = StrategyTable.defaultStrategy();
+    /**
+     * The total on which every worker's dealer stands.
+     */
+    private int dealerStandsOn = Blackjack.DEFAULT_DEALER_STANDS_ON;
+    /**
+     * The sink every round is published to, or null.
+     */
+    private ResultSink sink;
+    /**
+     * The counting system every worker's shoe keeps, or null.
+     */
+    private CountingSystem countingSystem;
+    /**
+     * The bet spread every worker's player follows, or null for flat bets.
+     */
+    private BetSpread betSpread;
+    /**
+     * The rules every worker's game is played under.
+     */
+    private BlackjackRules rules = BlackjackRules.classic();
+    /**
+     * The true count at or above which every worker's player insures.
+     */
+    private double insuranceCount = Double.POSITIVE_INFINITY;
+    /**
+     * The number of seats at each worker's table.
+     */
+    private int seats = 1;
+
+    /**
+     * Constructs a simulator with its own pool of the given number of workers.
+     *
+     * @param workers The number of worker threads.
+     * @param seed    The master seed.
+     * @throws IllegalArgumentException If workers is not positive.
+     */
+    public ParallelBlackjackSimulator(int workers, long seed) {
+        if (workers < 1) {
+            throw new IllegalArgumentException("Invalid worker count: " + workers);
+        }
+        this.pool = new ForkJoinPool(workers);
+        this.ownsPool = true;
+        this.workers = workers;
+        this.seed = seed;
+    }
+
+    /**
+     * Constructs a simulator that runs on an existing pool. The rounds are
+     * divided between as many workers as the pool's parallelism.
+     *
+     * @param pool The pool to run on; it is not shut down by {@link #close()}.
+     * @param seed The master seed.
+     */
+    public ParallelBlackjackSimulator(ForkJoinPool pool, long seed) {
+        this.pool = pool;
+        this.ownsPool = false;
+        this.workers = pool.getParallelism();
+        this.seed = seed;
+    }
+
+    /**
+     * Gets the number of workers the rounds are divided between.
+     *
+     * @return The worker count.
+     */
+    public int getWorkers() {
+        return workers;
+    }
+
+    /**
+     * Gets the master seed.
+     *
+     * @return The master seed.
+     */
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * Sets the shoe every worker deals from.
+     *
+     * @param decks       The number of 52-card decks in each shoe.
+     * @param penetration The fraction of the shoe dealt before the cut card.
+     * @throws IllegalArgumentException If decks is not positive or penetration
+     *                                  is out of range.
+     */
+    public void setShoe(int decks, double penetration) {
+        if (decks < 1) {
+            throw new IllegalArgumentException("Invalid number of decks: " + decks);
+        }
+        if (!(penetration > 0 && penetration <= 1)) {
+            throw new IllegalArgumentException("Invalid penetration: " + penetration);
+        }
+        this.decks = decks;
+        this.penetration = penetration;
+    }
+
+    /**
+     * Sets the strategy every worker's player follows. The strategy is shared
+     * between threads and must not change while a run is in progress.
+     *
+     * @param strategy The player's strategy.
+     */
+    public void setStrategy(Strategy strategy) {
+        this.strategy = strategy;
+    }
+
+    /**
+     * Sets the total on which every worker's dealer stands.
+     *
+     * @param dealerStandsOn The dealer's stand threshold.
+     */
+    public void setDealerStandsOn(int dealerStandsOn) {
+        this.dealerStandsOn = dealerStandsOn;
+    }
+
+    /**
+     * Sets the rules every worker's game is played under. The rules are
+     * shared, so they must not change while the simulator runs.
+     *
+     * @param rules The rules.
+     */
+    public void setRules(BlackjackRules rules) {
+        this.rules = rules;
+    }
+
+    /**
+     * Sets the true count at or above which every worker's player takes
+     * insurance.
+     *
+     * @param insuranceCount The insurance count.
+     * @see Blackjack#setInsuranceCount(double)
+     */
+    public void setInsuranceCount(double insuranceCount) {
+        this.insuranceCount = insuranceCount;
+    }
+
+    /**
+     * Sets the number of seats at each worker's table. With one seat, the
+     * default, every worker plays a Blackjack game. With more, every seat's
+     * result counts as a round, and the rounds asked for are rounded up to
+     * whole table rounds, so that every seat is sampled equally.
+     *
+     * @param seats The number of seats, from 1 to
+     *              {@value BlackjackTable#MAX_SEATS}.
+     * @throws IllegalArgumentException If the number of seats is out of range.
+     */
+    public void setSeats(int seats) {
+        if (seats < 1 || seats > BlackjackTable.MAX_SEATS) {
+            throw new IllegalArgumentException("Invalid number of seats: " + seats);
+        }
+        this.seats = seats;
+    }
+
+    /**
+     * Sets the card counting every worker's player does: the counting system
+     * each shoe keeps a count with and the bet spread driven by its true
+     * count.
+     *
+     * @param countingSystem The counting system, or null for none.
+     * @param betSpread      The bet spread, or null to bet one unit every
+     *                       round.
+     */
+    public void setCounting(CountingSystem countingSystem, BetSpread betSpread) {
+        this.countingSystem = countingSystem;
+        this.betSpread = betSpread;
+    }
+
+    /**
+     * Sets the sink every round is published to. Rounds are identified by
+     * their chunk and their number within it; with more than one seat the
+     * number is that of the table round, and each seat's hands are told
+     * apart by the seat's index.
+     *
+     * @param sink The result sink, or null to publish nothing.
+     */
+    public void setResultSink(ResultSink sink) {
+        this.sink = sink;
+    }
+
+    /**
+     * Plays the given number of rounds and returns the merged tallies.
+     *
+     * @param rounds The number of rounds to play.
+     * @return The tallies of all rounds.
+     * @throws IllegalArgumentException If rounds is negative.
+     */
+    public SimulationStats run(long rounds) {
+        if (rounds < 0) {
+            throw new IllegalArgumentException("Invalid round count: " + rounds);
+        }
+        return runBatch(rounds, 0);
+    }
+
+    /**
+     * Plays batches of rounds until the confidence interval of the mean net
+     * result per round is narrower than requested, or the round limit is
+     * reached. Every batch continues the chunk numbering of the previous one,
+     * so the stopping point and the tallies depend only on the seed, the
+     * worker count and the arguments.
+     *
+     * @param halfWidth   The target half-width of the confidence interval.
+     * @param z           The normal quantile of the confidence level, such as
+     *                    {@link SimulationStats#Z_95}.
+     * @param batchRounds The number of rounds played between checks.
+     * @param maxRounds   The most rounds to play before giving up.
+     * @return The tallies of all rounds played.
+     * @throws IllegalArgumentException If halfWidth or batchRounds is not
+     *                                  positive.
+     */
+    public SimulationStats runUntil(double halfWidth, double z, long batchRounds, long maxRounds) {
+        if (!(halfWidth > 0)) {
+            throw new IllegalArgumentException("Invalid half-width: " + halfWidth);
+        }
+        if (batchRounds < 1) {
+            throw new IllegalArgumentException("Invalid batch size: " + batchRounds);
+        }
+        SimulationStats stats = new SimulationStats();
+        for (long batch = 0; stats.getRounds() < maxRounds; batch++) {
+            long rounds = Math.min(batchRounds, maxRounds - stats.getRounds());
+            stats.merge(runBatch(rounds, batch));
+            if (stats.meanHalfWidth(z) < halfWidth) {
+                break;
+            }
+        }
+        return stats;
+    }
+
+    /**
+     * Plays batches of rounds until the time budget is spent. The budget is
+     * checked between batches, so the last batch may overrun it; each batch
+     * continues the chunk numbering of the previous one.
+     *
+     * @param nanos       The time budget in nanoseconds.
+     * @param batchRounds The number of rounds played between checks.
+     * @return The tallies of all rounds played.
+     * @throws IllegalArgumentException If batchRounds is not positive.
+     */
+    public SimulationStats runFor(long nanos, long batchRounds) {
+        if (batchRounds < 1) {
+            throw new IllegalArgumentException("Invalid batch size: " + batchRounds);
+        }
+        SimulationStats stats = new SimulationStats();
+        long start = System.nanoTime();
+        for (long batch = 0; System.nanoTime() - start < nanos; batch++) {
+            stats.merge(runBatch(batchRounds, batch));
+        }
+        return stats;
+    }
+
+    /**
+     * Plays one batch of rounds on the pool.
+     *
+     * @param rounds The number of rounds in the batch.
+     * @param batch  The index of the batch, which offsets the chunk seeds.
+     * @return The tallies of the batch.
+     */
+    private SimulationStats runBatch(long rounds, long batch) {
+        int chunks = workers * CHUNKS_PER_WORKER;
+        // Tables are split among the chunks in whole table rounds
+        long units = seats > 1 ? (rounds + seats - 1) / seats : rounds;
+        return pool.invoke(new ChunkTask(units, chunks, batch * chunks, 0, chunks));
+    }
+
+    /**
+     * Shuts down the pool if this simulator created it.
+     */
+    @Override
+    public void close() {
+        if (ownsPool) {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Plays one chunk of rounds on a fresh game.
+     *
+     * @param rounds The number of rounds in the chunk, or of table rounds
+     *               with more than one seat.
+     * @param chunk  The index of the chunk, from which its seed is derived.
+     * @return The tallies of the chunk.
+     */
+    private SimulationStats playChunk(long rounds, long chunk) {
+        if (seats > 1) {
+            return playTableChunk(rounds, chunk);
+        }
+        SimulationStats stats = new SimulationStats();
+        Blackjack game = new Blackjack(decks, penetration, RandomSource.stream(seed, chunk));
+        game.setPlayerStrategy(strategy);
+        if (dealerStandsOn != Blackjack.DEFAULT_DEALER_STANDS_ON) {
+            game.setDealerStandsOn(dealerStandsOn);
+        }
+        game.getShoe().setCountingSystem(countingSystem);
+        game.setBetSpread(betSpread);
+        game.setRules(rules);
+        game.setInsuranceCount(insuranceCount);
+        ResultSink sink = this.sink;
+        for (long i = 0; i < rounds; i++) {
+            Blackjack.Outcome outcome = game.playRound();
+            stats.record(outcome, game.getNet(), game.getWagered());
+            if (sink != null) {
+                sink.publish(chunk, i, 0, game.getSeat(), game.getDealerHand());
+            }
+        }
+        stats.recordReshuffles(game.getShoe());
+        return stats;
+    }
+
+    /**
+     * Plays one chunk of rounds at a fresh table, recording each seat's
+     * result in every round as a round of its own.
+     *
+     * @param rounds The number of table rounds in the chunk.
+     * @param chunk  The index of the chunk, from which its seed is derived.
+     * @return The tallies of the chunk.
+     */
+    private SimulationStats playTableChunk(long rounds, long chunk) {
+        SimulationStats stats = new SimulationStats();
+        BlackjackTable table = new BlackjackTable(seats, decks, penetration, RandomSource.stream(seed, chunk));
+        table.setStrategy(strategy);
+        table.setDealerStandsOn(dealerStandsOn);
+        table.getShoe().setCountingSystem(countingSystem);
+        table.setBetSpread(betSpread);
+        table.setRules(rules);
+        table.setInsuranceCount(insuranceCount);
+        ResultSink sink = this.sink;
+        for (long tableRound = 0; tableRound < rounds; tableRound++) {
+            table.playRound();
+            for (int s = 0; s < seats; s++) {
+                PlayerSeat seat = table.getSeat(s);
+                stats.record(seat.getOutcome(), seat.getNet(), seat.getWagered());
+                if (sink != null) {
+                    sink.publish(chunk, tableRound, s, seat, table.getDealerHand());
+                }
+            }
+        }
+        stats.recordReshuffles(table.getShoe());
+        return stats;
+    }
+
+    /**
+     * Splits a range of chunk indices in half until a single chunk is left,
+     * then plays it and merges the tallies on the way back up.
+     */
+    private class ChunkTask extends RecursiveTask<SimulationStats> {
+        private static final long serialVersionUID = 1L;
+
+        private final long rounds;
+        private final int chunks;
+        private final long firstChunk;
+        private final int from;
+        private final int to;
+
+        ChunkTask(long rounds, int chunks, long firstChunk, int from, int to) {
+            this.rounds = rounds;
+            this.chunks = chunks;
+            this.firstChunk = firstChunk;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected SimulationStats compute() {
+            if (to - from == 1) {
+                // The first (rounds % chunks) chunks play one extra round
+                long share = rounds / chunks + (from < rounds % chunks ? 1 : 0);
+                return playChunk(share, firstChunk + from);
+            }
+            int mid = (from + to) >>> 1;
+            ChunkTask left = new ChunkTask(rounds, chunks, firstChunk, from, mid);
+            left.fork();
+            SimulationStats right = new ChunkTask(rounds, chunks, firstChunk, mid, to).compute();
+            return left.join().merge(right);
+        }
+    }
+
+}
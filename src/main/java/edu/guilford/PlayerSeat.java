@@ -0,0 +1,437 @@
+package edu.guilford;
+
+/**
+ * A Blackjack player's seat: the strategy the player follows, the hands the
+ * player plays in one round with the bet on each, and the round's result. A
+ * round starts with one hand, and every split moves the second card of a
+ * pair into a new hand carrying the same bet.
+ * <p>
+ * The hands come from a pool allocated once, as many as the rules allow, and
+ * are cleared at the start of every round rather than replaced, so splitting
+ * allocates nothing. The seat plays and settles its own hands, so that a
+ * Blackjack game and a BlackjackTable play them the same way.
+ *
+ * @author Miguel A. Nunez Palomares
+ * @version 1.0
+ * @see Blackjack, BlackjackTable, BlackjackRules
+ */
+public class PlayerSeat {
+
+    /**
+     * The room each pooled hand has before it must grow.
+     */
+    private static final int HAND_CAPACITY = 12;
+
+    /**
+     * The pooled hands; the first handCount are in play.
+     */
+    private final Hand[] hands;
+    /**
+     * The bet on each hand, in units.
+     */
+    private final int[] bets;
+    /**
+     * The net result of each hand in the last round settled, in units.
+     */
+    private final double[] handNets;
+    /**
+     * The number of hands in play.
+     */
+    private int handCount;
+    /**
+     * The strategy the player follows.
+     */
+    private Strategy strategy = StrategyTable.defaultStrategy();
+    /**
+     * The player's net result of the last round settled, in units.
+     */
+    private double net;
+    /**
+     * The total the player wagered on the last round settled, in units.
+     */
+    private double wagered;
+    /**
+     * The outcome of the last round settled.
+     */
+    private Blackjack.Outcome outcome = Blackjack.Outcome.PUSH;
+
+    /**
+     * Constructs a seat with room for the given number of hands.
+     *
+     * @param maxHands The most hands the player can split into.
+     * @throws IllegalArgumentException If maxHands is not positive.
+     */
+    public PlayerSeat(int maxHands) {
+        if (maxHands < 1) {
+            throw new IllegalArgumentException("Invalid hand limit: " + maxHands);
+        }
+        this.hands = new Hand[maxHands];
+        this.bets = new int[maxHands];
+        this.handNets = new double[maxHands];
+        for (int i = 0; i < maxHands; i++) {
+            hands[i] = new Hand(HAND_CAPACITY);
+        }
+        this.handCount = 1;
+    }
+
+    /**
+     * Clears the hands of the last round and starts a new one with a single
+     * empty hand.
+     *
+     * @param bet The bet on the first hand, in units.
+     */
+    void reset(int bet) {
+        for (int i = 0; i < handCount; i++) {
+            hands[i].reset();
+        }
+        handCount = 1;
+        bets[0] = bet;
+    }
+
+    /**
+     * Splits a pair: its second card moves into the next pooled hand, which
+     * gets the same bet.
+     *
+     * @param index The hand holding the pair.
+     * @return The index of the new hand.
+     * @throws IllegalStateException If every pooled hand is in play.
+     */
+    int split(int index) {
+        if (handCount == hands.length) {
+            throw new IllegalStateException("No hand left to split into");
+        }
+        Hand hand = hands[index];
+        Card moved = hand.getCard(1);
+        hand.removeCard(moved);
+        hands[handCount].addCard(moved);
+        bets[handCount] = bets[index];
+        return handCount++;
+    }
+
+    /**
+     * Doubles the bet on a hand.
+     *
+     * @param index The hand.
+     */
+    void doubleBet(int index) {
+        bets[index] *= 2;
+    }
+
+    /**
+     * Plays the player's turn: every hand in play, including the ones made
+     * by splitting, is split, doubled, hit or stood as the strategy and the
+     * rules say.
+     *
+     * @param shoe         The shoe to draw from.
+     * @param rules        The rules of the game.
+     * @param upValue      The value of the dealer's upcard.
+     * @param recorder     The recorder to report the events to, or null.
+     * @param recorderSeat The seat the events are recorded for.
+     * @return True if at least one hand does not bust.
+     */
+    boolean play(Shoe shoe, BlackjackRules rules, int upValue, GameRecorder recorder, int recorderSeat) {
+        boolean standing = false;
+        for (int i = 0; i < handCount; i++) {
+            playHand(i, shoe, rules, upValue, recorder, recorderSeat);
+            standing |= !hands[i].isBust();
+        }
+        return standing;
+    }
+
+    /**
+     * Plays one hand: gives a hand made by a split its second card, splits
+     * it further while the strategy wants to, then doubles, hits or stands.
+     */
+    private void playHand(int index, Shoe shoe, BlackjackRules rules, int upValue, GameRecorder recorder,
+            int recorderSeat) {
+        Hand hand = hands[index];
+        if (hand.size() == 1) {
+            draw(shoe, hand, recorder, recorderSeat);
+        }
+        while (canSplit(hand, rules) && strategy.shouldSplit(hand.getCard(0).getValue(), upValue)) {
+            int added = split(index);
+            if (recorder != null) {
+                recorder.record(GameEvent.SPLIT, recorderSeat, added);
+            }
+            draw(shoe, hand, recorder, recorderSeat);
+        }
+        // Split Aces are the only hands that start with an Ace after a split
+        if (isSplit() && hand.getCard(0).getValue() == 11 && !rules.isHitSplitAces()) {
+            stand(hand, recorder, recorderSeat);
+            return;
+        }
+        boolean mayDouble = rules.isDoubleAllowed() && (!isSplit() || rules.isDoubleAfterSplit());
+        while (!hand.isBust()) {
+            int total = hand.getTotalValue();
+            boolean soft = hand.isSoft();
+            if (mayDouble && hand.size() == 2) {
+                Strategy.Action action = strategy.decide(total, soft, upValue);
+                if (action == Strategy.Action.DOUBLE || action == Strategy.Action.DOUBLE_OR_STAND) {
+                    doubleBet(index);
+                    if (recorder != null) {
+                        recorder.record(GameEvent.DOUBLE, recorderSeat, index);
+                    }
+                    draw(shoe, hand, recorder, recorderSeat);
+                    break;
+                }
+            }
+            if (!strategy.hits(total, soft, upValue)) {
+                break;
+            }
+            draw(shoe, hand, recorder, recorderSeat);
+        }
+        stand(hand, recorder, recorderSeat);
+    }
+
+    /**
+     * Draws a card into a hand and records it as a hit.
+     */
+    private static void draw(Shoe shoe, Hand hand, GameRecorder recorder, int recorderSeat) {
+        Card card = shoe.deal();
+        hand.addCard(card);
+        if (recorder != null) {
+            recorder.record(GameEvent.HIT, recorderSeat, card.getCode());
+        }
+    }
+
+    /**
+     * Records that a hand stands, unless it busted.
+     */
+    private static void stand(Hand hand, GameRecorder recorder, int recorderSeat) {
+        if (recorder != null && !hand.isBust()) {
+            recorder.record(GameEvent.STAND, recorderSeat, hand.getTotalValue());
+        }
+    }
+
+    /**
+     * Checks whether the rules let a hand be split.
+     */
+    private boolean canSplit(Hand hand, BlackjackRules rules) {
+        if (hand.size() != 2 || handCount >= rules.getMaxHands()) {
+            return false;
+        }
+        int value = hand.getCard(0).getValue();
+        if (value != hand.getCard(1).getValue()) {
+            return false;
+        }
+        return value != 11 || !isSplit() || rules.isResplitAces();
+    }
+
+    /**
+     * Checks whether the player surrenders the hand just dealt, which the
+     * strategy only gets to do when the rules allow and the hand is not a
+     * pair it would rather split.
+     *
+     * @param rules   The rules of the game.
+     * @param upValue The value of the dealer's upcard.
+     * @return True if the player surrenders.
+     */
+    boolean surrenders(BlackjackRules rules, int upValue) {
+        if (!rules.isLateSurrender()) {
+            return false;
+        }
+        Hand hand = hands[0];
+        if (canSplit(hand, rules) && strategy.shouldSplit(hand.getCard(0).getValue(), upValue)) {
+            return false;
+        }
+        return strategy.decide(hand.getTotalValue(), hand.isSoft(), upValue) == Strategy.Action.SURRENDER;
+    }
+
+    /**
+     * Settles the hands in play against the dealer's finished hand, counting
+     * the ones that busted.
+     *
+     * @param dealerHand   The dealer's hand.
+     * @param dealerStands True if the dealer did not bust.
+     * @return The player's net result on the hands, in units.
+     */
+    double settle(Hand dealerHand, boolean dealerStands) {
+        int dealerTotal = dealerHand.getTotalValue();
+        double result = 0;
+        for (int i = 0; i < handCount; i++) {
+            Hand hand = hands[i];
+            if (hand.isBust()) {
+                GameMetrics.bust();
+                handNets[i] = -bets[i];
+            } else if (!dealerStands || hand.getTotalValue() > dealerTotal) {
+                handNets[i] = bets[i];
+            } else if (hand.getTotalValue() < dealerTotal) {
+                handNets[i] = -bets[i];
+            } else {
+                handNets[i] = 0;
+            }
+            result += handNets[i];
+        }
+        return result;
+    }
+
+    /**
+     * Records the result of the round: the outcome is the sign of the net
+     * result on the hands, and the insurance is added to both the net result
+     * and the total wagered. A round with a single hand gives that hand the
+     * net result on the hands, which also covers naturals and surrender;
+     * split hands keep the results {@link #settle} gave them.
+     *
+     * @param handsNet      The player's net result on the hands, in units.
+     * @param insurance     The insurance bet, or 0 for none.
+     * @param dealerNatural True if the dealer had a natural.
+     * @return The outcome of the round.
+     */
+    Blackjack.Outcome finish(double handsNet, double insurance, boolean dealerNatural) {
+        if (handCount == 1) {
+            handNets[0] = handsNet;
+        }
+        net = handsNet + (insurance == 0 ? 0 : dealerNatural ? 2 * insurance : -insurance);
+        wagered = getTotalBet() + insurance;
+        outcome = handsNet > 0 ? Blackjack.Outcome.PLAYER_WIN
+                : handsNet < 0 ? Blackjack.Outcome.DEALER_WIN : Blackjack.Outcome.PUSH;
+        return outcome;
+    }
+
+    /**
+     * Gets the strategy the player follows.
+     *
+     * @return The player's strategy.
+     */
+    public Strategy getStrategy() {
+        return strategy;
+    }
+
+    /**
+     * Sets the strategy the player follows.
+     *
+     * @param strategy The player's strategy.
+     */
+    public void setStrategy(Strategy strategy) {
+        this.strategy = strategy;
+    }
+
+    /**
+     * Gets the player's net result of the last round settled, over every
+     * hand and the insurance.
+     *
+     * @return The net result in units.
+     */
+    public double getNet() {
+        return net;
+    }
+
+    /**
+     * Gets the total the player wagered on the last round settled, counting
+     * doubles, splits and insurance.
+     *
+     * @return The amount wagered in units.
+     */
+    public double getWagered() {
+        return wagered;
+    }
+
+    /**
+     * Gets the outcome of the last round settled.
+     *
+     * @return The outcome.
+     */
+    public Blackjack.Outcome getOutcome() {
+        return outcome;
+    }
+
+    /**
+     * Gets the most hands the seat can hold.
+     *
+     * @return The size of the pool.
+     */
+    public int getMaxHands() {
+        return hands.length;
+    }
+
+    /**
+     * Gets the number of hands in play this round.
+     *
+     * @return The hand count.
+     */
+    public int getHandCount() {
+        return handCount;
+    }
+
+    /**
+     * Checks whether the player has split this round.
+     *
+     * @return True if there is more than one hand.
+     */
+    public boolean isSplit() {
+        return handCount > 1;
+    }
+
+    /**
+     * Gets a hand in play.
+     *
+     * @param index The hand, from 0 to getHandCount() - 1.
+     * @return The hand.
+     * @throws IndexOutOfBoundsException If there is no such hand in play.
+     */
+    public Hand getHand(int index) {
+        if (index >= handCount) {
+            throw new IndexOutOfBoundsException("Invalid hand: " + index);
+        }
+        return hands[index];
+    }
+
+    /**
+     * Gets the bet on a hand in play.
+     *
+     * @param index The hand, from 0 to getHandCount() - 1.
+     * @return The bet in units.
+     * @throws IndexOutOfBoundsException If there is no such hand in play.
+     */
+    public int getBet(int index) {
+        if (index >= handCount) {
+            throw new IndexOutOfBoundsException("Invalid hand: " + index);
+        }
+        return bets[index];
+    }
+
+    /**
+     * Gets the net result of a hand in the last round settled: its bet won
+     * or lost, a natural's payout, or half its bet lost to a surrender. The
+     * insurance is not part of any hand's result; {@link #getNet()} has it.
+     *
+     * @param index The hand, from 0 to getHandCount() - 1.
+     * @return The hand's net result in units.
+     * @throws IndexOutOfBoundsException If there is no such hand in play.
+     */
+    public double getNet(int index) {
+        if (index >= handCount) {
+            throw new IndexOutOfBoundsException("Invalid hand: " + index);
+        }
+        return handNets[index];
+    }
+
+    /**
+     * Gets the outcome of a hand in the last round settled, the sign of its
+     * net result. When the player split, one hand can win while another
+     * loses, and the round's {@link #getOutcome()} is the sign of the sum.
+     *
+     * @param index The hand, from 0 to getHandCount() - 1.
+     * @return The hand's outcome.
+     * @throws IndexOutOfBoundsException If there is no such hand in play.
+     */
+    public Blackjack.Outcome getOutcome(int index) {
+        double handNet = getNet(index);
+        return handNet > 0 ? Blackjack.Outcome.PLAYER_WIN
+                : handNet < 0 ? Blackjack.Outcome.DEALER_WIN : Blackjack.Outcome.PUSH;
+    }
+
+    /**
+     * Gets the total of the bets on the hands in play.
+     *
+     * @return The total bet in units.
+     */
+    public int getTotalBet() {
+        int total = 0;
+        for (int i = 0; i < handCount; i++) {
+            total += bets[i];
+        }
+        return total;
+    }
+
+}
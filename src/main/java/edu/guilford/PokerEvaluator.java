@@ -0,0 +1,220 @@
+package edu.guilford;
+
+/**
+ * Ranks poker hands. A hand is given as a 64-bit mask over card codes, the
+ * representation BitsetHand keeps, and the result is an int strength that
+ * compares the way the hands do: a larger strength is a better hand, and
+ * equal strengths are a tie. Hands of any size are scored by their best five
+ * cards, so the usual 5-to-7-card hands and the larger hands a Lamarckian
+ * Poker game can end with are both handled.
+ * <p>
+ * Evaluation works on 13-bit rank masks, one per suit, with precomputed
+ * tables for straights and for the top five ranks of a mask. There are no
+ * loops over cards and no allocation.
+ * <p>
+ * A strength holds the hand category in bits 20 and up, followed by up to
+ * five ranks, most significant first, four bits each. Ranks are stored as 1
+ * (deuce) to 13 (Ace), with 0 meaning no card.
+ *
+ * @author Miguel A. Nunez Palomares
+ * @version 1.0
+ * @see BitsetHand, LamarckianPoker
+ */
+public class PokerEvaluator {
+
+    /**
+     * The hand categories, weakest first.
+     */
+    public enum Category {
+        HIGH_CARD, ONE_PAIR, TWO_PAIR, THREE_OF_A_KIND, STRAIGHT, FLUSH, FULL_HOUSE, FOUR_OF_A_KIND,
+        STRAIGHT_FLUSH
+    }
+
+    /**
+     * The number of bits below the category in a strength.
+     */
+    private static final int CATEGORY_SHIFT = 20;
+
+    /**
+     * The mask of the 13 ranks of a suit.
+     */
+    private static final int RANKS = 0x1FFF;
+
+    /**
+     * Cached copy of the categories, since values() clones its array.
+     */
+    private static final Category[] CATEGORIES = Category.values();
+
+    /**
+     * The stored rank (1-13) of the highest straight in each rank mask, or 0.
+     */
+    private static final byte[] STRAIGHT_HIGH = new byte[RANKS + 1];
+
+    /**
+     * The top five ranks of each rank mask, packed four bits each, highest
+     * first.
+     */
+    private static final int[] TOP_FIVE = new int[RANKS + 1];
+
+    static {
+        for (int ranks = 0; ranks <= RANKS; ranks++) {
+            for (int high = 12; high >= 4; high--) {
+                int run = 0x1F << (high - 4);
+                if ((ranks & run) == run) {
+                    STRAIGHT_HIGH[ranks] = (byte) (high + 1);
+                    break;
+                }
+            }
+            // The wheel, A-2-3-4-5, is a five-high straight
+            if (STRAIGHT_HIGH[ranks] == 0 && (ranks & 0x100F) == 0x100F) {
+                STRAIGHT_HIGH[ranks] = 4;
+            }
+            int packed = 0;
+            int taken = 0;
+            for (int rank = 12; rank >= 0 && taken < 5; rank--) {
+                if ((ranks & (1 << rank)) != 0) {
+                    packed |= (rank + 1) << (4 * (4 - taken));
+                    taken++;
+                }
+            }
+            TOP_FIVE[ranks] = packed;
+        }
+    }
+
+    /**
+     * Prevents instantiation; all methods are static.
+     */
+    private PokerEvaluator() {
+    }
+
+    /**
+     * Scores the hand made of the cards in a mask.
+     *
+     * @param cards A mask with bit c set for each card code c in the hand.
+     * @return The strength of the best five-card hand.
+     */
+    public static int evaluate(long cards) {
+        int clubs = toPokerRanks((int) (cards & RANKS));
+        int diamonds = toPokerRanks((int) ((cards >>> 13) & RANKS));
+        int hearts = toPokerRanks((int) ((cards >>> 26) & RANKS));
+        int spades = toPokerRanks((int) ((cards >>> 39) & RANKS));
+
+        // Flushes and straight flushes; large hands may have more than one
+        // flush suit, so keep the best
+        int best = Math.max(Math.max(flush(clubs), flush(diamonds)), Math.max(flush(hearts), flush(spades)));
+        if (best >= (Category.STRAIGHT_FLUSH.ordinal() << CATEGORY_SHIFT)) {
+            return best;
+        }
+
+        int any = clubs | diamonds | hearts | spades;
+        int two = (clubs & diamonds) | (clubs & hearts) | (clubs & spades) | (diamonds & hearts)
+                | (diamonds & spades) | (hearts & spades);
+        int three = (clubs & diamonds & hearts) | (clubs & diamonds & spades) | (clubs & hearts & spades)
+                | (diamonds & hearts & spades);
+        int four = clubs & diamonds & hearts & spades;
+
+        if (four != 0) {
+            int quad = Integer.highestOneBit(four);
+            return strength(Category.FOUR_OF_A_KIND, pack(quad, 1) | top(any & ~quad, 1, 1));
+        }
+        if (three != 0) {
+            int trips = Integer.highestOneBit(three);
+            int pairs = two & ~trips;
+            if (pairs != 0) {
+                return strength(Category.FULL_HOUSE, pack(trips, 1) | pack(Integer.highestOneBit(pairs), 2));
+            }
+        }
+        if (best != 0) {
+            return best;
+        }
+        if (STRAIGHT_HIGH[any] != 0) {
+            return strength(Category.STRAIGHT, STRAIGHT_HIGH[any] << 16);
+        }
+        if (three != 0) {
+            int trips = Integer.highestOneBit(three);
+            return strength(Category.THREE_OF_A_KIND, pack(trips, 1) | top(any & ~trips, 2, 1));
+        }
+        if (two != 0) {
+            int high = Integer.highestOneBit(two);
+            int low = Integer.highestOneBit(two & ~high);
+            if (low != 0) {
+                return strength(Category.TWO_PAIR, pack(high, 1) | pack(low, 2) | top(any & ~(high | low), 1, 2));
+            }
+            return strength(Category.ONE_PAIR, pack(high, 1) | top(any & ~high, 3, 1));
+        }
+        return strength(Category.HIGH_CARD, TOP_FIVE[any]);
+    }
+
+    /**
+     * Scores the cards in a hand.
+     *
+     * @param hand The hand to score.
+     * @return The strength of the best five-card hand.
+     */
+    public static int evaluate(Hand hand) {
+        if (hand instanceof BitsetHand) {
+            return evaluate(((BitsetHand) hand).getMask());
+        }
+        long cards = 0;
+        for (int i = 0; i < hand.size(); i++) {
+            cards |= 1L << hand.getCard(i).getCode();
+        }
+        return evaluate(cards);
+    }
+
+    /**
+     * Gets the category of a strength.
+     *
+     * @param strength A strength returned by evaluate.
+     * @return The hand category.
+     */
+    public static Category categoryOf(int strength) {
+        return CATEGORIES[strength >>> CATEGORY_SHIFT];
+    }
+
+    /**
+     * Converts a suit's 13 bits from card rank order (Ace first) to poker
+     * order (deuce first, Ace last).
+     */
+    private static int toPokerRanks(int cardRanks) {
+        return (cardRanks >>> 1) | ((cardRanks & 1) << 12);
+    }
+
+    /**
+     * Scores a suit as a flush or straight flush, or returns 0 if it holds
+     * fewer than five cards.
+     */
+    private static int flush(int suitRanks) {
+        if (Integer.bitCount(suitRanks) < 5) {
+            return 0;
+        }
+        if (STRAIGHT_HIGH[suitRanks] != 0) {
+            return strength(Category.STRAIGHT_FLUSH, STRAIGHT_HIGH[suitRanks] << 16);
+        }
+        return strength(Category.FLUSH, TOP_FIVE[suitRanks]);
+    }
+
+    /**
+     * Packs the single rank bit into the given rank slot, 1 being the most
+     * significant.
+     */
+    private static int pack(int rankBit, int slot) {
+        return (Integer.numberOfTrailingZeros(rankBit) + 1) << (4 * (5 - slot));
+    }
+
+    /**
+     * Packs the top count ranks of a mask into the slots following the given
+     * one.
+     */
+    private static int top(int ranks, int count, int after) {
+        return (TOP_FIVE[ranks] >>> (4 * (5 - count))) << (4 * (5 - after - count));
+    }
+
+    /**
+     * Combines a category with packed ranks.
+     */
+    private static int strength(Category category, int packedRanks) {
+        return (category.ordinal() << CATEGORY_SHIFT) | packedRanks;
+    }
+
+}
@@ -0,0 +1,128 @@
+package edu.guilford;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * A source of random numbers for shuffling decks and making random choices
+ * in the games. Every Deck, Shoe and game draws from the source it was given,
+ * so a simulation seeded with {@link #seeded(long)} or {@link #stream(long,
+ * long)} replays exactly, and each thread can be handed its own independent
+ * stream instead of contending on a shared java.util.Random.
+ * <p>
+ * A source is not thread-safe; give each thread its own, either by deriving
+ * numbered streams from one master seed or by calling {@link #split()}.
+ *
+ * @author Miguel A. Nunez Palomares
+ * @version 1.0
+ * @see XoshiroRandomSource, SplittableRandomSource, ThreadLocalRandomSource
+ */
+public interface RandomSource {
+
+    /**
+     * The SplitMix64 increment, 2^64 divided by the golden ratio.
+     */
+    long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+    /**
+     * Returns a uniformly distributed int between 0 (inclusive) and the bound
+     * (exclusive).
+     *
+     * @param bound The upper bound; must be positive.
+     * @return The random value.
+     * @throws IllegalArgumentException If bound is not positive.
+     */
+    int nextInt(int bound);
+
+    /**
+     * Returns a uniformly distributed long.
+     *
+     * @return The random value.
+     */
+    long nextLong();
+
+    /**
+     * Returns a uniformly distributed double between 0 (inclusive) and 1
+     * (exclusive).
+     *
+     * @return The random value.
+     */
+    default double nextDouble() {
+        return (nextLong() >>> 11) * 0x1.0p-53;
+    }
+
+    /**
+     * Returns a new source whose stream is independent of this one's, for
+     * handing to another thread. This source's state advances.
+     *
+     * @return The new source.
+     */
+    RandomSource split();
+
+    /**
+     * Returns a fast source seeded with the given seed.
+     *
+     * @param seed The seed.
+     * @return The seeded source.
+     */
+    static RandomSource seeded(long seed) {
+        return new XoshiroRandomSource(seed);
+    }
+
+    /**
+     * Returns the numbered stream of a master seed. Streams with different
+     * numbers are independent, so a simulation can give each chunk, game or
+     * thread its own stream and still be replayed from the master seed alone,
+     * whatever order the streams are used in.
+     *
+     * @param masterSeed The master seed.
+     * @param stream     The stream number.
+     * @return The seeded source.
+     */
+    static RandomSource stream(long masterSeed, long stream) {
+        return seeded(streamSeed(masterSeed, stream));
+    }
+
+    /**
+     * Returns a fast source with a seed that differs on every call.
+     *
+     * @return The unseeded source.
+     */
+    static RandomSource create() {
+        return seeded(ThreadLocalRandom.current().nextLong());
+    }
+
+    /**
+     * Returns a source backed by ThreadLocalRandom, for callers that need no
+     * seed. It can be shared freely between threads without contention.
+     *
+     * @return The thread-local source.
+     */
+    static RandomSource threadLocal() {
+        return ThreadLocalRandomSource.INSTANCE;
+    }
+
+    /**
+     * Derives the seed of a numbered stream from a master seed with the
+     * SplitMix64 finalizer, so that neighbouring streams are unrelated.
+     *
+     * @param masterSeed The master seed.
+     * @param stream     The stream number.
+     * @return The seed of the stream.
+     */
+    static long streamSeed(long masterSeed, long stream) {
+        return mix(masterSeed + (stream + 1) * GOLDEN_GAMMA);
+    }
+
+    /**
+     * Scrambles a value with the SplitMix64 finalizer.
+     *
+     * @param z The value to scramble.
+     * @return The scrambled value.
+     */
+    static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+}
@@ -0,0 +1,420 @@
+package edu.guilford;
+
+import java.nio.ByteBuffer;
+
+/**
+ * A game rebuilt from its events in an event log. The hands are replayed card
+ * by card, so they end up holding exactly what the game's hands held when
+ * the next game started.
+ * <p>
+ * The events can name eight seats, enough for a full BlackjackTable with
+ * its dealer. A Blackjack seat plays its hands one after the other, so every
+ * HIT goes to the hand being played, which is finished by a STAND or by
+ * busting. A SPLIT moves the second card of that hand into the new hand the
+ * event names, and DOUBLE, SURRENDER and INSURANCE are kept as flags of the
+ * hand or the seat.
+ *
+ * @author Miguel A. Nunez Palomares
+ * @version 1.0
+ * @see EventLogReader, GameEvent
+ */
+public class ReplayedGame {
+
+    /**
+     * The number of seats a game can have.
+     */
+    private static final int SEATS = GameEvent.SEATS;
+
+    /**
+     * The game's number in the log.
+     */
+    private final int index;
+    /**
+     * The events of the game, two bytes each.
+     */
+    private final byte[] events;
+    /**
+     * The game that was played.
+     */
+    private GameEvent.Game game;
+    /**
+     * The hands of each seat; only a Blackjack player who splits has more
+     * than the first.
+     */
+    private final Hand[][] hands = new Hand[SEATS][BlackjackRules.MAX_HANDS];
+    /**
+     * The number of hands of each seat.
+     */
+    private final int[] handCounts = new int[SEATS];
+    /**
+     * The Blackjack hand each seat is playing; the hands before it are
+     * finished.
+     */
+    private final int[] playing = new int[SEATS];
+    /**
+     * Whether each Blackjack hand doubled its bet.
+     */
+    private final boolean[][] doubled = new boolean[SEATS][BlackjackRules.MAX_HANDS];
+    /**
+     * Whether each seat surrendered or insured.
+     */
+    private final boolean[] surrendered = new boolean[SEATS];
+    private final boolean[] insured = new boolean[SEATS];
+    /**
+     * The outcome of the Blackjack round for each seat, or null.
+     */
+    private final Blackjack.Outcome[] outcomes = new Blackjack.Outcome[SEATS];
+    /**
+     * The winner of a Lamarckian Poker game, 0 for a tie, or -1 if it did not
+     * finish, as when it was dealt again mid-game. A capped game has a
+     * winner.
+     */
+    private int winner = -1;
+    /**
+     * Whether the Lamarckian Poker game was stopped at the turn limit.
+     */
+    private boolean capped;
+    /**
+     * The number of turns played, one per TURN_WIN.
+     */
+    private int turns;
+
+    /**
+     * Replays the events of one game.
+     *
+     * @param index  The game's number in the log.
+     * @param events The game's events, starting with GAME_START.
+     * @throws IllegalArgumentException If the events are malformed.
+     */
+    ReplayedGame(int index, ByteBuffer events) {
+        this.index = index;
+        this.events = new byte[events.remaining()];
+        events.get(this.events);
+        for (int seat = 0; seat < SEATS; seat++) {
+            hands[seat][0] = new Hand();
+            handCounts[seat] = 1;
+        }
+        for (int i = 0; i < this.events.length; i += GameEvent.BYTES) {
+            apply(GameEvent.decode(this.events[i]), GameEvent.seatOf(this.events[i]),
+                    this.events[i + 1] & 0xFF);
+        }
+        if (game == null) {
+            throw new IllegalArgumentException("Game " + index + " does not start with GAME_START");
+        }
+    }
+
+    /**
+     * Applies one event to the replayed state.
+     */
+    private void apply(GameEvent event, int seat, int operand) {
+        switch (event) {
+            case GAME_START:
+                game = GameEvent.Game.values()[operand];
+                break;
+            case DEAL:
+                hands[seat][0].addCard(Card.fromCode(operand));
+                break;
+            case HIT:
+                hit(seat, Card.fromCode(operand));
+                break;
+            case STAND:
+                playing[seat]++;
+                break;
+            case SPLIT:
+                split(seat, operand);
+                break;
+            case DOUBLE:
+                checkHand(seat, operand);
+                doubled[seat][operand] = true;
+                break;
+            case SURRENDER:
+                surrendered[seat] = true;
+                break;
+            case INSURANCE:
+                insured[seat] = true;
+                break;
+            case TAKE:
+                hands[0][0].removeCard(Card.fromCode(operand));
+                hands[seat][0].addCard(Card.fromCode(operand));
+                break;
+            case PLAY:
+                hands[seat][0].removeCard(Card.fromCode(operand));
+                hands[0][0].addCard(Card.fromCode(operand));
+                break;
+            case TURN_WIN:
+                // Every turn has exactly one winner, while the pool can be
+                // cleared twice in a turn
+                turns++;
+                break;
+            case CLEAR_POOL:
+                hands[0][0].reset();
+                break;
+            case OUTCOME:
+                outcomes[seat] = Blackjack.Outcome.values()[operand];
+                break;
+            case GAME_END:
+                winner = operand;
+                break;
+            case CAPPED:
+                capped = true;
+                break;
+            default:
+                // RESHUFFLE, RELOAD and CYCLE leave the hands as
+                // they are
+                break;
+        }
+    }
+
+    /**
+     * Adds a drawn card to the hand a seat is playing, which is finished if
+     * the card busts it.
+     */
+    private void hit(int seat, Card card) {
+        checkHand(seat, playing[seat]);
+        Hand hand = hands[seat][playing[seat]];
+        hand.addCard(card);
+        if (hand.isBust()) {
+            playing[seat]++;
+        }
+    }
+
+    /**
+     * Splits the pair in the hand a seat is playing: its second card moves
+     * into the new hand.
+     */
+    private void split(int seat, int added) {
+        checkHand(seat, playing[seat]);
+        if (added != handCounts[seat] || added >= BlackjackRules.MAX_HANDS) {
+            throw new IllegalArgumentException("Game " + index + " splits into hand " + added + " of seat " + seat);
+        }
+        Hand hand = hands[seat][playing[seat]];
+        if (hand.size() != 2) {
+            throw new IllegalArgumentException("Game " + index + " splits a hand of " + hand.size() + " cards");
+        }
+        Card moved = hand.getCard(1);
+        hand.removeCard(moved);
+        hands[seat][added] = new Hand();
+        hands[seat][added].addCard(moved);
+        handCounts[seat]++;
+    }
+
+    /**
+     * Checks that an event refers to one of a seat's hands.
+     */
+    private void checkHand(int seat, int hand) {
+        if (hand >= handCounts[seat]) {
+            throw new IllegalArgumentException("Game " + index + " has no hand " + hand + " in seat " + seat);
+        }
+    }
+
+    /**
+     * Gets the game's number in the log.
+     *
+     * @return The game number.
+     */
+    public int getIndex() {
+        return index;
+    }
+
+    /**
+     * Gets which game was played.
+     *
+     * @return The game.
+     */
+    public GameEvent.Game getGame() {
+        return game;
+    }
+
+    /**
+     * Gets the number of events in the game.
+     *
+     * @return The event count.
+     */
+    public int getEventCount() {
+        return events.length / GameEvent.BYTES;
+    }
+
+    /**
+     * Gets the replayed hand of a seat: in Blackjack 0 is the dealer and 1
+     * the player, or 1 to 7 the players at a table, and in Lamarckian Poker
+     * 0 is the pool and 1 and 2 the players. For a Blackjack player who split, this is the first hand.
+     *
+     * @param seat The seat.
+     * @return The seat's hand.
+     * @throws IndexOutOfBoundsException If there is no such seat.
+     */
+    public Hand getHand(int seat) {
+        return hands[seat][0];
+    }
+
+    /**
+     * Gets one of the replayed hands of a seat, in the order a Blackjack
+     * player made them by splitting.
+     *
+     * @param seat  The seat.
+     * @param index The hand, from 0 to getHandCount(seat) - 1.
+     * @return The hand.
+     * @throws IndexOutOfBoundsException If there is no such seat or hand.
+     */
+    public Hand getHand(int seat, int index) {
+        if (index >= handCounts[seat]) {
+            throw new IndexOutOfBoundsException("Invalid hand: " + index);
+        }
+        return hands[seat][index];
+    }
+
+    /**
+     * Gets the number of hands a seat has; more than one only if a
+     * Blackjack player split.
+     *
+     * @param seat The seat.
+     * @return The hand count.
+     * @throws IndexOutOfBoundsException If there is no such seat.
+     */
+    public int getHandCount(int seat) {
+        return handCounts[seat];
+    }
+
+    /**
+     * Checks whether a Blackjack hand doubled its bet.
+     *
+     * @param seat  The seat.
+     * @param index The hand, from 0 to getHandCount(seat) - 1.
+     * @return True if the hand doubled.
+     * @throws IndexOutOfBoundsException If there is no such seat or hand.
+     */
+    public boolean isDoubled(int seat, int index) {
+        if (index >= handCounts[seat]) {
+            throw new IndexOutOfBoundsException("Invalid hand: " + index);
+        }
+        return doubled[seat][index];
+    }
+
+    /**
+     * Checks whether a Blackjack seat surrendered.
+     *
+     * @param seat The seat.
+     * @return True if the seat surrendered.
+     * @throws IndexOutOfBoundsException If there is no such seat.
+     */
+    public boolean isSurrendered(int seat) {
+        return surrendered[seat];
+    }
+
+    /**
+     * Checks whether a Blackjack seat took insurance.
+     *
+     * @param seat The seat.
+     * @return True if the seat insured.
+     * @throws IndexOutOfBoundsException If there is no such seat.
+     */
+    public boolean isInsured(int seat) {
+        return insured[seat];
+    }
+
+    /**
+     * Gets the outcome of a Blackjack round for the player in seat 1.
+     *
+     * @return The outcome, or null if the round did not finish.
+     */
+    public Blackjack.Outcome getOutcome() {
+        return outcomes[Blackjack.PLAYER_SEAT];
+    }
+
+    /**
+     * Gets the outcome of a Blackjack round for the player in a seat, which
+     * at a BlackjackTable is any seat from 1 on.
+     *
+     * @param seat The seat.
+     * @return The outcome, or null if the seat has none.
+     * @throws IndexOutOfBoundsException If there is no such seat.
+     */
+    public Blackjack.Outcome getOutcome(int seat) {
+        return outcomes[seat];
+    }
+
+    /**
+     * Gets the winner of a Lamarckian Poker game.
+     *
+     * @return The winning seat, 0 for a tie, or -1 if the game did not
+     *         finish.
+     */
+    public int getWinner() {
+        return winner;
+    }
+
+    /**
+     * Checks whether a Lamarckian Poker game was stopped at the turn limit;
+     * its winner is then decided by the hands as they stood.
+     *
+     * @return True if the game was capped.
+     */
+    public boolean isCapped() {
+        return capped;
+    }
+
+    /**
+     * Gets the number of Lamarckian Poker turns played.
+     *
+     * @return The turn count.
+     */
+    public int getTurns() {
+        return turns;
+    }
+
+    /**
+     * Returns the game's events, one per line, followed by the final hands.
+     *
+     * @return The transcript of the game.
+     */
+    @Override
+    public String toString() {
+        StringBuilder result = new StringBuilder();
+        result.append("Game ").append(index).append(": ").append(game).append('\n');
+        for (int i = 0; i < events.length; i += GameEvent.BYTES) {
+            GameEvent event = GameEvent.decode(events[i]);
+            int operand = events[i + 1] & 0xFF;
+            result.append("  ").append(event).append(" seat ").append(GameEvent.seatOf(events[i]));
+            switch (event) {
+                case DEAL:
+                case HIT:
+                case TAKE:
+                case PLAY:
+                    result.append(' ').append(Card.fromCode(operand));
+                    break;
+                case STAND:
+                case GAME_END:
+                case DOUBLE:
+                case SPLIT:
+                case CYCLE:
+                case CAPPED:
+                    result.append(' ').append(operand);
+                    break;
+                case OUTCOME:
+                    result.append(' ').append(Blackjack.Outcome.values()[operand]);
+                    break;
+                default:
+                    break;
+            }
+            result.append('\n');
+        }
+        for (int seat = 0; seat < SEATS; seat++) {
+            for (int h = 0; h < handCounts[seat]; h++) {
+                Hand hand = hands[seat][h];
+                if (hand.size() > 0) {
+                    result.append("Seat ").append(seat);
+                    if (handCounts[seat] > 1) {
+                        result.append(" hand ").append(h + 1);
+                    }
+                    result.append(doubled[seat][h] ? " (doubled)" : "").append(":\n").append(hand);
+                }
+            }
+            if (surrendered[seat] || insured[seat]) {
+                result.append("Seat ").append(seat).append(surrendered[seat] ? " surrendered" : "")
+                        .append(insured[seat] ? " insured" : "").append('\n');
+            }
+        }
+        return result.toString();
+    }
+
+}
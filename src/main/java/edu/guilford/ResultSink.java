@@ -0,0 +1,483 @@
+package edu.guilford;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Collects one record per Blackjack hand from any number of simulation
+ * threads and writes them out as CSV or JSON lines on a background thread, so
+ * that formatting and I/O stay off the simulation loop. A round the player
+ * did not split is one record; a split round has one record per hand, told
+ * apart by the hand's index. Every record carries the hand's own bet, net
+ * result and outcome, so a doubled, surrendered or split hand can be told
+ * from a plain one and the results can be rebuilt offline. At a table, the
+ * records of one round share its round number and are told apart by seat.
+ * <p>
+ * Records go through a ring buffer allocated up front: every slot holds the
+ * hand's identifiers, cards, totals and result in primitive arrays, and
+ * publishing a round copies a few bytes into a slot without allocating.
+ * Producers claim slots with a compare-and-set on the tail, and each slot
+ * carries a sequence number that tells the writer thread when it has been
+ * filled and the producers when it has been drained.
+ * <p>
+ * When the ring is full, the overflow policy decides what happens: BLOCK
+ * makes the simulation thread wait for the writer, and DROP discards the
+ * record and counts it.
+ *
+ * @author Miguel A. Nunez Palomares
+ * @version 1.0
+ * @see ParallelBlackjackSimulator
+ */
+public class ResultSink implements AutoCloseable {
+
+    /**
+     * The output formats.
+     */
+    public enum Format {
+        CSV, JSON
+    }
+
+    /**
+     * What to do with a record when the ring is full.
+     */
+    public enum OverflowPolicy {
+        BLOCK, DROP
+    }
+
+    /**
+     * The default number of slots in the ring.
+     */
+    public static final int DEFAULT_CAPACITY = 1 << 16;
+
+    /**
+     * The most cards stored for one hand. A Blackjack hand that has not gone
+     * over 21 holds at most 21 cards, plus the one that busts it.
+     */
+    private static final int MAX_CARDS = 22;
+
+    /**
+     * How long the writer sleeps when the ring is empty.
+     */
+    private static final long IDLE_NANOS = 100_000;
+
+    /**
+     * Cached copy of the outcomes, since values() clones its array.
+     */
+    private static final Blackjack.Outcome[] OUTCOMES = Blackjack.Outcome.values();
+
+    /**
+     * The short name of each card code, such as "10H" or "AS".
+     */
+    private static final String[] SHORT_NAMES = new String[Card.CARD_COUNT];
+
+    static {
+        String ranks = "A23456789TJQK";
+        String suits = "CDHS";
+        for (int code = 0; code < Card.CARD_COUNT; code++) {
+            char rank = ranks.charAt(Card.rankOf(code));
+            SHORT_NAMES[code] = (rank == 'T' ? "10" : String.valueOf(rank)) + suits.charAt(Card.suitOf(code));
+        }
+    }
+
+    /**
+     * The output format.
+     */
+    private final Format format;
+    /**
+     * What to do when the ring is full.
+     */
+    private final OverflowPolicy policy;
+    /**
+     * The destination of the records.
+     */
+    private final Writer out;
+    /**
+     * The number of slots, a power of two, less one.
+     */
+    private final int mask;
+    /**
+     * The sequence number of each slot: equal to the position a producer may
+     * fill it at, or one more once it is filled and ready to write.
+     */
+    private final AtomicLongArray sequences;
+    /**
+     * The next position producers will claim.
+     */
+    private final AtomicLong tail = new AtomicLong();
+    /**
+     * The next position the writer will drain; only the writer changes it.
+     */
+    private long head;
+    /**
+     * The contents of the slots.
+     */
+    private final long[] streams;
+    private final long[] rounds;
+    private final byte[] seatIndexes;
+    private final byte[] handIndexes;
+    private final byte[] playerCards;
+    private final byte[] dealerCards;
+    private final byte[] playerCounts;
+    private final byte[] dealerCounts;
+    private final byte[] playerTotals;
+    private final byte[] dealerTotals;
+    private final int[] bets;
+    private final double[] nets;
+    private final byte[] outcomes;
+    /**
+     * The number of records accepted, dropped and written.
+     */
+    private final AtomicLong published = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private volatile long written;
+    /**
+     * Whether close has been called.
+     */
+    private volatile boolean closing;
+    /**
+     * The failure that stopped the writer, if any.
+     */
+    private volatile IOException failure;
+    /**
+     * The thread that formats and writes the records.
+     */
+    private final Thread writer;
+    /**
+     * The size the formatted lines are collected up to before they are
+     * handed to the Writer in one call.
+     */
+    private static final int BATCH_CHARS = 1 << 14;
+
+    /**
+     * The lines formatted but not yet written, reused for every batch.
+     */
+    private final StringBuilder line = new StringBuilder(BATCH_CHARS + 512);
+
+    /**
+     * Creates a sink that writes to a file, replacing any existing one, with
+     * the default capacity.
+     *
+     * @param file   The file to write.
+     * @param format The output format.
+     * @param policy What to do when the ring is full.
+     * @throws IOException If the file cannot be created.
+     */
+    public ResultSink(Path file, Format format, OverflowPolicy policy) throws IOException {
+        this(Files.newBufferedWriter(file, StandardCharsets.UTF_8), format, DEFAULT_CAPACITY, policy);
+    }
+
+    /**
+     * Creates a sink that writes to a Writer, which it closes when it is
+     * closed.
+     *
+     * @param out      The destination of the records.
+     * @param format   The output format.
+     * @param capacity The number of slots in the ring; rounded up to a power
+     *                 of two.
+     * @param policy   What to do when the ring is full.
+     * @throws IllegalArgumentException If capacity is not positive.
+     */
+    public ResultSink(Writer out, Format format, int capacity, OverflowPolicy policy) {
+        if (capacity < 1 || capacity > 1 << 30) {
+            throw new IllegalArgumentException("Invalid capacity: " + capacity);
+        }
+        int slots = Integer.highestOneBit(capacity - 1) << 1;
+        slots = Math.max(slots, 1);
+        this.out = out instanceof BufferedWriter ? out : new BufferedWriter(out);
+        this.format = format;
+        this.policy = policy;
+        this.mask = slots - 1;
+        this.sequences = new AtomicLongArray(slots);
+        for (int i = 0; i < slots; i++) {
+            sequences.set(i, i);
+        }
+        this.streams = new long[slots];
+        this.rounds = new long[slots];
+        this.seatIndexes = new byte[slots];
+        this.handIndexes = new byte[slots];
+        this.playerCards = new byte[slots * MAX_CARDS];
+        this.dealerCards = new byte[slots * MAX_CARDS];
+        this.playerCounts = new byte[slots];
+        this.dealerCounts = new byte[slots];
+        this.playerTotals = new byte[slots];
+        this.dealerTotals = new byte[slots];
+        this.bets = new int[slots];
+        this.nets = new double[slots];
+        this.outcomes = new byte[slots];
+        this.writer = new Thread(this::drain, "result-sink-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Publishes one record for each of a seat's hands in a finished round,
+     * so that the hands made by splitting are written too. The hands are
+     * copied, so the game may deal the next round at once.
+     *
+     * @param stream The stream the round was played on, such as a chunk.
+     * @param round  The number of the round within its stream.
+     * @param seat   The index of the seat at its table, 0 for a single game.
+     * @param player The seat, holding its settled hands.
+     * @param dealer The dealer's final hand.
+     * @return True if every record was accepted, false if any was dropped.
+     * @throws IllegalStateException If the sink is closed.
+     */
+    public boolean publish(long stream, long round, int seat, PlayerSeat player, Hand dealer) {
+        boolean accepted = true;
+        for (int h = 0; h < player.getHandCount(); h++) {
+            accepted &= publish(stream, round, seat, h, player.getHand(h), dealer, player.getBet(h),
+                    player.getNet(h));
+        }
+        return accepted;
+    }
+
+    /**
+     * Publishes the record of one of the player's hands in a finished round.
+     * The hands are copied, so the game may deal the next round at once. The
+     * hand's outcome is the sign of its net result.
+     *
+     * @param stream The stream the round was played on, such as a chunk.
+     * @param round  The number of the round within its stream.
+     * @param seat   The index of the seat at its table, 0 for a single game.
+     * @param hand   The index of the player's hand, 0 unless the player
+     *               split.
+     * @param player The player's final hand.
+     * @param dealer The dealer's final hand.
+     * @param bet    The bet on the hand, in units, doubled if it doubled.
+     * @param net    The hand's net result, in units.
+     * @return True if the record was accepted, false if it was dropped.
+     * @throws IllegalStateException If the sink is closed.
+     */
+    public boolean publish(long stream, long round, int seat, int hand, Hand player, Hand dealer, int bet,
+            double net) {
+        if (closing) {
+            throw new IllegalStateException("Result sink is closed");
+        }
+        long position = claim();
+        if (position < 0) {
+            dropped.incrementAndGet();
+            return false;
+        }
+        int slot = (int) position & mask;
+        streams[slot] = stream;
+        rounds[slot] = round;
+        seatIndexes[slot] = (byte) seat;
+        handIndexes[slot] = (byte) hand;
+        playerCounts[slot] = copyCards(player, playerCards, slot);
+        dealerCounts[slot] = copyCards(dealer, dealerCards, slot);
+        playerTotals[slot] = (byte) player.getTotalValue();
+        dealerTotals[slot] = (byte) dealer.getTotalValue();
+        bets[slot] = bet;
+        nets[slot] = net;
+        Blackjack.Outcome outcome = net > 0 ? Blackjack.Outcome.PLAYER_WIN
+                : net < 0 ? Blackjack.Outcome.DEALER_WIN : Blackjack.Outcome.PUSH;
+        outcomes[slot] = (byte) outcome.ordinal();
+        sequences.lazySet(slot, position + 1);
+        published.incrementAndGet();
+        return true;
+    }
+
+    /**
+     * Gets the number of records accepted so far.
+     *
+     * @return The published count.
+     */
+    public long getPublished() {
+        return published.get();
+    }
+
+    /**
+     * Gets the number of records dropped because the ring was full.
+     *
+     * @return The dropped count.
+     */
+    public long getDropped() {
+        return dropped.get();
+    }
+
+    /**
+     * Gets the number of records written so far.
+     *
+     * @return The written count.
+     */
+    public long getWritten() {
+        return written;
+    }
+
+    /**
+     * Writes every record already published, then stops the writer thread
+     * and closes the output. Records must not be published once close has
+     * been called.
+     *
+     * @throws IOException If writing the records failed.
+     */
+    @Override
+    public void close() throws IOException {
+        if (closing) {
+            return;
+        }
+        closing = true;
+        LockSupport.unpark(writer);
+        boolean interrupted = false;
+        while (writer.isAlive()) {
+            try {
+                writer.join();
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /**
+     * Claims the next free slot, waiting for the writer if the policy is
+     * BLOCK.
+     *
+     * @return The claimed position, or -1 if the ring is full and the policy
+     *         is DROP.
+     */
+    private long claim() {
+        int idle = 0;
+        while (true) {
+            long position = tail.get();
+            long sequence = sequences.get((int) position & mask);
+            if (sequence == position) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    return position;
+                }
+            } else if (sequence < position) {
+                // The slot still holds a record the writer has not drained
+                if (policy == OverflowPolicy.DROP || failure != null) {
+                    return -1;
+                }
+                if (++idle < 100) {
+                    Thread.onSpinWait();
+                } else {
+                    LockSupport.parkNanos(IDLE_NANOS);
+                }
+            }
+        }
+    }
+
+    /**
+     * Copies a hand's card codes into a slot and returns how many were
+     * copied.
+     */
+    private static byte copyCards(Hand hand, byte[] cards, int slot) {
+        int count = Math.min(hand.size(), MAX_CARDS);
+        int base = slot * MAX_CARDS;
+        for (int i = 0; i < count; i++) {
+            cards[base + i] = (byte) hand.getCard(i).getCode();
+        }
+        return (byte) count;
+    }
+
+    /**
+     * The writer thread's loop: writes every filled slot in order, sleeping
+     * when there is none, until the sink is closed and the ring is empty.
+     */
+    private void drain() {
+        try {
+            if (format == Format.CSV) {
+                out.write("stream,round,seat,hand,player,dealer,player_total,dealer_total,bet,net,outcome\n");
+            }
+            while (true) {
+                int slot = (int) head & mask;
+                if (sequences.get(slot) == head + 1) {
+                    formatRecord(slot);
+                    if (line.length() >= BATCH_CHARS) {
+                        writeBatch();
+                    }
+                    sequences.lazySet(slot, head + mask + 1);
+                    head++;
+                    written++;
+                } else if (closing && tail.get() == head) {
+                    writeBatch();
+                    break;
+                } else {
+                    writeBatch();
+                    if (!closing) {
+                        out.flush();
+                    }
+                    LockSupport.parkNanos(IDLE_NANOS);
+                }
+            }
+        } catch (IOException e) {
+            failure = e;
+        } finally {
+            try {
+                out.close();
+            } catch (IOException e) {
+                if (failure == null) {
+                    failure = e;
+                }
+            }
+        }
+    }
+
+    /**
+     * Formats one record onto the batch.
+     */
+    private void formatRecord(int slot) {
+        String outcome = OUTCOMES[outcomes[slot]].name();
+        if (format == Format.CSV) {
+            line.append(streams[slot]).append(',').append(rounds[slot]).append(',').append(seatIndexes[slot])
+                    .append(',').append(handIndexes[slot]).append(',');
+            appendCards(playerCards, slot, playerCounts[slot], ' ', false);
+            line.append(',');
+            appendCards(dealerCards, slot, dealerCounts[slot], ' ', false);
+            line.append(',').append(playerTotals[slot]).append(',').append(dealerTotals[slot]).append(',')
+                    .append(bets[slot]).append(',').append(nets[slot]).append(',').append(outcome).append('\n');
+        } else {
+            line.append("{\"stream\":").append(streams[slot]).append(",\"round\":").append(rounds[slot])
+                    .append(",\"seat\":").append(seatIndexes[slot]).append(",\"hand\":").append(handIndexes[slot])
+                    .append(",\"player\":[");
+            appendCards(playerCards, slot, playerCounts[slot], ',', true);
+            line.append("],\"dealer\":[");
+            appendCards(dealerCards, slot, dealerCounts[slot], ',', true);
+            line.append("],\"playerTotal\":").append(playerTotals[slot]).append(",\"dealerTotal\":")
+                    .append(dealerTotals[slot]).append(",\"bet\":").append(bets[slot]).append(",\"net\":")
+                    .append(nets[slot]).append(",\"outcome\":\"").append(outcome).append("\"}\n");
+        }
+    }
+
+    /**
+     * Writes the formatted lines and empties the batch.
+     */
+    private void writeBatch() throws IOException {
+        if (line.length() > 0) {
+            out.append(line);
+            line.setLength(0);
+        }
+    }
+
+    /**
+     * Appends the short names of a slot's cards to the line.
+     */
+    private void appendCards(byte[] cards, int slot, int count, char separator, boolean quoted) {
+        int base = slot * MAX_CARDS;
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                line.append(separator);
+            }
+            if (quoted) {
+                line.append('"').append(SHORT_NAMES[cards[base + i]]).append('"');
+            } else {
+                line.append(SHORT_NAMES[cards[base + i]]);
+            }
+        }
+    }
+
+}
@@ -0,0 +1,374 @@
+package edu.guilford;
+
+/**
+ * Represents a dealing shoe holding one or more 52-card decks with a cut card.
+ * Once the cut card has been reached the shoe is due for a reshuffle, which
+ * puts every card back and shuffles them in place without rebuilding
+ * anything. The shoe keeps count of its reshuffles and of the time spent in
+ * them, so penetration can be weighed against throughput.
+ * <p>
+ * The shoe always holds the same cards, so the Deck methods that change
+ * which cards are in it, {@link #clear()}, {@link #build()},
+ * {@link #add(Card)} and {@link #addAll(Deck)}, throw an
+ * UnsupportedOperationException. {@link #reset()} reshuffles, and
+ * {@link #pick(int)} counts the picked card like a dealt one.
+ * <p>
+ * A game marks the start of each round with {@link #startRound()}. The cards
+ * dealt before that are discards, and the ones dealt since are still in play.
+ * If the shoe runs dry in the middle of a round only the discards are
+ * shuffled back in, so a card in a player's or the dealer's hand is never
+ * dealt a second time.
+ * <p>
+ * Given a {@link CountingSystem}, the shoe also keeps the running count of
+ * the cards dealt since the last reshuffle, updated with one table lookup
+ * per card, so the true count is available at any time without looking at
+ * the cards again. Every card is counted as it is dealt; a counter at the
+ * table would see the dealer's hole card only at the end of the round, but
+ * bets are placed between rounds, when the two agree.
+ *
+ * @author Miguel A. Nunez Palomares
+ * @version 1.0
+ * @see Deck
+ */
+public class Shoe extends Deck {
+
+    /**
+     * The number of 52-card decks in the shoe.
+     */
+    private final int decks;
+    /**
+     * The fraction of the shoe dealt before the cut card is reached.
+     */
+    private final double penetration;
+    /**
+     * The number of cards dealt when the cut card comes out.
+     */
+    private final int cutCard;
+    /**
+     * The total number of cards in the shoe.
+     */
+    private final int totalCards;
+    /**
+     * The number of reshuffles so far.
+     */
+    private long reshuffles;
+    /**
+     * The time spent reshuffling so far, in nanoseconds.
+     */
+    private long reshuffleNanos;
+    /**
+     * The counting system, or null if the cards are not counted.
+     */
+    private CountingSystem countingSystem;
+    /**
+     * The counting system's tag of each card code, or null.
+     */
+    private int[] countTags;
+    /**
+     * The running count of the cards dealt since the last reshuffle.
+     */
+    private int runningCount;
+    /**
+     * The number of cards dealt when the current round started; the cards
+     * dealt before it are discards.
+     */
+    private int roundStart;
+    /**
+     * The running count when the current round started.
+     */
+    private int roundStartCount;
+
+    /**
+     * Constructs a shuffled shoe.
+     *
+     * @param decks       The number of 52-card decks in the shoe.
+     * @param penetration The fraction of the cards dealt before the cut card,
+     *                    greater than 0 and at most 1.
+     * @param rand        The random source used for shuffling.
+     * @throws IllegalArgumentException If decks is not positive or penetration
+     *                                  is out of range.
+     */
+    public Shoe(int decks, double penetration, RandomSource rand) {
+        super(decks, rand);
+        if (decks < 1) {
+            throw new IllegalArgumentException("Invalid number of decks: " + decks);
+        }
+        if (!(penetration > 0 && penetration <= 1)) {
+            throw new IllegalArgumentException("Invalid penetration: " + penetration);
+        }
+        this.decks = decks;
+        this.penetration = penetration;
+        this.totalCards = decks * Card.CARD_COUNT;
+        this.cutCard = totalCards - cardsAfterCut(decks, penetration);
+        shuffle();
+    }
+
+    /**
+     * Gets the number of cards left in a shoe when its cut card comes out,
+     * which is the room the last round before a reshuffle has.
+     *
+     * @param decks       The number of 52-card decks in the shoe.
+     * @param penetration The fraction of the cards dealt before the cut card.
+     * @return The number of cards behind the cut card.
+     */
+    public static int cardsAfterCut(int decks, double penetration) {
+        int totalCards = decks * Card.CARD_COUNT;
+        return totalCards - Math.max(1, (int) Math.round(totalCards * penetration));
+    }
+
+    /**
+     * Gets the number of 52-card decks in the shoe.
+     *
+     * @return The number of decks.
+     */
+    public int getDecks() {
+        return decks;
+    }
+
+    /**
+     * Gets the fraction of the shoe dealt before the cut card is reached.
+     *
+     * @return The penetration.
+     */
+    public double getPenetration() {
+        return penetration;
+    }
+
+    /**
+     * Gets the number of cards dealt since the last reshuffle.
+     *
+     * @return The number of dealt cards.
+     */
+    public int getDealtCount() {
+        return totalCards - size();
+    }
+
+    /**
+     * Checks whether the cut card has come out, so the shoe should be
+     * reshuffled before the next round.
+     *
+     * @return True if the cut card has been reached.
+     */
+    public boolean isCutCardReached() {
+        return getDealtCount() >= cutCard;
+    }
+
+    /**
+     * Puts every card back into the shoe and shuffles it in place. This also
+     * starts a new round, since no card can be in play any more.
+     */
+    public void reshuffle() {
+        long start = System.nanoTime();
+        super.reset();
+        shuffle();
+        reshuffleNanos += System.nanoTime() - start;
+        reshuffles++;
+        GameMetrics.reshuffled();
+        resetCount();
+        roundStart = 0;
+        roundStartCount = runningCount;
+    }
+
+    /**
+     * Marks the start of a round: every card dealt so far has been
+     * discarded, and the cards dealt from now on are in play until the next
+     * round starts. Call it after the cut card check and before the first
+     * card of the round is dealt.
+     */
+    public void startRound() {
+        roundStart = getDealtCount();
+        roundStartCount = runningCount;
+    }
+
+    /**
+     * Shuffles the discards back into an empty shoe, leaving the cards of
+     * the current round out. Once the cards in play are seen, the count is
+     * the count of a full shoe plus the tags of those cards.
+     *
+     * @throws IllegalStateException If every card in the shoe is in play.
+     */
+    private void reshuffleDiscards() {
+        if (roundStart == 0) {
+            throw new IllegalStateException(
+                    "Every card in the shoe is in play; add decks or lower the penetration");
+        }
+        long start = System.nanoTime();
+        returnDealt(roundStart);
+        shuffle();
+        reshuffleNanos += System.nanoTime() - start;
+        reshuffles++;
+        GameMetrics.reshuffled();
+        int inPlayTags = runningCount - roundStartCount;
+        resetCount();
+        runningCount += inPlayTags;
+        roundStart = 0;
+        roundStartCount = runningCount - inPlayTags;
+    }
+
+    /**
+     * Deals the top card. If the shoe runs dry in the middle of a round the
+     * discards are shuffled back in first, as a casino would; with a
+     * sensible penetration this does not happen.
+     *
+     * @return The card dealt from the shoe.
+     * @throws IllegalStateException If the shoe is empty and every card in
+     *                               it is in play.
+     */
+    @Override
+    public Card deal() {
+        if (isEmpty()) {
+            reshuffleDiscards();
+        }
+        return counted(super.deal());
+    }
+
+    /**
+     * Picks and removes a card at the specified index in the shoe, counting
+     * it like a dealt card. Unlike {@link #deal()}, picking from an empty
+     * shoe does not reshuffle.
+     *
+     * @param i The index of the card to be picked.
+     * @return The card removed from the shoe.
+     * @throws IndexOutOfBoundsException If the index is invalid.
+     */
+    @Override
+    public Card pick(int i) {
+        return counted(super.pick(i));
+    }
+
+    /**
+     * Adds a card that has left the shoe to the running count.
+     *
+     * @param card The card dealt or picked.
+     * @return The card.
+     */
+    private Card counted(Card card) {
+        if (countTags != null) {
+            runningCount += countTags[card.getCode()];
+        }
+        return card;
+    }
+
+    /**
+     * Puts every card back into the shoe and shuffles it, the same as
+     * {@link #reshuffle()}, so the count and the round start over with it.
+     */
+    @Override
+    public void reset() {
+        reshuffle();
+    }
+
+    /**
+     * Not supported: a shoe always holds its decks.
+     *
+     * @throws UnsupportedOperationException Always.
+     */
+    @Override
+    public void clear() {
+        throw new UnsupportedOperationException("The cards in a shoe cannot be changed");
+    }
+
+    /**
+     * Not supported: a shoe always holds its decks.
+     *
+     * @throws UnsupportedOperationException Always.
+     */
+    @Override
+    public void build() {
+        throw new UnsupportedOperationException("The cards in a shoe cannot be changed");
+    }
+
+    /**
+     * Not supported: a shoe always holds its decks.
+     *
+     * @param card The card that would be added.
+     * @throws UnsupportedOperationException Always.
+     */
+    @Override
+    public void add(Card card) {
+        throw new UnsupportedOperationException("The cards in a shoe cannot be changed");
+    }
+
+    /**
+     * Not supported: a shoe always holds its decks.
+     *
+     * @param other The deck whose cards would be added.
+     * @throws UnsupportedOperationException Always.
+     */
+    @Override
+    public void addAll(Deck other) {
+        throw new UnsupportedOperationException("The cards in a shoe cannot be changed");
+    }
+
+    /**
+     * Gets the counting system the shoe keeps a count with.
+     *
+     * @return The counting system, or null if the cards are not counted.
+     */
+    public CountingSystem getCountingSystem() {
+        return countingSystem;
+    }
+
+    /**
+     * Sets the counting system the shoe keeps a count with. The count starts
+     * over at its value for a full shoe, so set it before dealing or right
+     * after a reshuffle.
+     *
+     * @param countingSystem The counting system, or null to stop counting.
+     */
+    public void setCountingSystem(CountingSystem countingSystem) {
+        this.countingSystem = countingSystem;
+        this.countTags = countingSystem == null ? null : countingSystem.tagsByCode();
+        resetCount();
+        roundStartCount = runningCount;
+    }
+
+    /**
+     * Gets the running count of the cards dealt since the last reshuffle.
+     *
+     * @return The running count, or 0 if the cards are not counted.
+     */
+    public int getRunningCount() {
+        return runningCount;
+    }
+
+    /**
+     * Gets the true count: the running count per deck left in the shoe.
+     *
+     * @return The true count, or 0 if the cards are not counted.
+     */
+    public double getTrueCount() {
+        if (countingSystem == null) {
+            return 0.0;
+        }
+        // An empty shoe is reshuffled before the next card, so count it as
+        // one card
+        return countingSystem.trueCount(runningCount, Math.max(size(), 1) / (double) Card.CARD_COUNT);
+    }
+
+    /**
+     * Sets the running count back to its value for a full shoe.
+     */
+    private void resetCount() {
+        runningCount = countingSystem == null ? 0 : countingSystem.initialCount(decks);
+    }
+
+    /**
+     * Gets the number of reshuffles so far.
+     *
+     * @return The reshuffle count.
+     */
+    public long getReshuffleCount() {
+        return reshuffles;
+    }
+
+    /**
+     * Gets the total time spent reshuffling so far.
+     *
+     * @return The reshuffle time in nanoseconds.
+     */
+    public long getReshuffleNanos() {
+        return reshuffleNanos;
+    }
+
+}
@@ -0,0 +1,304 @@
+package edu.guilford;
+
+/**
+ * Tallies the outcomes of a batch of Blackjack rounds. Each simulation worker
+ * fills its own instance, and the per-worker tallies are merged once the
+ * workers have finished.
+ * <p>
+ * Besides the counts, the player's net result per round is accumulated
+ * online with Welford's algorithm, so the mean, the variance and confidence
+ * intervals are available in constant memory however many rounds are played.
+ * Merging uses the parallel form of the same update.
+ *
+ * @author Miguel A. Nunez Palomares
+ * @version 1.0
+ * @see Blackjack.Outcome
+ */
+public class SimulationStats {
+
+    /**
+     * The normal quantile for a two-sided 95% confidence interval.
+     */
+    public static final double Z_95 = 1.959963984540054;
+
+    /**
+     * The number of rounds won by the dealer.
+     */
+    private long dealerWins;
+    /**
+     * The number of rounds won by the player.
+     */
+    private long playerWins;
+    /**
+     * The number of rounds that ended in a push.
+     */
+    private long pushes;
+    /**
+     * The number of shoe reshuffles during the rounds.
+     */
+    private long reshuffles;
+    /**
+     * The time spent reshuffling, in nanoseconds.
+     */
+    private long reshuffleNanos;
+    /**
+     * The number of net results accumulated.
+     */
+    private long count;
+    /**
+     * The running mean of the player's net result per round.
+     */
+    private double mean;
+    /**
+     * The running sum of squared deviations from the mean.
+     */
+    private double sumSquares;
+    /**
+     * The total the player wagered, in units.
+     */
+    private double wagered;
+
+    /**
+     * Records the outcome of one round, with a net result for the player of
+     * +1 for a win, -1 for a loss and 0 for a push.
+     *
+     * @param outcome The outcome to record.
+     */
+    public void record(Blackjack.Outcome outcome) {
+        record(outcome, outcome == Blackjack.Outcome.PLAYER_WIN ? 1.0
+                : outcome == Blackjack.Outcome.DEALER_WIN ? -1.0 : 0.0);
+    }
+
+    /**
+     * Records the outcome of one round and the player's net result.
+     *
+     * @param outcome The outcome to record.
+     * @param net     The player's net result for the round.
+     */
+    public void record(Blackjack.Outcome outcome, double net) {
+        record(outcome, net, 1);
+    }
+
+    /**
+     * Records the outcome of one round, the player's net result and the
+     * total the player wagered.
+     *
+     * @param outcome The outcome to record.
+     * @param net     The player's net result for the round, in units.
+     * @param wagered The total the player wagered on the round, counting
+     *                doubles, splits and insurance, in units.
+     */
+    public void record(Blackjack.Outcome outcome, double net, double wagered) {
+        this.wagered += wagered;
+        count++;
+        double delta = net - mean;
+        mean += delta / count;
+        sumSquares += delta * (net - mean);
+        switch (outcome) {
+            case PLAYER_WIN:
+                playerWins++;
+                break;
+            case DEALER_WIN:
+                dealerWins++;
+                break;
+            default:
+                pushes++;
+                break;
+        }
+    }
+
+    /**
+     * Records the reshuffles made by a shoe while the rounds were played.
+     *
+     * @param shoe The shoe the rounds were dealt from.
+     */
+    public void recordReshuffles(Shoe shoe) {
+        reshuffles += shoe.getReshuffleCount();
+        reshuffleNanos += shoe.getReshuffleNanos();
+    }
+
+    /**
+     * Adds the tallies of another instance to this one.
+     *
+     * @param other The tallies to merge in.
+     * @return This instance, for chaining.
+     */
+    public SimulationStats merge(SimulationStats other) {
+        dealerWins += other.dealerWins;
+        playerWins += other.playerWins;
+        pushes += other.pushes;
+        reshuffles += other.reshuffles;
+        reshuffleNanos += other.reshuffleNanos;
+        wagered += other.wagered;
+        if (other.count > 0) {
+            long combined = count + other.count;
+            double delta = other.mean - mean;
+            mean += delta * other.count / combined;
+            sumSquares += other.sumSquares + delta * delta * ((double) count * other.count / combined);
+            count = combined;
+        }
+        return this;
+    }
+
+    /**
+     * Gets the number of rounds won by the dealer.
+     *
+     * @return The dealer's wins.
+     */
+    public long getDealerWins() {
+        return dealerWins;
+    }
+
+    /**
+     * Gets the number of rounds won by the player.
+     *
+     * @return The player's wins.
+     */
+    public long getPlayerWins() {
+        return playerWins;
+    }
+
+    /**
+     * Gets the number of rounds that ended in a push.
+     *
+     * @return The number of pushes.
+     */
+    public long getPushes() {
+        return pushes;
+    }
+
+    /**
+     * Gets the number of shoe reshuffles during the rounds.
+     *
+     * @return The reshuffle count.
+     */
+    public long getReshuffles() {
+        return reshuffles;
+    }
+
+    /**
+     * Gets the time spent reshuffling.
+     *
+     * @return The reshuffle time in nanoseconds.
+     */
+    public long getReshuffleNanos() {
+        return reshuffleNanos;
+    }
+
+    /**
+     * Gets the total number of rounds recorded.
+     *
+     * @return The number of rounds.
+     */
+    public long getRounds() {
+        return dealerWins + playerWins + pushes;
+    }
+
+    /**
+     * Gets the fraction of rounds won by the player.
+     *
+     * @return The player's win rate, or 0 if no rounds were recorded.
+     */
+    public double getPlayerWinRate() {
+        return rate(playerWins);
+    }
+
+    /**
+     * Gets the fraction of rounds won by the dealer.
+     *
+     * @return The dealer's win rate, or 0 if no rounds were recorded.
+     */
+    public double getDealerWinRate() {
+        return rate(dealerWins);
+    }
+
+    /**
+     * Gets the fraction of rounds that ended in a push.
+     *
+     * @return The push rate, or 0 if no rounds were recorded.
+     */
+    public double getPushRate() {
+        return rate(pushes);
+    }
+
+    /**
+     * Gets the half-width of the normal-approximation confidence interval of
+     * a rate.
+     *
+     * @param rate The rate, as returned by one of the rate getters.
+     * @param z    The normal quantile of the confidence level, such as
+     *             {@link #Z_95}.
+     * @return The half-width of the interval.
+     */
+    public double rateHalfWidth(double rate, double z) {
+        long rounds = getRounds();
+        return rounds == 0 ? Double.POSITIVE_INFINITY : z * Math.sqrt(rate * (1 - rate) / rounds);
+    }
+
+    /**
+     * Gets the mean of the player's net result per round.
+     *
+     * @return The mean net result, or 0 if no rounds were recorded.
+     */
+    public double getMean() {
+        return mean;
+    }
+
+    /**
+     * Gets the sample variance of the player's net result per round.
+     *
+     * @return The variance, or 0 with fewer than two rounds.
+     */
+    public double getVariance() {
+        return count < 2 ? 0.0 : sumSquares / (count - 1);
+    }
+
+    /**
+     * Gets the half-width of the confidence interval of the mean net result.
+     *
+     * @param z The normal quantile of the confidence level, such as
+     *          {@link #Z_95}.
+     * @return The half-width of the interval, or infinity with fewer than two
+     *         rounds.
+     */
+    public double meanHalfWidth(double z) {
+        return count < 2 ? Double.POSITIVE_INFINITY : z * Math.sqrt(getVariance() / count);
+    }
+
+    /**
+     * Gets the average total wagered per round.
+     *
+     * @return The average bet in units.
+     */
+    public double getAverageBet() {
+        long rounds = getRounds();
+        return rounds == 0 ? 0.0 : wagered / rounds;
+    }
+
+    /**
+     * Divides a count by the number of rounds.
+     */
+    private double rate(long tally) {
+        long rounds = getRounds();
+        return rounds == 0 ? 0.0 : (double) tally / rounds;
+    }
+
+    /**
+     * Returns the tallies in the same format the driver has always printed,
+     * followed by the mean net result with its 95% confidence interval, the
+     * net result per 100 rounds, the reshuffle count and the average cost of
+     * a reshuffle. The average bet is shown when the amounts wagered varied.
+     *
+     * @return A formatted string listing the tallies.
+     */
+    @Override
+    public String toString() {
+        return "Dealer wins: " + dealerWins + "\nPlayer wins: " + playerWins + "\nPushes: " + pushes
+                + String.format("%nNet per round: %.5f +/- %.5f (95%%)", mean, meanHalfWidth(Z_95))
+                + String.format("%nNet per 100 rounds: %.3f +/- %.3f units", mean * 100, meanHalfWidth(Z_95) * 100)
+                + (wagered == count ? "" : String.format("%nAverage bet: %.3f units", getAverageBet()))
+                + "\nReshuffles: " + reshuffles + " (" + (reshuffles == 0 ? 0 : reshuffleNanos / reshuffles)
+                + " ns each)";
+    }
+
+}
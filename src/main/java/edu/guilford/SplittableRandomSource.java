@@ -0,0 +1,58 @@
+package edu.guilford;
+
+import java.util.SplittableRandom;
+
+/**
+ * A random source backed by java.util.SplittableRandom, whose split streams
+ * are designed to be statistically independent of their parent.
+ *
+ * @author Miguel A. Nunez Palomares
+ * @version 1.0
+ * @see RandomSource
+ */
+public class SplittableRandomSource implements RandomSource {
+
+    /**
+     * The underlying generator.
+     */
+    private final SplittableRandom random;
+
+    /**
+     * Constructs a source from a seed.
+     *
+     * @param seed The seed.
+     */
+    public SplittableRandomSource(long seed) {
+        this(new SplittableRandom(seed));
+    }
+
+    /**
+     * Wraps an existing generator.
+     *
+     * @param random The generator to draw from.
+     */
+    private SplittableRandomSource(SplittableRandom random) {
+        this.random = random;
+    }
+
+    @Override
+    public int nextInt(int bound) {
+        return random.nextInt(bound);
+    }
+
+    @Override
+    public long nextLong() {
+        return random.nextLong();
+    }
+
+    @Override
+    public double nextDouble() {
+        return random.nextDouble();
+    }
+
+    @Override
+    public SplittableRandomSource split() {
+        return new SplittableRandomSource(random.split());
+    }
+
+}
@@ -0,0 +1,132 @@
+package edu.guilford;
+
+import java.util.Arrays;
+
+/**
+ * Counts how many times each game state, identified by its hash, has been
+ * seen. The counts live in an open-addressing table with linear probing.
+ * Clearing the history only starts a new generation, and slots stamped with
+ * an older one count as empty, so a history can be cleared for every game
+ * without touching the table. It only allocates when a game visits more
+ * states than any game before it.
+ *
+ * @author Miguel A. Nunez Palomares
+ * @version 1.0
+ * @see LamarckianPoker#getStateHash()
+ */
+class StateHistory {
+
+    /**
+     * The state hashes.
+     */
+    private long[] hashes;
+    /**
+     * The number of visits to each state.
+     */
+    private int[] visits;
+    /**
+     * The generation in which each slot was filled.
+     */
+    private int[] stamps;
+    /**
+     * The current generation; slots stamped with any other are empty.
+     */
+    private int generation = 1;
+    /**
+     * The number of states in the current generation.
+     */
+    private int size;
+
+    /**
+     * Constructs an empty history.
+     *
+     * @param capacity The number of slots, a power of two.
+     * @throws IllegalArgumentException If the capacity is not a positive
+     *                                  power of two.
+     */
+    StateHistory(int capacity) {
+        if (capacity < 1 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Invalid capacity: " + capacity);
+        }
+        allocate(capacity);
+    }
+
+    /**
+     * Forgets every state seen.
+     */
+    void clear() {
+        size = 0;
+        if (++generation == 0) {
+            // After 2^32 clears the stamps wrap around and must be wiped
+            Arrays.fill(stamps, 0);
+            generation = 1;
+        }
+    }
+
+    /**
+     * Records a visit to a state.
+     *
+     * @param hash The state's hash.
+     * @return The number of visits to the state, including this one.
+     */
+    int visit(long hash) {
+        int mask = hashes.length - 1;
+        int slot = (int) RandomSource.mix(hash) & mask;
+        while (stamps[slot] == generation) {
+            if (hashes[slot] == hash) {
+                return ++visits[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+        stamps[slot] = generation;
+        hashes[slot] = hash;
+        visits[slot] = 1;
+        if (++size * 2 > hashes.length) {
+            grow();
+        }
+        return 1;
+    }
+
+    /**
+     * Gets the number of different states seen.
+     *
+     * @return The state count.
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Doubles the table, moving the current generation's states across.
+     */
+    private void grow() {
+        long[] oldHashes = hashes;
+        int[] oldVisits = visits;
+        int[] oldStamps = stamps;
+        int oldGeneration = generation;
+        allocate(oldHashes.length * 2);
+        int mask = hashes.length - 1;
+        for (int i = 0; i < oldHashes.length; i++) {
+            if (oldStamps[i] == oldGeneration) {
+                int slot = (int) RandomSource.mix(oldHashes[i]) & mask;
+                while (stamps[slot] == generation) {
+                    slot = (slot + 1) & mask;
+                }
+                stamps[slot] = generation;
+                hashes[slot] = oldHashes[i];
+                visits[slot] = oldVisits[i];
+            }
+        }
+    }
+
+    /**
+     * Allocates empty tables of the given capacity.
+     */
+    private void allocate(int capacity) {
+        hashes = new long[capacity];
+        visits = new int[capacity];
+        stamps = new int[capacity];
+        generation = 1;
+    }
+
+}
@@ -0,0 +1,82 @@
+package edu.guilford;
+
+/**
+ * A Blackjack playing strategy. Decisions depend only on the player's total,
+ * whether that total is soft, and the value of the dealer's upcard, so an
+ * implementation can compile them into a lookup table.
+ *
+ * @author Miguel A. Nunez Palomares
+ * @version 1.0
+ * @see StrategyTable, Blackjack
+ */
+public interface Strategy {
+
+    /**
+     * The decisions a strategy can make. Doubling and surrendering are not
+     * always permitted, so each of them names the action to take instead.
+     */
+    enum Action {
+        /** Take another card. */
+        HIT(true),
+        /** Take no more cards. */
+        STAND(false),
+        /** Double the bet and take exactly one card, or hit if not permitted. */
+        DOUBLE(true),
+        /** Double the bet and take exactly one card, or stand if not permitted. */
+        DOUBLE_OR_STAND(false),
+        /** Give up half the bet, or hit if not permitted. */
+        SURRENDER(true);
+
+        /**
+         * Whether the action draws a card when only hitting and standing are
+         * permitted.
+         */
+        private final boolean hitsWhenRestricted;
+
+        Action(boolean hitsWhenRestricted) {
+            this.hitsWhenRestricted = hitsWhenRestricted;
+        }
+
+        /**
+         * Checks whether this action draws a card when only hitting and
+         * standing are permitted.
+         *
+         * @return True if the action falls back to hitting.
+         */
+        public boolean hitsWhenRestricted() {
+            return hitsWhenRestricted;
+        }
+    }
+
+    /**
+     * Decides how to play a hand.
+     *
+     * @param total         The player's total, 4-21.
+     * @param soft          Whether an Ace in the hand counts as 11.
+     * @param dealerUpValue The Blackjack value of the dealer's upcard, 2-11.
+     * @return The action to take.
+     */
+    Action decide(int total, boolean soft, int dealerUpValue);
+
+    /**
+     * Decides whether to split a pair.
+     *
+     * @param pairValue     The Blackjack value of each card of the pair, 2-11.
+     * @param dealerUpValue The Blackjack value of the dealer's upcard, 2-11.
+     * @return True if the pair should be split.
+     */
+    boolean shouldSplit(int pairValue, int dealerUpValue);
+
+    /**
+     * Decides whether to hit when only hitting and standing are permitted.
+     *
+     * @param total         The player's total, 4-21.
+     * @param soft          Whether an Ace in the hand counts as 11.
+     * @param dealerUpValue The Blackjack value of the dealer's upcard, 2-11.
+     * @return True if the player should take another card.
+     */
+    default boolean hits(int total, boolean soft, int dealerUpValue) {
+        return decide(total, soft, dealerUpValue).hitsWhenRestricted();
+    }
+
+}
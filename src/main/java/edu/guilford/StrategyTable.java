@@ -0,0 +1,327 @@
+package edu.guilford;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * A Blackjack strategy compiled into flat lookup arrays. Every decision is a
+ * single array read indexed by the soft flag, the player's total and the
+ * dealer's upcard, so playing a hand involves no branching on the rules and
+ * no allocation.
+ * <p>
+ * Tables are written as text, one row per line:
+ *
+ * <pre>
+ * # dealer upcard:  2  3  4  5  6  7  8  9 10  A
+ * hard 12           H  H  S  S  S  H  H  H  H  H
+ * soft 17-18        H  D  D  D  D  H  H  H  H  H
+ * pair 8            P  P  P  P  P  P  P  P  P  P
+ * </pre>
+ *
+ * A row names a hard total, a soft total or a pair (2-10 or A), or a range of
+ * them, followed by one entry per dealer upcard from 2 to Ace. Hard and soft
+ * entries are H (hit), S (stand), D (double, else hit), Ds (double, else
+ * stand) or R (surrender, else hit); pair entries are P (split) or - (play
+ * the total). Totals without a row hit below 17 and stand otherwise, and
+ * pairs without a row are not split. Lines starting with # are comments.
+ *
+ * @author Miguel A. Nunez Palomares
+ * @version 1.0
+ * @see Strategy
+ */
+public class StrategyTable implements Strategy {
+
+    /**
+     * The number of dealer upcards, 2 to Ace.
+     */
+    private static final int UPCARDS = 10;
+
+    /**
+     * The number of player totals a row of the table covers, 0 to 21.
+     */
+    private static final int TOTALS = 22;
+
+    /**
+     * The offset of the soft half of the decision table.
+     */
+    private static final int SOFT_OFFSET = TOTALS * UPCARDS;
+
+    /**
+     * Basic strategy for four to eight decks, dealer standing on soft 17,
+     * doubling after splits allowed and late surrender.
+     */
+    private static final String BASIC_STRATEGY = """
+            # Basic strategy: 4-8 decks, dealer stands on soft 17, DAS, late surrender
+            # dealer upcard:  2  3  4  5  6  7  8  9 10  A
+            hard 4-8          H  H  H  H  H  H  H  H  H  H
+            hard 9            H  D  D  D  D  H  H  H  H  H
+            hard 10           D  D  D  D  D  D  D  D  H  H
+            hard 11           D  D  D  D  D  D  D  D  D  H
+            hard 12           H  H  S  S  S  H  H  H  H  H
+            hard 13-14        S  S  S  S  S  H  H  H  H  H
+            hard 15           S  S  S  S  S  H  H  H  R  H
+            hard 16           S  S  S  S  S  H  H  R  R  R
+            hard 17-21        S  S  S  S  S  S  S  S  S  S
+            soft 12           H  H  H  H  H  H  H  H  H  H
+            soft 13-14        H  H  H  D  D  H  H  H  H  H
+            soft 15-16        H  H  D  D  D  H  H  H  H  H
+            soft 17           H  D  D  D  D  H  H  H  H  H
+            soft 18           S Ds Ds Ds Ds  S  S  H  H  H
+            soft 19-21        S  S  S  S  S  S  S  S  S  S
+            pair 2-3          P  P  P  P  P  P  -  -  -  -
+            pair 4            -  -  -  P  P  -  -  -  -  -
+            pair 5            -  -  -  -  -  -  -  -  -  -
+            pair 6            P  P  P  P  P  -  -  -  -  -
+            pair 7            P  P  P  P  P  P  -  -  -  -
+            pair 8            P  P  P  P  P  P  P  P  P  P
+            pair 9            P  P  P  P  P  -  P  P  -  -
+            pair 10           -  -  -  -  -  -  -  -  -  -
+            pair A            P  P  P  P  P  P  P  P  P  P
+            """;
+
+    /**
+     * The strategy CardGameDriver has always played: hit below 16.
+     */
+    private static final StrategyTable DEFAULT = threshold(16);
+
+    /**
+     * A short description of the strategy.
+     */
+    private final String name;
+    /**
+     * The action for each soft flag, total and upcard.
+     */
+    private final Action[] actions = new Action[2 * SOFT_OFFSET];
+    /**
+     * Whether each action draws when only hitting and standing are permitted.
+     */
+    private final boolean[] hits = new boolean[2 * SOFT_OFFSET];
+    /**
+     * Whether to split each pair value against each upcard.
+     */
+    private final boolean[] splits = new boolean[UPCARDS * UPCARDS];
+
+    /**
+     * Constructs a table that hits below 17 and never splits, to be filled in.
+     *
+     * @param name A short description of the strategy.
+     */
+    private StrategyTable(String name) {
+        this.name = name;
+        for (int total = 0; total < TOTALS; total++) {
+            Action action = total < 17 ? Action.HIT : Action.STAND;
+            for (int up = 2; up <= 11; up++) {
+                set(false, total, up, action);
+                set(true, total, up, action);
+            }
+        }
+    }
+
+    /**
+     * Returns the strategy that hits below 16 and stands otherwise, which is
+     * what Blackjack.playerTurn has always done.
+     *
+     * @return The default player strategy.
+     */
+    public static StrategyTable defaultStrategy() {
+        return DEFAULT;
+    }
+
+    /**
+     * Builds a strategy that hits below the given total and stands otherwise,
+     * whatever the dealer shows.
+     *
+     * @param standOn The total on which to stand.
+     * @return The threshold strategy.
+     */
+    public static StrategyTable threshold(int standOn) {
+        StrategyTable table = new StrategyTable("Hit below " + standOn);
+        for (int total = 0; total < TOTALS; total++) {
+            Action action = total < standOn ? Action.HIT : Action.STAND;
+            for (int up = 2; up <= 11; up++) {
+                table.set(false, total, up, action);
+                table.set(true, total, up, action);
+            }
+        }
+        return table;
+    }
+
+    /**
+     * Returns the full basic strategy for four to eight decks with the dealer
+     * standing on soft 17.
+     *
+     * @return The basic strategy.
+     */
+    public static StrategyTable basic() {
+        try {
+            return parse("Basic strategy", new StringReader(BASIC_STRATEGY));
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot read the built-in basic strategy", e);
+        }
+    }
+
+    /**
+     * Loads a strategy from a text file in the format described above.
+     *
+     * @param file The file to read.
+     * @return The strategy.
+     * @throws IOException              If the file cannot be read.
+     * @throws IllegalArgumentException If the file is malformed.
+     */
+    public static StrategyTable load(Path file) throws IOException {
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            return parse(file.getFileName().toString(), reader);
+        }
+    }
+
+    /**
+     * Parses a strategy in the format described above.
+     *
+     * @param name   A short description of the strategy.
+     * @param source The text to parse.
+     * @return The strategy.
+     * @throws IOException              If the text cannot be read.
+     * @throws IllegalArgumentException If the text is malformed.
+     */
+    public static StrategyTable parse(String name, Reader source) throws IOException {
+        StrategyTable table = new StrategyTable(name);
+        BufferedReader reader = new BufferedReader(source);
+        String line;
+        int lineNumber = 0;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            String[] tokens = line.split("\\s+");
+            if (tokens.length != 2 + UPCARDS) {
+                throw new IllegalArgumentException("Line " + lineNumber + ": expected a row kind, a range and "
+                        + UPCARDS + " entries");
+            }
+            String kind = tokens[0].toLowerCase();
+            boolean pair = kind.equals("pair");
+            if (!pair && !kind.equals("hard") && !kind.equals("soft")) {
+                throw new IllegalArgumentException("Line " + lineNumber + ": unknown row kind " + tokens[0]);
+            }
+            String[] range = tokens[1].split("-");
+            int first = parseRowValue(range[0], pair, lineNumber);
+            int last = range.length > 1 ? parseRowValue(range[1], pair, lineNumber) : first;
+            if (range.length > 2 || first > last) {
+                throw new IllegalArgumentException("Line " + lineNumber + ": invalid range " + tokens[1]);
+            }
+            for (int value = first; value <= last; value++) {
+                for (int up = 2; up <= 11; up++) {
+                    String entry = tokens[up];
+                    if (pair) {
+                        table.splits[index(value) * UPCARDS + index(up)] = parseSplit(entry, lineNumber);
+                    } else {
+                        table.set(kind.equals("soft"), value, up, parseAction(entry, lineNumber));
+                    }
+                }
+            }
+        }
+        return table;
+    }
+
+    /**
+     * Parses the total or pair value that a row, or one end of its range,
+     * names.
+     */
+    private static int parseRowValue(String token, boolean pair, int lineNumber) {
+        if (pair && token.equalsIgnoreCase("A")) {
+            return 11;
+        }
+        int value;
+        try {
+            value = Integer.parseInt(token);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Line " + lineNumber + ": invalid value " + token);
+        }
+        if (pair ? value < 2 || value > 10 : value < 4 || value > 21) {
+            throw new IllegalArgumentException("Line " + lineNumber + ": value out of range " + token);
+        }
+        return value;
+    }
+
+    /**
+     * Parses a hard or soft entry.
+     */
+    private static Action parseAction(String entry, int lineNumber) {
+        switch (entry.toUpperCase()) {
+            case "H":
+                return Action.HIT;
+            case "S":
+                return Action.STAND;
+            case "D":
+                return Action.DOUBLE;
+            case "DS":
+                return Action.DOUBLE_OR_STAND;
+            case "R":
+                return Action.SURRENDER;
+            default:
+                throw new IllegalArgumentException("Line " + lineNumber + ": unknown action " + entry);
+        }
+    }
+
+    /**
+     * Parses a pair entry.
+     */
+    private static boolean parseSplit(String entry, int lineNumber) {
+        switch (entry.toUpperCase()) {
+            case "P":
+                return true;
+            case "-":
+                return false;
+            default:
+                throw new IllegalArgumentException("Line " + lineNumber + ": unknown pair entry " + entry);
+        }
+    }
+
+    /**
+     * Gets the table index of a card value, 2 to Ace (11).
+     */
+    private static int index(int value) {
+        return value - 2;
+    }
+
+    /**
+     * Stores one decision and its hit-or-stand fallback.
+     */
+    private void set(boolean soft, int total, int dealerUpValue, Action action) {
+        int i = (soft ? SOFT_OFFSET : 0) + total * UPCARDS + index(dealerUpValue);
+        actions[i] = action;
+        hits[i] = action.hitsWhenRestricted();
+    }
+
+    @Override
+    public Action decide(int total, boolean soft, int dealerUpValue) {
+        return actions[(soft ? SOFT_OFFSET : 0) + total * UPCARDS + index(dealerUpValue)];
+    }
+
+    @Override
+    public boolean hits(int total, boolean soft, int dealerUpValue) {
+        return hits[(soft ? SOFT_OFFSET : 0) + total * UPCARDS + index(dealerUpValue)];
+    }
+
+    @Override
+    public boolean shouldSplit(int pairValue, int dealerUpValue) {
+        return splits[index(pairValue) * UPCARDS + index(dealerUpValue)];
+    }
+
+    /**
+     * Returns the description of the strategy.
+     *
+     * @return The name of the strategy.
+     */
+    @Override
+    public String toString() {
+        return name;
+    }
+
+}
@@ -0,0 +1,48 @@
+package edu.guilford;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * A random source that draws from the calling thread's ThreadLocalRandom. It
+ * cannot be seeded, but one instance can be shared by any number of threads
+ * without contention, which makes it the default for callers that do not
+ * need to replay a run.
+ *
+ * @author Miguel A. Nunez Palomares
+ * @version 1.0
+ * @see RandomSource
+ */
+public final class ThreadLocalRandomSource implements RandomSource {
+
+    /**
+     * The shared instance.
+     */
+    static final ThreadLocalRandomSource INSTANCE = new ThreadLocalRandomSource();
+
+    /**
+     * Prevents instantiation; use {@link RandomSource#threadLocal()}.
+     */
+    private ThreadLocalRandomSource() {
+    }
+
+    @Override
+    public int nextInt(int bound) {
+        return ThreadLocalRandom.current().nextInt(bound);
+    }
+
+    @Override
+    public long nextLong() {
+        return ThreadLocalRandom.current().nextLong();
+    }
+
+    @Override
+    public double nextDouble() {
+        return ThreadLocalRandom.current().nextDouble();
+    }
+
+    @Override
+    public RandomSource split() {
+        return RandomSource.create();
+    }
+
+}
@@ -0,0 +1,187 @@
+package edu.guilford;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+/**
+ * Measures a run: the time it took and the heap memory allocated by all
+ * threads while it ran, reported per second and per unit of work such as a
+ * round or a game. Allocation is read from the JVM's per-thread allocation
+ * counters, which count every byte handed out without waiting for a garbage
+ * collection, summed over the live threads; the memory of a thread that ends
+ * during the run is missed, so measure before shutting a pool down. If the
+ * JVM does not provide the counters the allocation is reported as unknown.
+ *
+ * @author Miguel A. Nunez Palomares
+ * @version 1.0
+ * @see CardGameDriver
+ */
+public class ThroughputMeter {
+
+    /**
+     * The JVM's thread bean with allocation counters, or null if it has none.
+     */
+    private static final com.sun.management.ThreadMXBean THREADS = allocationBean();
+
+    /**
+     * The time and allocation when the meter was started.
+     */
+    private long startNanos;
+    private long startBytes;
+    /**
+     * The measurements of the finished run.
+     */
+    private long elapsedNanos;
+    private long allocatedBytes = -1;
+    private long units;
+
+    /**
+     * Starts measuring.
+     */
+    public void start() {
+        startBytes = allocatedBytes();
+        startNanos = System.nanoTime();
+    }
+
+    /**
+     * Stops measuring.
+     *
+     * @param units The number of units of work done since {@link #start()}.
+     */
+    public void stop(long units) {
+        elapsedNanos = System.nanoTime() - startNanos;
+        long bytes = allocatedBytes();
+        this.allocatedBytes = bytes < 0 || startBytes < 0 ? -1 : bytes - startBytes;
+        this.units = units;
+    }
+
+    /**
+     * Gets the number of units of work measured.
+     *
+     * @return The unit count.
+     */
+    public long getUnits() {
+        return units;
+    }
+
+    /**
+     * Gets the duration of the run.
+     *
+     * @return The elapsed time in nanoseconds.
+     */
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    /**
+     * Gets the units of work done per second.
+     *
+     * @return The throughput.
+     */
+    public double getUnitsPerSecond() {
+        return elapsedNanos == 0 ? 0.0 : units * 1e9 / elapsedNanos;
+    }
+
+    /**
+     * Gets the time taken per unit of work.
+     *
+     * @return The nanoseconds per unit.
+     */
+    public double getNanosPerUnit() {
+        return units == 0 ? 0.0 : (double) elapsedNanos / units;
+    }
+
+    /**
+     * Gets the heap memory allocated during the run.
+     *
+     * @return The allocated bytes, or -1 if unknown.
+     */
+    public long getAllocatedBytes() {
+        return allocatedBytes;
+    }
+
+    /**
+     * Gets the allocation rate of the run.
+     *
+     * @return The bytes allocated per second, or -1 if unknown.
+     */
+    public double getBytesPerSecond() {
+        if (allocatedBytes < 0) {
+            return -1;
+        }
+        return elapsedNanos == 0 ? 0.0 : allocatedBytes * 1e9 / elapsedNanos;
+    }
+
+    /**
+     * Gets the memory allocated per unit of work.
+     *
+     * @return The bytes per unit, or -1 if unknown.
+     */
+    public double getBytesPerUnit() {
+        if (allocatedBytes < 0) {
+            return -1;
+        }
+        return units == 0 ? 0.0 : (double) allocatedBytes / units;
+    }
+
+    /**
+     * Returns the measurements on one line, naming the unit of work.
+     *
+     * @param unit The name of one unit of work, such as "round".
+     * @return The measurements as a string.
+     */
+    public String toString(String unit) {
+        String result = String.format("%d %ss in %.3f s: %.0f %ss/s, %.1f ns/%s", units, unit, elapsedNanos / 1e9,
+                getUnitsPerSecond(), unit, getNanosPerUnit(), unit);
+        if (allocatedBytes < 0) {
+            return result + ", allocation unknown";
+        }
+        return result + String.format(", allocation %.1f MB/s (%.1f bytes/%s)", getBytesPerSecond() / 1e6,
+                getBytesPerUnit(), unit);
+    }
+
+    /**
+     * Returns the measurements on one line.
+     *
+     * @return The measurements as a string.
+     */
+    @Override
+    public String toString() {
+        return toString("unit");
+    }
+
+    /**
+     * Reads the total heap memory allocated so far by the threads that are
+     * alive.
+     */
+    private static long allocatedBytes() {
+        if (THREADS == null) {
+            return -1;
+        }
+        long total = 0;
+        for (long bytes : THREADS.getThreadAllocatedBytes(THREADS.getAllThreadIds())) {
+            if (bytes > 0) {
+                total += bytes;
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Finds the thread bean and turns its allocation counters on, if the JVM
+     * has them.
+     */
+    private static com.sun.management.ThreadMXBean allocationBean() {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (!(bean instanceof com.sun.management.ThreadMXBean)) {
+            return null;
+        }
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) bean;
+        if (!threads.isThreadAllocatedMemorySupported()) {
+            return null;
+        }
+        threads.setThreadAllocatedMemoryEnabled(true);
+        return threads;
+    }
+
+}
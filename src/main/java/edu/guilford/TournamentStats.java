@@ -0,0 +1,319 @@
+package edu.guilford;
+
+/**
+ * Collects per-game statistics of a batch of Lamarckian Poker games: how many
+ * turns each game took, which seat won, the final hand sizes and poker hands,
+ * and how often the deck was reloaded from the discard pile. Each worker fills
+ * its own instance, and the instances are merged once the workers have
+ * finished.
+ *
+ * @author Miguel A. Nunez Palomares
+ * @version 1.0
+ * @see LamarckianTournament
+ */
+public class TournamentStats {
+
+    /**
+     * The largest hand size tracked individually; larger hands share the last
+     * bucket of the histogram.
+     */
+    private static final int MAX_TRACKED_HAND_SIZE = Card.CARD_COUNT;
+
+    /**
+     * The number of games played, finished or not.
+     */
+    private long games;
+    /**
+     * The number of games stopped at the turn limit.
+     */
+    private long cappedGames;
+    /**
+     * The number of games stopped because their state repeated.
+     */
+    private long cycleGames;
+    /**
+     * The number of games won by each seat, and the number of ties.
+     */
+    private long player1Wins;
+    private long player2Wins;
+    private long ties;
+    /**
+     * The number of turns won by each seat.
+     */
+    private long player1TurnWins;
+    private long player2TurnWins;
+    /**
+     * The total number of deck reloads from the discard pile.
+     */
+    private long deckReloads;
+    /**
+     * The number of games that took each number of turns, up to the limit.
+     */
+    private final long[] turnHistogram;
+    /**
+     * The number of final hands of each size.
+     */
+    private final long[] handSizeHistogram = new long[MAX_TRACKED_HAND_SIZE + 1];
+    /**
+     * The number of final hands in each poker category.
+     */
+    private final long[] categories = new long[PokerEvaluator.Category.values().length];
+    /**
+     * The time the batch took, in nanoseconds.
+     */
+    private long elapsedNanos;
+
+    /**
+     * Constructs empty statistics for games limited to the given number of
+     * turns.
+     *
+     * @param maxTurns The turn limit of the games.
+     */
+    public TournamentStats(int maxTurns) {
+        turnHistogram = new long[maxTurns + 1];
+    }
+
+    /**
+     * Records a game once it has finished or been stopped. The seat holding
+     * the better poker hand is counted as the game's winner.
+     *
+     * @param game     The game.
+     * @param finished Whether the game finished, rather than hit the limit.
+     */
+    public void record(LamarckianPoker game, boolean finished) {
+        games++;
+        if (!finished) {
+            cappedGames++;
+        }
+        if (game.isCycleDetected()) {
+            cycleGames++;
+        }
+        int turnWins1 = game.getTurnWins(1);
+        int turnWins2 = game.getTurnWins(2);
+        player1TurnWins += turnWins1;
+        player2TurnWins += turnWins2;
+        int winner = game.determineGameWinner();
+        if (winner == 1) {
+            player1Wins++;
+        } else if (winner == 2) {
+            player2Wins++;
+        } else {
+            ties++;
+        }
+        categories[PokerEvaluator.categoryOf(game.getHandStrength(1)).ordinal()]++;
+        categories[PokerEvaluator.categoryOf(game.getHandStrength(2)).ordinal()]++;
+        deckReloads += game.getDeckReloads();
+        turnHistogram[Math.min(game.getTurnNumber(), turnHistogram.length - 1)]++;
+        handSizeHistogram[Math.min(game.getPlayer1Hand().size(), MAX_TRACKED_HAND_SIZE)]++;
+        handSizeHistogram[Math.min(game.getPlayer2Hand().size(), MAX_TRACKED_HAND_SIZE)]++;
+    }
+
+    /**
+     * Adds the statistics of another instance to this one.
+     *
+     * @param other The statistics to merge in; must have the same turn limit.
+     * @return This instance, for chaining.
+     */
+    public TournamentStats merge(TournamentStats other) {
+        games += other.games;
+        cappedGames += other.cappedGames;
+        cycleGames += other.cycleGames;
+        player1Wins += other.player1Wins;
+        player2Wins += other.player2Wins;
+        ties += other.ties;
+        player1TurnWins += other.player1TurnWins;
+        player2TurnWins += other.player2TurnWins;
+        deckReloads += other.deckReloads;
+        for (int i = 0; i < turnHistogram.length; i++) {
+            turnHistogram[i] += other.turnHistogram[i];
+        }
+        for (int i = 0; i < handSizeHistogram.length; i++) {
+            handSizeHistogram[i] += other.handSizeHistogram[i];
+        }
+        for (int i = 0; i < categories.length; i++) {
+            categories[i] += other.categories[i];
+        }
+        return this;
+    }
+
+    /**
+     * Sets the time the batch took.
+     *
+     * @param elapsedNanos The elapsed time in nanoseconds.
+     */
+    public void setElapsedNanos(long elapsedNanos) {
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    /**
+     * Gets the number of games played.
+     *
+     * @return The game count.
+     */
+    public long getGames() {
+        return games;
+    }
+
+    /**
+     * Gets the number of games stopped at the turn limit.
+     *
+     * @return The capped game count.
+     */
+    public long getCappedGames() {
+        return cappedGames;
+    }
+
+    /**
+     * Gets the number of games stopped because their state repeated.
+     *
+     * @return The cycle count.
+     */
+    public long getCycleGames() {
+        return cycleGames;
+    }
+
+    /**
+     * Gets the fraction of games won by a seat.
+     *
+     * @param player The seat, 1 or 2.
+     * @return The seat's win rate, or 0 if no games were played.
+     */
+    public double getWinRate(int player) {
+        return games == 0 ? 0.0 : (double) (player == 1 ? player1Wins : player2Wins) / games;
+    }
+
+    /**
+     * Gets the fraction of turns won by a seat.
+     *
+     * @param player The seat, 1 or 2.
+     * @return The seat's turn win rate, or 0 if no turns were played.
+     */
+    public double getTurnWinRate(int player) {
+        long turns = player1TurnWins + player2TurnWins;
+        return turns == 0 ? 0.0 : (double) (player == 1 ? player1TurnWins : player2TurnWins) / turns;
+    }
+
+    /**
+     * Gets the number of games that ended in a tie.
+     *
+     * @return The tie count.
+     */
+    public long getTies() {
+        return ties;
+    }
+
+    /**
+     * Gets the total number of deck reloads from the discard pile.
+     *
+     * @return The reload count.
+     */
+    public long getDeckReloads() {
+        return deckReloads;
+    }
+
+    /**
+     * Gets a copy of the distribution of turns per game. The last entry
+     * counts the games that reached the turn limit.
+     *
+     * @return The number of games that took each number of turns.
+     */
+    public long[] getTurnHistogram() {
+        return turnHistogram.clone();
+    }
+
+    /**
+     * Gets a copy of the distribution of final hand sizes, over both seats.
+     *
+     * @return The number of final hands of each size.
+     */
+    public long[] getHandSizeHistogram() {
+        return handSizeHistogram.clone();
+    }
+
+    /**
+     * Gets the number of final hands, over both seats, in a poker category.
+     *
+     * @param category The hand category.
+     * @return The number of final hands of that category.
+     */
+    public long getCategoryCount(PokerEvaluator.Category category) {
+        return categories[category.ordinal()];
+    }
+
+    /**
+     * Gets the mean number of turns per game.
+     *
+     * @return The mean turn count, or 0 if no games were played.
+     */
+    public double getMeanTurns() {
+        long turns = 0;
+        for (int i = 0; i < turnHistogram.length; i++) {
+            turns += i * turnHistogram[i];
+        }
+        return games == 0 ? 0.0 : (double) turns / games;
+    }
+
+    /**
+     * Gets the smallest number of turns that the given fraction of games
+     * finished within.
+     *
+     * @param fraction The fraction of games, between 0 and 1.
+     * @return The turn count at that quantile.
+     */
+    public int getTurnQuantile(double fraction) {
+        long target = (long) Math.ceil(fraction * games);
+        long seen = 0;
+        for (int i = 0; i < turnHistogram.length; i++) {
+            seen += turnHistogram[i];
+            if (seen >= target && seen > 0) {
+                return i;
+            }
+        }
+        return turnHistogram.length - 1;
+    }
+
+    /**
+     * Gets the number of games played per second.
+     *
+     * @return The throughput, or 0 if no time was recorded.
+     */
+    public double getGamesPerSecond() {
+        return elapsedNanos == 0 ? 0.0 : games * 1e9 / elapsedNanos;
+    }
+
+    /**
+     * Returns a summary of the statistics.
+     *
+     * @return A formatted string listing the statistics.
+     */
+    @Override
+    public String toString() {
+        StringBuilder result = new StringBuilder();
+        result.append("Games: ").append(games).append(" (").append(cappedGames).append(" stopped at ")
+                .append(turnHistogram.length - 1).append(" turns")
+                .append(cycleGames == 0 ? "" : ", " + cycleGames + " by a repeated state").append(")\n");
+        result.append(String.format("Player 1 wins: %.4f, Player 2 wins: %.4f, Ties: %d%n",
+                getWinRate(1), getWinRate(2), ties));
+        result.append(String.format("Turn win rate: %.4f / %.4f%n", getTurnWinRate(1), getTurnWinRate(2)));
+        result.append(String.format("Turns per game: mean %.2f, median %d, 99th percentile %d%n",
+                getMeanTurns(), getTurnQuantile(0.5), getTurnQuantile(0.99)));
+        result.append("Final hand sizes:");
+        for (int size = 0; size < handSizeHistogram.length; size++) {
+            if (handSizeHistogram[size] > 0) {
+                result.append(' ').append(size).append('=').append(handSizeHistogram[size]);
+            }
+        }
+        result.append('\n');
+        result.append("Final poker hands:");
+        for (PokerEvaluator.Category category : PokerEvaluator.Category.values()) {
+            if (categories[category.ordinal()] > 0) {
+                result.append(' ').append(category).append('=').append(categories[category.ordinal()]);
+            }
+        }
+        result.append('\n');
+        result.append(String.format("Deck reloads per game: %.3f%n", games == 0 ? 0.0 : (double) deckReloads / games));
+        result.append(String.format("Throughput: %.0f games/s%n", getGamesPerSecond()));
+        return result.toString();
+    }
+
+}
@@ -0,0 +1,82 @@
+package edu.guilford;
+
+/**
+ * A random source implementing the xoshiro256** generator of Blackman and
+ * Vigna: 256 bits of state, a period of 2^256 - 1 and a handful of shifts,
+ * rotations and XORs per number. The state is filled from the seed with
+ * SplitMix64, so that nearby seeds give unrelated streams. Bounded ints use
+ * Lemire's multiply-and-reject method, which needs no division in the common
+ * case.
+ *
+ * @author Miguel A. Nunez Palomares
+ * @version 1.0
+ * @see RandomSource
+ */
+public class XoshiroRandomSource implements RandomSource {
+
+    /**
+     * The generator state.
+     */
+    private long s0;
+    private long s1;
+    private long s2;
+    private long s3;
+
+    /**
+     * Constructs a generator from a seed.
+     *
+     * @param seed The seed.
+     */
+    public XoshiroRandomSource(long seed) {
+        setSeed(seed);
+    }
+
+    /**
+     * Restarts the generator from a seed, giving the same numbers as a new
+     * generator constructed from it, so that one instance can be reused for
+     * many seeded games.
+     *
+     * @param seed The seed.
+     */
+    public void setSeed(long seed) {
+        s0 = RandomSource.mix(seed += GOLDEN_GAMMA);
+        s1 = RandomSource.mix(seed += GOLDEN_GAMMA);
+        s2 = RandomSource.mix(seed += GOLDEN_GAMMA);
+        s3 = RandomSource.mix(seed + GOLDEN_GAMMA);
+    }
+
+    @Override
+    public long nextLong() {
+        long result = Long.rotateLeft(s1 * 5, 7) * 9;
+        long t = s1 << 17;
+        s2 ^= s0;
+        s3 ^= s1;
+        s1 ^= s2;
+        s0 ^= s3;
+        s2 ^= t;
+        s3 = Long.rotateLeft(s3, 45);
+        return result;
+    }
+
+    @Override
+    public int nextInt(int bound) {
+        if (bound <= 0) {
+            throw new IllegalArgumentException("Bound must be positive: " + bound);
+        }
+        long product = (nextLong() >>> 32) * bound;
+        if (Integer.compareUnsigned((int) product, bound) < 0) {
+            // The low half fell in the biased zone; reject and redraw
+            long threshold = (1L << 32) % bound;
+            while ((product & 0xFFFFFFFFL) < threshold) {
+                product = (nextLong() >>> 32) * bound;
+            }
+        }
+        return (int) (product >>> 32);
+    }
+
+    @Override
+    public XoshiroRandomSource split() {
+        return new XoshiroRandomSource(nextLong());
+    }
+
+}
@@ -0,0 +1,143 @@
+package edu.guilford;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.lang.management.ManagementFactory;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks that the games' hot paths allocate nothing once they are warmed up,
+ * by reading the bytes the test thread has allocated from the JVM's
+ * ThreadMXBean before and after the measured calls. Each game is played with
+ * a reseeded generator, so every run plays the same games.
+ *
+ * @author Miguel A. Nunez Palomares
+ * @version 1.0
+ */
+class AllocationTest {
+
+    /**
+     * The games played before measuring, so that every buffer has grown to
+     * its working size and the hot paths are compiled. The Blackjack test may
+     * run first and compile the shared classes for its own calls, and the
+     * compiler is still redoing them well past 20,000 games.
+     */
+    private static final int WARMUP_GAMES = 60_000;
+    /**
+     * The games measured.
+     */
+    private static final int MEASURED_GAMES = 20_000;
+    /**
+     * The most turns played in one game.
+     */
+    private static final int MAX_TURNS = 1000;
+    /**
+     * The Blackjack rounds played before measuring, enough to go through
+     * many reshuffles of the shoe.
+     */
+    private static final int WARMUP_ROUNDS = 200_000;
+    /**
+     * The Blackjack rounds measured.
+     */
+    private static final int MEASURED_ROUNDS = 200_000;
+
+    /**
+     * The bean reporting the bytes allocated by each thread.
+     */
+    private static com.sun.management.ThreadMXBean threads;
+
+    @BeforeAll
+    static void findThreadBean() {
+        assumeTrue(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean,
+                "This JVM does not report allocated bytes per thread");
+        threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        assumeTrue(threads.isThreadAllocatedMemorySupported(), "Allocated bytes are not supported");
+        threads.setThreadAllocatedMemoryEnabled(true);
+    }
+
+    /**
+     * Gets the bytes the current thread has allocated so far.
+     */
+    private static long allocatedBytes() {
+        return threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    /**
+     * Plays a range of Lamarckian games, each a full game from a reset with
+     * the game's number as the seed, and counts the bytes allocated by their
+     * turns. Warming up goes through this same code, so the measured games
+     * do not hit a branch the compiler has not seen yet.
+     */
+    private static long playTurns(LamarckianPoker game, XoshiroRandomSource rand, int from, int to) {
+        long allocated = 0;
+        for (int i = from; i < to; i++) {
+            rand.setSeed(i);
+            game.reset(true);
+            long before = allocatedBytes();
+            while (game.getTurnNumber() < MAX_TURNS && game.turn()) {
+                // Play the whole game
+            }
+            allocated += allocatedBytes() - before;
+        }
+        return allocated;
+    }
+
+    /**
+     * Plays a range of Lamarckian games through {@link LamarckianPoker#play},
+     * each from a reset with the game's number as the seed, and counts the
+     * bytes allocated by the resets and the games.
+     */
+    private static long playGames(LamarckianPoker game, XoshiroRandomSource rand, int from, int to) {
+        long allocated = 0;
+        for (int i = from; i < to; i++) {
+            rand.setSeed(i);
+            long before = allocatedBytes();
+            game.reset(true);
+            game.play(MAX_TURNS);
+            allocated += allocatedBytes() - before;
+        }
+        return allocated;
+    }
+
+    /**
+     * Plays Blackjack rounds and counts the bytes they allocate, reshuffles
+     * of the shoe included.
+     */
+    private static long playRounds(Blackjack game, int rounds) {
+        long before = allocatedBytes();
+        for (int i = 0; i < rounds; i++) {
+            game.playRound();
+        }
+        return allocatedBytes() - before;
+    }
+
+    @Test
+    void blackjackRoundAllocatesNothing() {
+        Blackjack game = new Blackjack(new XoshiroRandomSource(42));
+        playRounds(game, WARMUP_ROUNDS);
+        long allocated = playRounds(game, MEASURED_ROUNDS);
+        assertEquals(0, allocated, "bytes allocated by " + MEASURED_ROUNDS + " rounds");
+    }
+
+    @Test
+    void lamarckianGameAllocatesNothing() {
+        XoshiroRandomSource rand = new XoshiroRandomSource(0);
+        LamarckianPoker game = new LamarckianPoker(rand);
+        playGames(game, rand, 0, WARMUP_GAMES);
+        long allocated = playGames(game, rand, WARMUP_GAMES, WARMUP_GAMES + MEASURED_GAMES);
+        assertEquals(0, allocated, "bytes allocated by the resets and plays of " + MEASURED_GAMES + " games");
+    }
+
+    @Test
+    void lamarckianTurnAllocatesNothing() {
+        XoshiroRandomSource rand = new XoshiroRandomSource(0);
+        LamarckianPoker game = new LamarckianPoker(rand);
+        playTurns(game, rand, 0, WARMUP_GAMES);
+        long allocated = playTurns(game, rand, WARMUP_GAMES, WARMUP_GAMES + MEASURED_GAMES);
+        assertEquals(0, allocated, "bytes allocated by the turns of " + MEASURED_GAMES + " games");
+    }
+
+}
@@ -0,0 +1,73 @@
+package edu.guilford;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks BlackjackSolver against a case worked out by hand and against the
+ * simulator. The simulator reshuffles a one-deck shoe after every round, so
+ * every round is dealt from the full deck the solver solves, and it is
+ * seeded and runs on a fixed number of workers, so the check plays the same
+ * rounds every time.
+ *
+ * @author Miguel A. Nunez Palomares
+ * @version 1.0
+ */
+class BlackjackSolverTest {
+
+    /**
+     * The seed of the simulated rounds.
+     */
+    private static final long SEED = 2024;
+    /**
+     * The number of simulated rounds.
+     */
+    private static final long ROUNDS = 1_000_000;
+    /**
+     * The number of worker threads; the simulator splits the rounds among
+     * them, so it is fixed too.
+     */
+    private static final int WORKERS = 2;
+
+    @Test
+    void standingOnTwentyAgainstASixMatchesTheHandCount() {
+        // Two fives, a six and four tens. After the player's two tens and
+        // the dealer's six, two fives and two tens are left. A ten in the
+        // hole makes 16, which busts on the other ten and makes 21 on either
+        // five; a five makes 11, which makes 21 on either ten and 16 on the
+        // other five, and that 16 busts on a ten. Either way the dealer ends
+        // on 21 two times in three and busts one time in three.
+        int[] composition = new int[DealerProbabilities.VALUE_COUNT];
+        composition[DealerProbabilities.indexOf(5)] = 2;
+        composition[DealerProbabilities.indexOf(6)] = 1;
+        composition[DealerProbabilities.indexOf(10)] = 4;
+        try (BlackjackSolver solver = new BlackjackSolver(composition, 1)) {
+            BlackjackSolver.Solution solution = solver.solve(StrategyTable.defaultStrategy());
+            assertEquals(4.0 / 7 * 3.0 / 6 * 1.0 / 5, solution.getProbability(10, 10, 6), 1e-12);
+            assertEquals(1.0 / 3 - 2.0 / 3, solution.getStandExpectation(10, 10, 6), 1e-12);
+        }
+    }
+
+    @Test
+    void agreesWithTheSimulator() {
+        Strategy strategy = StrategyTable.threshold(16);
+        double exact;
+        try (BlackjackSolver solver = new BlackjackSolver(BlackjackSolver.shoeComposition(1), WORKERS)) {
+            exact = solver.solve(strategy).getStrategyExpectation();
+        }
+        SimulationStats stats;
+        try (ParallelBlackjackSimulator simulator = new ParallelBlackjackSimulator(WORKERS, SEED)) {
+            // The cut card comes out after the first card, so every round
+            // starts from a freshly shuffled deck
+            simulator.setShoe(1, 1.0 / Card.CARD_COUNT);
+            simulator.setStrategy(strategy);
+            stats = simulator.run(ROUNDS);
+        }
+        double halfWidth = stats.meanHalfWidth(SimulationStats.Z_95);
+        assertTrue(Math.abs(stats.getMean() - exact) <= halfWidth, "solved " + exact + ", simulated "
+                + stats.getMean() + " +/- " + halfWidth);
+    }
+
+}
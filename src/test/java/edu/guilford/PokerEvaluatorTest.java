@@ -0,0 +1,135 @@
+package edu.guilford;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+import edu.guilford.PokerEvaluator.Category;
+
+/**
+ * Checks PokerEvaluator on fixed hands: the category of each kind of hand,
+ * the order of the categories, and the ties broken within a category. Hands
+ * are written as rank and suit letters, such as "AS TD 2C".
+ *
+ * @author Miguel A. Nunez Palomares
+ * @version 1.0
+ */
+class PokerEvaluatorTest {
+
+    /**
+     * The rank letters in the order of Card.Rank.
+     */
+    private static final String RANKS = "A23456789TJQK";
+    /**
+     * The suit letters in the order of Card.Suit.
+     */
+    private static final String SUITS = "CDHS";
+
+    /**
+     * Builds the card mask of a hand written as space-separated cards.
+     */
+    private static long mask(String cards) {
+        long mask = 0;
+        for (String card : cards.split(" ")) {
+            Card.Rank rank = Card.Rank.values()[RANKS.indexOf(card.charAt(0))];
+            Card.Suit suit = Card.Suit.values()[SUITS.indexOf(card.charAt(1))];
+            mask |= 1L << Card.of(suit, rank).getCode();
+        }
+        return mask;
+    }
+
+    /**
+     * Scores a hand written as space-separated cards.
+     */
+    private static int evaluate(String cards) {
+        return PokerEvaluator.evaluate(mask(cards));
+    }
+
+    /**
+     * Checks that the first hand beats the second.
+     */
+    private static void assertBeats(String better, String worse) {
+        assertTrue(evaluate(better) > evaluate(worse), better + " should beat " + worse);
+    }
+
+    @Test
+    void scoresEachCategory() {
+        assertEquals(Category.HIGH_CARD, PokerEvaluator.categoryOf(evaluate("AS JD 8C 5H 3S")));
+        assertEquals(Category.ONE_PAIR, PokerEvaluator.categoryOf(evaluate("9S 9D KC 5H 3S")));
+        assertEquals(Category.TWO_PAIR, PokerEvaluator.categoryOf(evaluate("9S 9D 5C 5H 3S")));
+        assertEquals(Category.THREE_OF_A_KIND, PokerEvaluator.categoryOf(evaluate("9S 9D 9C 5H 3S")));
+        assertEquals(Category.STRAIGHT, PokerEvaluator.categoryOf(evaluate("9S 8D 7C 6H 5S")));
+        assertEquals(Category.FLUSH, PokerEvaluator.categoryOf(evaluate("KH 9H 6H 3H 2H")));
+        assertEquals(Category.FULL_HOUSE, PokerEvaluator.categoryOf(evaluate("9S 9D 9C 5H 5S")));
+        assertEquals(Category.FOUR_OF_A_KIND, PokerEvaluator.categoryOf(evaluate("9S 9D 9C 9H 3S")));
+        assertEquals(Category.STRAIGHT_FLUSH, PokerEvaluator.categoryOf(evaluate("9S 8S 7S 6S 5S")));
+    }
+
+    @Test
+    void ordersCategories() {
+        String[] weakestFirst = { "AS JD 8C 5H 3S", "2S 2D 7C 5H 3S", "3S 3D 2C 2H 4S", "2S 2D 2C 5H 3S",
+                "5S 4D 3C 2H AS", "7H 5H 4H 3H 2H", "2S 2D 2C 3H 3S", "2S 2D 2C 2H 3S", "5S 4S 3S 2S AS" };
+        for (int i = 1; i < weakestFirst.length; i++) {
+            assertBeats(weakestFirst[i], weakestFirst[i - 1]);
+        }
+    }
+
+    @Test
+    void scoresTheWheelAsFiveHigh() {
+        int wheel = evaluate("AS 2D 3C 4H 5S");
+        assertEquals(Category.STRAIGHT, PokerEvaluator.categoryOf(wheel));
+        assertTrue(evaluate("2D 3C 4H 5S 6D") > wheel, "a six-high straight should beat the wheel");
+        assertTrue(evaluate("TS JD QC KH AS") > evaluate("2D 3C 4H 5S 6D"), "Broadway should be the best straight");
+        assertBeats("2S 3S 4S 5S 6S", "AS 2S 3S 4S 5S");
+    }
+
+    @Test
+    void prefersAFlushToAStraightInOneHand() {
+        // Hearts 2, 3, 6, 9 and K make a flush; 2 to 6 make a straight
+        int strength = evaluate("2H 3H 4C 5D 6H 9H KH");
+        assertEquals(Category.FLUSH, PokerEvaluator.categoryOf(strength));
+        assertEquals(evaluate("KH 9H 6H 3H 2H"), strength);
+    }
+
+    @Test
+    void scoresTwoTripsAsAFullHouse() {
+        int strength = evaluate("7C 7D 7H 4C 4D 4S KH");
+        assertEquals(Category.FULL_HOUSE, PokerEvaluator.categoryOf(strength));
+        assertEquals(evaluate("7C 7D 7H 4C 4D"), strength);
+    }
+
+    @Test
+    void breaksTiesOnKickers() {
+        assertBeats("AS AD KC 5H 3S", "AH AC QD 5S 3D");
+        assertBeats("AS AD KC 6H 2S", "AH AC KD 5S 4D");
+        assertBeats("9S 9D 5C 5H QS", "9H 9C 5D 5S JD");
+        assertBeats("9S 9D 9C KH 3S", "9H 9C 9D QS JD");
+        assertBeats("9S 9D 9C 9H 4S", "9S 9D 9C 9H 3S");
+        assertBeats("AS JD 8C 5H 3S", "AH JC 8D 5S 2D");
+        assertBeats("KH 9H 6H 3H 2H", "KS 9S 5S 4S 3S");
+        assertBeats("8S 8D 8C 2H 2S", "7S 7D 7C AH AS");
+    }
+
+    @Test
+    void tiesHandsOfEqualRanks() {
+        assertEquals(evaluate("AS JD 8C 5H 3S"), evaluate("AH JC 8D 5S 3D"));
+        // Only the best five cards count, so the sixth and seventh do not
+        assertEquals(evaluate("AS AD KC QH JS 3C 2D"), evaluate("AH AC KD QS JD 4H 3S"));
+    }
+
+    @Test
+    void scoresAHandLikeItsMask() {
+        Hand hand = new Hand();
+        BitsetHand bitset = new BitsetHand();
+        for (String card : "QS QD 7C 7H 2S".split(" ")) {
+            Card.Rank rank = Card.Rank.values()[RANKS.indexOf(card.charAt(0))];
+            Card.Suit suit = Card.Suit.values()[SUITS.indexOf(card.charAt(1))];
+            hand.addCard(Card.of(suit, rank));
+            bitset.addCard(Card.of(suit, rank));
+        }
+        assertEquals(evaluate("QS QD 7C 7H 2S"), PokerEvaluator.evaluate(hand));
+        assertEquals(evaluate("QS QD 7C 7H 2S"), PokerEvaluator.evaluate(bitset));
+    }
+
+}